@@ -0,0 +1,70 @@
+package splitwise.bench;
+
+import org.openjdk.jmh.annotations.*;
+import splitwise.model.Activity;
+import splitwise.model.ActivityType;
+import splitwise.model.User;
+import splitwise.service.ActivityServiceImpl;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures activity feed reads: the latest page, an older page reached through
+ * a cursor, and a per-user page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityBenchmark {
+    private static final ActivityType[] TYPES = ActivityType.values();
+
+    @Param({"1000", "100000", "1000000"})
+    public int activities;
+
+    @Param({"100", "10000"})
+    public int users;
+
+    @Param({"20"})
+    public int limit;
+
+    private ActivityServiceImpl activityService;
+    private List<User> allUsers;
+    private String middleActivityId;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        allUsers = BenchmarkData.createUsers(users);
+        activityService = new ActivityServiceImpl();
+        for (int i = 0; i < activities; i++) {
+            User actor = allUsers.get(random.nextInt(users));
+            Activity activity = activityService.recordActivity(TYPES[random.nextInt(TYPES.length)], actor,
+                    "Activity " + i);
+            if (i == activities / 2) {
+                middleActivityId = activity.getId();
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Activity> recentActivities() {
+        return activityService.getRecentActivities(limit);
+    }
+
+    @Benchmark
+    public List<Activity> recentActivitiesBeforeCursor() {
+        return activityService.getRecentActivities(middleActivityId, limit);
+    }
+
+    @Benchmark
+    public List<Activity> activitiesForUser() {
+        User user = allUsers.get(next++ % users);
+        return activityService.getActivitiesForUser(user, null, limit);
+    }
+}
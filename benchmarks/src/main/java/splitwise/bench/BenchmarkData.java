@@ -0,0 +1,37 @@
+package splitwise.bench;
+
+import splitwise.model.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic test data shared by the benchmarks.
+ */
+final class BenchmarkData {
+    static final long SEED = 42L;
+
+    private BenchmarkData() {
+    }
+
+    static List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User("User " + i, "user" + i + "@example.com", null));
+        }
+        return users;
+    }
+
+    /**
+     * Picks groupSize distinct users at random (partial Fisher-Yates shuffle).
+     */
+    static List<User> pickParticipants(List<User> users, int groupSize, Random random) {
+        List<User> pool = new ArrayList<>(users);
+        for (int i = 0; i < groupSize; i++) {
+            Collections.swap(pool, i, i + random.nextInt(pool.size() - i));
+        }
+        return new ArrayList<>(pool.subList(0, groupSize));
+    }
+}
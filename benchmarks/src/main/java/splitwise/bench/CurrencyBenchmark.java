@@ -0,0 +1,60 @@
+package splitwise.bench;
+
+import org.openjdk.jmh.annotations.*;
+import splitwise.model.Currency;
+import splitwise.util.CurrencyConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures CurrencyConverter.convert and convertCents for direct and
+ * cross-rate currency pairs, and bulk conversion of 1000 amounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrencyBenchmark {
+
+    @Param({"USD", "EUR", "INR"})
+    public Currency from;
+
+    @Param({"USD", "JPY"})
+    public Currency to;
+
+    private CurrencyConverter converter;
+    private double amount;
+    private long amountCents;
+    private long[] amountsCents;
+    private long[] converted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        converter = new CurrencyConverter();
+        amount = 1234.56;
+        amountCents = 123456;
+        amountsCents = new long[1000];
+        for (int i = 0; i < amountsCents.length; i++) {
+            amountsCents[i] = 100L * i + 99;
+        }
+        converted = new long[amountsCents.length];
+    }
+
+    @Benchmark
+    public double convert() {
+        return converter.convert(amount, from, to);
+    }
+
+    @Benchmark
+    public long convertCents() {
+        return converter.convertCents(amountCents, from, to);
+    }
+
+    @Benchmark
+    public long[] convertCentsBulk() {
+        converter.convertCents(amountsCents, from, to, converted);
+        return converted;
+    }
+}
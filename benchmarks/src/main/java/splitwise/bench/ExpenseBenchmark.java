@@ -0,0 +1,86 @@
+package splitwise.bench;
+
+import org.openjdk.jmh.annotations.*;
+import splitwise.exception.InvalidSplitException;
+import splitwise.manager.SplitwiseManager;
+import splitwise.model.Currency;
+import splitwise.model.Expense;
+import splitwise.model.ExpenseType;
+import splitwise.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures SplitwiseManager.addExpense end to end: splitting, ledger updates,
+ * expense indexes and the activity feed.
+ * State is rebuilt for every iteration so the store does not grow without bound.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpenseBenchmark {
+    private static final int PARTICIPANT_SETS = 1024;
+
+    @Param({"100", "10000"})
+    public int users;
+
+    @Param({"3", "10", "50"})
+    public int groupSize;
+
+    @Param({"0", "100000"})
+    public int existingExpenses;
+
+    private SplitwiseManager manager;
+    private List<List<User>> participantSets;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws InvalidSplitException {
+        SplitwiseManager.resetInstance();
+        manager = SplitwiseManager.getInstance();
+        // Console notifications would dominate the measurement and flood the JMH log
+        manager.removeExpenseObserver(manager.getNotificationService());
+
+        List<User> allUsers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            allUsers.add(manager.createUser("User " + i, "user" + i + "@example.com"));
+        }
+
+        Random random = new Random(BenchmarkData.SEED);
+        participantSets = new ArrayList<>(PARTICIPANT_SETS);
+        for (int i = 0; i < PARTICIPANT_SETS; i++) {
+            participantSets.add(BenchmarkData.pickParticipants(allUsers, groupSize, random));
+        }
+        for (int i = 0; i < existingExpenses; i++) {
+            addExpense();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        SplitwiseManager.resetInstance();
+    }
+
+    @Benchmark
+    public Expense addEqualExpense() throws InvalidSplitException {
+        return addExpense();
+    }
+
+    @Benchmark
+    public Expense addPercentageExpense() throws InvalidSplitException {
+        List<User> participants = participantSets.get(next++ & (PARTICIPANT_SETS - 1));
+        return manager.addExpense("Groceries", 87.65, Currency.EUR, participants.get(0),
+                ExpenseType.PERCENTAGE, participants);
+    }
+
+    private Expense addExpense() throws InvalidSplitException {
+        List<User> participants = participantSets.get(next++ & (PARTICIPANT_SETS - 1));
+        return manager.addExpense("Dinner", 123.45, participants.get(0), ExpenseType.EQUAL, participants);
+    }
+}
@@ -0,0 +1,85 @@
+package splitwise.bench;
+
+import org.openjdk.jmh.annotations.*;
+import splitwise.ledger.ExpenseColumnStore;
+import splitwise.model.Currency;
+import splitwise.model.Expense;
+import splitwise.model.ExpenseType;
+import splitwise.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures total spend per group: walking Expense objects (as getAllExpenses
+ * callers do) versus scanning the ExpenseColumnStore, on one thread and on a pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpenseScanBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int expenses;
+
+    @Param({"100"})
+    public int groups;
+
+    private List<Expense> expenseList;
+    private ExpenseColumnStore store;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        List<User> users = BenchmarkData.createUsers(1000);
+        Currency[] currencies = Currency.values();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        expenseList = new ArrayList<>(expenses);
+        store = new ExpenseColumnStore();
+        for (int i = 0; i < expenses; i++) {
+            Expense expense = new Expense("expense-" + i, "Dinner", random.nextInt(100_000),
+                    currencies[random.nextInt(currencies.length)], users.get(random.nextInt(users.size())),
+                    ExpenseType.EQUAL, start.plusMinutes(random.nextInt(525_600)));
+            expense.setGroupId("group-" + random.nextInt(groups));
+            expenseList.add(expense);
+            store.append(expense);
+        }
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, Long> objectWalk() {
+        Map<String, Long> totals = new HashMap<>();
+        for (Expense expense : new ArrayList<>(expenseList)) {
+            if (expense.getCurrency() == Currency.USD && expense.getGroupId() != null) {
+                totals.merge(expense.getGroupId(), expense.getAmountCents(), Long::sum);
+            }
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public Map<String, Long> columnScan() {
+        return store.totalByGroup(Currency.USD);
+    }
+
+    @Benchmark
+    public Map<String, Long> columnScanParallel() {
+        return store.view().totalByGroup(Currency.USD, pool);
+    }
+}
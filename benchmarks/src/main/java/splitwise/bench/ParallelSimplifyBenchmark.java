@@ -0,0 +1,75 @@
+package splitwise.bench;
+
+import org.openjdk.jmh.annotations.*;
+import splitwise.model.Balance;
+import splitwise.model.User;
+import splitwise.util.DebtSimplifier;
+import splitwise.util.ParallelSimplifier;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures simplifying many groups at once with ParallelSimplifier, by pool size.
+ * Each group has random zero-sum net balances small enough to be solved exactly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSimplifyBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"200"})
+    public int groups;
+
+    @Param({"14"})
+    public int groupSize;
+
+    private List<Integer> groupIndexes;
+    private List<Map<User, Long>> netBalances;
+    private ForkJoinPool pool;
+    private ParallelSimplifier simplifier;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        List<User> allUsers = BenchmarkData.createUsers(groups * groupSize);
+        groupIndexes = new ArrayList<>(groups);
+        netBalances = new ArrayList<>(groups);
+        for (int group = 0; group < groups; group++) {
+            Map<User, Long> nets = new LinkedHashMap<>();
+            long sum = 0;
+            for (int i = 0; i < groupSize - 1; i++) {
+                long cents = random.nextInt(200_000) - 100_000;
+                nets.put(allUsers.get(group * groupSize + i), cents);
+                sum += cents;
+            }
+            // Net balances always sum to zero
+            nets.put(allUsers.get(group * groupSize + groupSize - 1), -sum);
+            groupIndexes.add(group);
+            netBalances.add(nets);
+        }
+        pool = new ForkJoinPool(threads);
+        simplifier = new ParallelSimplifier(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Map<Integer, List<Balance>> simplifyAll() {
+        return simplifier.simplifyAll(groupIndexes, netBalances::get, DebtSimplifier.DEFAULT_TIME_BUDGET);
+    }
+}
@@ -0,0 +1,56 @@
+package splitwise.bench;
+
+import org.openjdk.jmh.annotations.*;
+import splitwise.model.Balance;
+import splitwise.model.User;
+import splitwise.util.BalanceSimplifier;
+import splitwise.util.DebtSimplifier;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures BalanceSimplifier.simplify (greedy) and DebtSimplifier.simplify (exact
+ * within its default time budget) over random zero-sum net balances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimplifyBenchmark {
+
+    @Param({"10", "12", "18", "100", "1000", "10000"})
+    public int users;
+
+    private Map<User, Long> netBalances;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        List<User> allUsers = BenchmarkData.createUsers(users);
+        netBalances = new LinkedHashMap<>();
+        long sum = 0;
+        for (int i = 0; i < users - 1; i++) {
+            long cents = random.nextInt(200_000) - 100_000;
+            netBalances.put(allUsers.get(i), cents);
+            sum += cents;
+        }
+        // Net balances always sum to zero
+        netBalances.put(allUsers.get(users - 1), -sum);
+    }
+
+    @Benchmark
+    public List<Balance> simplify() {
+        return BalanceSimplifier.simplify(netBalances);
+    }
+
+    @Benchmark
+    public List<Balance> simplifyExact() {
+        return DebtSimplifier.simplify(netBalances);
+    }
+}
@@ -0,0 +1,64 @@
+package splitwise.bench;
+
+import org.openjdk.jmh.annotations.*;
+import splitwise.exception.InvalidSplitException;
+import splitwise.factory.SplitFactory;
+import splitwise.model.ExpenseType;
+import splitwise.model.User;
+import splitwise.model.split.Split;
+import splitwise.model.split.SplitShares;
+import splitwise.strategy.SplitStrategy;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the split strategies: creating splits for a participant list,
+ * computing the same shares into primitive arrays, and recalculating and
+ * validating an existing split list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitStrategyBenchmark {
+    private static final long TOTAL_CENTS = 1_234_567L;
+
+    @Param({"EQUAL", "EXACT", "PERCENTAGE"})
+    public ExpenseType type;
+
+    @Param({"3", "10", "50", "500", "5000"})
+    public int groupSize;
+
+    private List<User> participants;
+    private SplitStrategy strategy;
+    private List<Split> splits;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        participants = BenchmarkData.createUsers(groupSize);
+        strategy = SplitFactory.getStrategy(type);
+        splits = SplitFactory.createSplits(type, TOTAL_CENTS, participants);
+    }
+
+    @Benchmark
+    public List<Split> createSplits() {
+        return SplitFactory.createSplits(type, TOTAL_CENTS, participants);
+    }
+
+    @Benchmark
+    public SplitShares computeShares() throws InvalidSplitException {
+        SplitShares shares = strategy.computeShares(TOTAL_CENTS, participants);
+        strategy.validate(TOTAL_CENTS, shares);
+        return shares;
+    }
+
+    @Benchmark
+    public List<Split> calculateAndValidate() throws InvalidSplitException {
+        strategy.calculateSplits(TOTAL_CENTS, splits);
+        strategy.validate(TOTAL_CENTS, splits);
+        return splits;
+    }
+}
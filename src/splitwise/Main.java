@@ -127,6 +127,7 @@ public class Main {
             ExpenseType.EQUAL,
             participants
         );
+        manager.awaitExpenseEvents();
 
         System.out.println("Expense: " + expense.getDescription());
         System.out.println("Total: " + expense.getCurrency().format(expense.getAmount()));
@@ -161,6 +162,7 @@ public class Main {
             ExpenseType.EXACT,
             splits
         );
+        manager.awaitExpenseEvents();
 
         System.out.println("Expense: " + expense.getDescription());
         System.out.println("Total: " + expense.getCurrency().format(expense.getAmount()));
@@ -195,6 +197,7 @@ public class Main {
             ExpenseType.PERCENTAGE,
             splits
         );
+        manager.awaitExpenseEvents();
 
         System.out.println("Expense: " + expense.getDescription());
         System.out.println("Total: " + expense.getCurrency().format(expense.getAmount()));
@@ -226,6 +229,7 @@ public class Main {
             ExpenseType.EQUAL,
             participants
         );
+        manager.awaitExpenseEvents();
 
         System.out.println("Expense: " + euroExpense.getDescription());
         System.out.println("Total: " + euroExpense.getCurrency().format(euroExpense.getAmount()));
@@ -260,6 +264,7 @@ public class Main {
                 groupMembers,
                 tripGroup.getId()
             );
+            manager.awaitExpenseEvents();
 
             System.out.println("Group: " + tripGroup.getName());
             System.out.println("Expense: " + groupExpense.getDescription());
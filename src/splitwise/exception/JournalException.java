@@ -0,0 +1,16 @@
+package splitwise.exception;
+
+/**
+ * Exception thrown when the write-ahead journal cannot be written or read.
+ */
+public class JournalException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public JournalException(String message) {
+        super(message);
+    }
+
+    public JournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -3,9 +3,12 @@ package splitwise.factory;
 import splitwise.exception.InvalidSplitException;
 import splitwise.model.Currency;
 import splitwise.model.Expense;
+import splitwise.model.ExpenseRequest;
 import splitwise.model.ExpenseType;
+import splitwise.model.Money;
 import splitwise.model.User;
 import splitwise.model.split.Split;
+import splitwise.model.split.SplitShares;
 import splitwise.strategy.SplitStrategy;
 
 import java.util.List;
@@ -46,24 +49,9 @@ public class ExpenseFactory {
     public static Expense createExpense(String description, double amount, Currency currency,
                                          User paidBy, ExpenseType type, List<User> participants)
             throws InvalidSplitException {
-        if (amount <= 0) {
-            throw new InvalidSplitException("Expense amount must be positive");
-        }
-        if (paidBy == null) {
-            throw new InvalidSplitException("Payer cannot be null");
-        }
-        if (participants == null || participants.isEmpty()) {
-            throw new InvalidSplitException("Expense must have at least one participant");
-        }
-
+        SplitShares shares = computeShares(amount, paidBy, type, participants);
         Expense expense = new Expense(description, amount, currency, paidBy, type);
-
-        // Create and validate splits using strategy pattern
-        SplitStrategy strategy = SplitFactory.getStrategy(type);
-        List<Split> splits = strategy.createSplits(amount, participants);
-        strategy.validate(amount, splits);
-
-        expense.setSplits(splits);
+        expense.setShares(shares);
         return expense;
     }
 
@@ -81,7 +69,8 @@ public class ExpenseFactory {
     public static Expense createExpenseWithSplits(String description, double amount, Currency currency,
                                                    User paidBy, ExpenseType type, List<Split> splits)
             throws InvalidSplitException {
-        if (amount <= 0) {
+        long amountCents = Money.toCents(amount);
+        if (amountCents <= 0) {
             throw new InvalidSplitException("Expense amount must be positive");
         }
         if (paidBy == null) {
@@ -93,14 +82,52 @@ public class ExpenseFactory {
 
         // Validate splits using strategy pattern
         SplitStrategy strategy = SplitFactory.getStrategy(type);
-        strategy.calculateSplits(amount, splits);
-        strategy.validate(amount, splits);
+        strategy.calculateSplits(amountCents, splits);
+        strategy.validate(amountCents, splits);
 
         Expense expense = new Expense(description, amount, currency, paidBy, type);
         expense.setSplits(splits);
         return expense;
     }
 
+    /**
+     * Creates an expense from a request, as a group expense if the request names a group.
+     *
+     * @param request The expense request
+     * @return The created expense with splits
+     */
+    public static Expense createExpense(ExpenseRequest request) throws InvalidSplitException {
+        return createExpense(request, computeShares(request));
+    }
+
+    /**
+     * Computes and validates the shares of a request without creating the expense.
+     * Touches no shared state, so a batch can compute its shares in parallel and
+     * then create the expenses (ids, timestamps) in order with createExpense(request, shares).
+     *
+     * @param request The expense request
+     * @return The validated shares
+     */
+    public static SplitShares computeShares(ExpenseRequest request) throws InvalidSplitException {
+        return computeShares(request.getAmount(), request.getPaidBy(), request.getType(),
+                request.getParticipants());
+    }
+
+    /**
+     * Creates an expense from a request and the shares computed for it by computeShares.
+     *
+     * @param request The expense request
+     * @param shares  The request's validated shares
+     * @return The created expense, a group expense if the request names a group
+     */
+    public static Expense createExpense(ExpenseRequest request, SplitShares shares) {
+        Expense expense = new Expense(request.getDescription(), request.getAmount(), request.getCurrency(),
+                request.getPaidBy(), request.getType());
+        expense.setShares(shares);
+        expense.setGroupId(request.getGroupId());
+        return expense;
+    }
+
     /**
      * Creates a group expense.
      *
@@ -120,4 +147,24 @@ public class ExpenseFactory {
         expense.setGroupId(groupId);
         return expense;
     }
+
+    private static SplitShares computeShares(double amount, User paidBy, ExpenseType type,
+                                             List<User> participants) throws InvalidSplitException {
+        long amountCents = Money.toCents(amount);
+        if (amountCents <= 0) {
+            throw new InvalidSplitException("Expense amount must be positive");
+        }
+        if (paidBy == null) {
+            throw new InvalidSplitException("Payer cannot be null");
+        }
+        if (participants == null || participants.isEmpty()) {
+            throw new InvalidSplitException("Expense must have at least one participant");
+        }
+
+        // Compute and validate shares using strategy pattern; Split objects are created only on demand
+        SplitStrategy strategy = SplitFactory.getStrategy(type);
+        SplitShares shares = strategy.computeShares(amountCents, participants);
+        strategy.validate(amountCents, shares);
+        return shares;
+    }
 }
@@ -19,6 +19,10 @@ import java.util.List;
  * Open/Closed Principle: New split types can be added without modifying client code.
  */
 public class SplitFactory {
+    // Strategies are stateless, so one instance of each is shared
+    private static final SplitStrategy EQUAL_STRATEGY = new EqualSplitStrategy();
+    private static final SplitStrategy EXACT_STRATEGY = new ExactSplitStrategy();
+    private static final SplitStrategy PERCENTAGE_STRATEGY = new PercentageSplitStrategy();
 
     /**
      * Creates a single split of the specified type.
@@ -64,6 +68,7 @@ public class SplitFactory {
 
     /**
      * Gets the appropriate split strategy for the expense type.
+     * Returns a shared instance.
      *
      * @param type The expense type
      * @return The corresponding split strategy
@@ -71,11 +76,11 @@ public class SplitFactory {
     public static SplitStrategy getStrategy(ExpenseType type) {
         switch (type) {
             case EQUAL:
-                return new EqualSplitStrategy();
+                return EQUAL_STRATEGY;
             case EXACT:
-                return new ExactSplitStrategy();
+                return EXACT_STRATEGY;
             case PERCENTAGE:
-                return new PercentageSplitStrategy();
+                return PERCENTAGE_STRATEGY;
             default:
                 throw new IllegalArgumentException("Unknown expense type: " + type);
         }
@@ -84,13 +89,13 @@ public class SplitFactory {
     /**
      * Creates splits for multiple users with equal distribution.
      *
-     * @param type        The expense type
-     * @param totalAmount The total amount to split
-     * @param users       The users to split among
+     * @param type       The expense type
+     * @param totalCents The total amount to split, in cents
+     * @param users      The users to split among
      * @return List of splits
      */
-    public static List<Split> createSplits(ExpenseType type, double totalAmount, List<User> users) {
+    public static List<Split> createSplits(ExpenseType type, long totalCents, List<User> users) {
         SplitStrategy strategy = getStrategy(type);
-        return strategy.createSplits(totalAmount, users);
+        return strategy.createSplits(totalCents, users);
     }
 }
@@ -0,0 +1,592 @@
+package splitwise.ledger;
+
+import splitwise.model.Currency;
+import splitwise.util.IntList;
+import splitwise.util.LongVectorMap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe ledger of pairwise balances between users.
+ * Each user pair is stored exactly once under a canonical key, so both sides
+ * of a debt are updated by a single atomic operation and can never diverge.
+ *
+ * Storage: user ids are interned to dense ints, a pair is packed into one long
+ * (smaller id in the high half) and each pair's balance is a vector with one
+ * component per currency (see CurrencyVectors), held flat in a LongVectorMap,
+ * so an update neither boxes nor allocates.
+ * Currencies: an amount is recorded in the currency it was spent in, with no
+ * conversion. Reads that need a single figure take a conversion vector and
+ * convert each pair's vector with one dot product.
+ * Concurrency: pairs are spread over lock stripes, so threads posting
+ * expenses for disjoint pairs rarely contend on the same lock.
+ * Totals: each user's net balance, total owed and total owed to them are kept
+ * as per-currency counters, adjusted by every change to one of their pairs, so
+ * reading them never scans the user's balances. Owed totals are netted per
+ * currency before conversion. Both users' totals are adjusted while the pair's
+ * stripe lock is held, so once a pair change can be read, so can its effect on
+ * the totals. Totals of different users are still read one user at a time.
+ * Locks are taken in the order stripe, then account, never the reverse.
+ * Checkpoints: checkpoint() freezes the balances, and those of every
+ * GroupLedger sharing this ledger, as they are, copy-on-write, so a snapshot
+ * can read them while changes continue (see Checkpoint).
+ * All amounts are in cents.
+ */
+public class BalanceLedger {
+    private static final int STRIPE_COUNT = 64; // Must be a power of two
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private final IdInterner interner;
+    // Packed pair -> per-currency balance in cents from the smaller id's perspective
+    // (positive = larger id owes smaller id)
+    private final LongVectorMap[] stripes;
+    // Dense user id -> counterparties and running totals
+    private volatile Account[] accounts;
+    // The open checkpoint, if any; changes preserve a stripe for it before touching it
+    private volatile Checkpoint checkpoint;
+
+    public BalanceLedger() {
+        this(new IdInterner());
+    }
+
+    public BalanceLedger(IdInterner interner) {
+        this.interner = interner;
+        this.stripes = new LongVectorMap[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new LongVectorMap(CurrencyVectors.SIZE);
+        }
+        this.accounts = new Account[64];
+    }
+
+    public IdInterner getInterner() {
+        return interner;
+    }
+
+    /**
+     * Records that the debtor owes the creditor an additional amount.
+     * A negative amount reduces the debt (e.g. a payment or a reversal).
+     *
+     * @param creditorId  The user who is owed money
+     * @param debtorId    The user who owes money
+     * @param currency    The currency of the amount
+     * @param amountCents The amount to add to the debt, in cents
+     */
+    public void apply(String creditorId, String debtorId, Currency currency, long amountCents) {
+        if (creditorId.equals(debtorId) || amountCents == 0) {
+            return;
+        }
+        apply(interner.intern(creditorId), interner.intern(debtorId), currency, amountCents);
+    }
+
+    /**
+     * Records that the debtor owes the creditor an additional amount, by dense id.
+     */
+    public void apply(int creditor, int debtor, Currency currency, long amountCents) {
+        if (creditor == debtor || amountCents == 0) {
+            return;
+        }
+        long key = pairKey(creditor, debtor);
+        int component = currency.ordinal();
+        long signedAmount = creditor < debtor ? amountCents : -amountCents;
+
+        int index = stripeIndex(key);
+        LongVectorMap stripe = stripes[index];
+        synchronized (stripe) {
+            preserve(index);
+            long previous = stripe.get(key, component);
+            // Settled pairs keep their (zero) entry, so each pair is linked only once
+            if (stripe.addTo(key, component, signedAmount)) {
+                link(creditor, debtor);
+                link(debtor, creditor);
+            }
+            updateTotals(key, component, previous, previous + signedAmount);
+        }
+    }
+
+    /**
+     * Applies a batch of changes, taking each stripe lock once instead of once per pair.
+     */
+    public void apply(LedgerBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Bucket the (pair, currency) changes by stripe
+        int[] counts = new int[STRIPE_COUNT];
+        batch.forEach((key, currency, delta) -> counts[stripeIndex(key)]++);
+        long[][] keys = new long[STRIPE_COUNT][];
+        int[][] components = new int[STRIPE_COUNT][];
+        long[][] amounts = new long[STRIPE_COUNT][];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            keys[i] = new long[counts[i]];
+            components[i] = new int[counts[i]];
+            amounts[i] = new long[counts[i]];
+        }
+        int[] filled = new int[STRIPE_COUNT];
+        batch.forEach((key, currency, delta) -> {
+            int stripe = stripeIndex(key);
+            keys[stripe][filled[stripe]] = key;
+            components[stripe][filled[stripe]] = currency;
+            amounts[stripe][filled[stripe]++] = delta;
+        });
+
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            LongVectorMap stripe = stripes[i];
+            synchronized (stripe) {
+                preserve(i);
+                for (int j = 0; j < counts[i]; j++) {
+                    long key = keys[i][j];
+                    long previous = stripe.get(key, components[i][j]);
+                    if (stripe.addTo(key, components[i][j], amounts[i][j])) {
+                        link((int) (key >>> 32), (int) key);
+                        link((int) key, (int) (key >>> 32));
+                    }
+                    updateTotals(key, components[i][j], previous, previous + amounts[i][j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the balance of a user with another user in one currency, unconverted.
+     * Positive = the other user owes this user, Negative = this user owes the other user.
+     */
+    public long getBalance(String userId, String otherUserId, Currency currency) {
+        int user = interner.lookup(userId);
+        int other = interner.lookup(otherUserId);
+        if (user == IdInterner.UNKNOWN || other == IdInterner.UNKNOWN || user == other) {
+            return 0L;
+        }
+        long key = pairKey(user, other);
+        LongVectorMap stripe = stripeFor(key);
+        long balance;
+        synchronized (stripe) {
+            balance = stripe.get(key, currency.ordinal());
+        }
+        return user < other ? balance : -balance;
+    }
+
+    /**
+     * Gets the balance of a user with another user, converted to one currency.
+     *
+     * @param rates Conversion vector to the target currency
+     */
+    public long getBalance(String userId, String otherUserId, double[] rates) {
+        int user = interner.lookup(userId);
+        int other = interner.lookup(otherUserId);
+        if (user == IdInterner.UNKNOWN || other == IdInterner.UNKNOWN) {
+            return 0L;
+        }
+        return getBalance(user, other, rates);
+    }
+
+    /**
+     * Gets the converted balance of a user with another user, by dense id.
+     */
+    public long getBalance(int user, int other, double[] rates) {
+        if (user == other) {
+            return 0L;
+        }
+        long key = pairKey(user, other);
+        LongVectorMap stripe = stripeFor(key);
+        long balance;
+        synchronized (stripe) {
+            int row = stripe.row(key);
+            balance = row < 0 ? 0L : CurrencyVectors.convert(stripe, row, rates);
+        }
+        return user < other ? balance : -balance;
+    }
+
+    /**
+     * Copies the per-currency balance of a user with another user into 'into'.
+     */
+    public void getBalanceVector(String userId, String otherUserId, long[] into) {
+        int user = interner.lookup(userId);
+        int other = interner.lookup(otherUserId);
+        if (user == IdInterner.UNKNOWN || other == IdInterner.UNKNOWN || user == other) {
+            Arrays.fill(into, 0, CurrencyVectors.SIZE, 0L);
+            return;
+        }
+        long key = pairKey(user, other);
+        LongVectorMap stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.copyTo(key, into);
+        }
+        if (user > other) {
+            for (int c = 0; c < CurrencyVectors.SIZE; c++) {
+                into[c] = -into[c];
+            }
+        }
+    }
+
+    /**
+     * Gets all non-zero balances of a user, converted to one currency and keyed
+     * by the other user's id.
+     * Positive = they owe the user, Negative = the user owes them.
+     */
+    public Map<String, Long> getBalances(String userId, double[] rates) {
+        int user = interner.lookup(userId);
+        if (user == IdInterner.UNKNOWN) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> balances = new HashMap<>();
+        forEachCounterparty(user, rates, (other, balance) -> balances.put(interner.externalId(other), balance));
+        return balances;
+    }
+
+    /**
+     * Visits every non-zero converted balance of a user without allocating a map.
+     */
+    public void forEachCounterparty(int user, double[] rates, CounterpartyVisitor visitor) {
+        int[] others = counterpartiesOf(user);
+        for (int other : others) {
+            long balance = getBalance(user, other, rates);
+            if (balance != 0) {
+                visitor.visit(other, balance);
+            }
+        }
+    }
+
+    /**
+     * Gets the net balance of a user converted to one currency
+     * (positive = net creditor, negative = net debtor).
+     * O(1): read from the user's running totals.
+     */
+    public long getNetBalance(String userId, double[] rates) {
+        return getNetBalance(interner.lookup(userId), rates);
+    }
+
+    /**
+     * Gets the converted net balance of a user, by dense id.
+     */
+    public long getNetBalance(int user, double[] rates) {
+        Account account = accountOf(user);
+        if (account == null) {
+            return 0L;
+        }
+        synchronized (account) {
+            return CurrencyVectors.convert(account.net, rates);
+        }
+    }
+
+    /**
+     * Reads the converted net balances of several users, rounded together
+     * (CurrencyVectors.roundToSum) so that nets which sum to zero per currency
+     * still sum to zero after conversion. Each user's totals are read
+     * atomically, but the users are not read as one snapshot.
+     *
+     * @param users       Dense ids (UNKNOWN ids read as 0)
+     * @param rates       Conversion vector to the target currency
+     * @param netBalances Receives the net balance of each user, in order
+     */
+    public void readNetBalances(int[] users, double[] rates, long[] netBalances) {
+        double[] exact = new double[users.length];
+        for (int i = 0; i < users.length; i++) {
+            Account account = accountOf(users[i]);
+            if (account != null) {
+                synchronized (account) {
+                    exact[i] = CurrencyVectors.convertExact(account.net, rates);
+                }
+            }
+        }
+        CurrencyVectors.roundToSum(exact, netBalances);
+    }
+
+    /**
+     * Gets the total amount a user owes to others, converted to one currency. O(1).
+     */
+    public long getTotalOwed(String userId, double[] rates) {
+        Account account = accountOf(interner.lookup(userId));
+        if (account == null) {
+            return 0L;
+        }
+        synchronized (account) {
+            return CurrencyVectors.convert(account.owed, rates);
+        }
+    }
+
+    /**
+     * Gets the total amount others owe a user, converted to one currency. O(1).
+     */
+    public long getTotalOwedToMe(String userId, double[] rates) {
+        Account account = accountOf(interner.lookup(userId));
+        if (account == null) {
+            return 0L;
+        }
+        synchronized (account) {
+            return CurrencyVectors.convert(account.owedToMe, rates);
+        }
+    }
+
+    /**
+     * Visits every non-zero pairwise balance once per currency, unconverted.
+     */
+    public void forEachBalance(BalanceVisitor visitor) {
+        for (LongVectorMap stripe : stripes) {
+            PairsCopy copy;
+            synchronized (stripe) {
+                copy = new PairsCopy(stripe);
+            }
+            // Call back outside the stripe lock so visitors may query the ledger
+            copy.visit(interner, visitor);
+        }
+    }
+
+    /**
+     * Freezes the current balances, global and per group, for a reader that
+     * must see them exactly as they are now, such as a snapshot, without
+     * holding up later changes.
+     * No change may be in progress while this is called; the caller must close
+     * the checkpoint once it has been read. One checkpoint is open at a time.
+     */
+    public Checkpoint checkpoint() {
+        Checkpoint opened = new Checkpoint();
+        checkpoint = opened;
+        return opened;
+    }
+
+    /**
+     * Copies a stripe for the open checkpoint before its first change. Must
+     * hold the stripe's lock.
+     */
+    private void preserve(int index) {
+        Checkpoint open = checkpoint;
+        if (open != null && open.copies[index] == null) {
+            open.copies[index] = new PairsCopy(stripes[index]);
+        }
+    }
+
+    /**
+     * Packs an unordered pair of dense ids into one long, smaller id first.
+     * The larger id is always at least 1, so a packed key is never 0.
+     */
+    static long pairKey(int user1, int user2) {
+        int low = Math.min(user1, user2);
+        int high = Math.max(user1, user2);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    private LongVectorMap stripeFor(long pairKey) {
+        return stripes[stripeIndex(pairKey)];
+    }
+
+    private static int stripeIndex(long pairKey) {
+        long h = pairKey * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 58) & (STRIPE_COUNT - 1);
+    }
+
+    private int[] counterpartiesOf(int user) {
+        Account account = accountOf(user);
+        if (account == null) {
+            return new int[0];
+        }
+        synchronized (account) {
+            return account.counterparties.toArray();
+        }
+    }
+
+    private void link(int user, int other) {
+        Account account = accountFor(user);
+        synchronized (account) {
+            account.counterparties.add(other);
+        }
+    }
+
+    /**
+     * Moves both users' totals from a pair's previous balance in one currency to its new one.
+     * Balances are from the smaller id's perspective, as stored.
+     */
+    private void updateTotals(long pairKey, int currency, long previous, long current) {
+        accountFor((int) (pairKey >>> 32)).adjust(currency, previous, current);
+        accountFor((int) pairKey).adjust(currency, -previous, -current);
+    }
+
+    private Account accountOf(int user) {
+        Account[] current = accounts;
+        return user >= 0 && user < current.length ? current[user] : null;
+    }
+
+    private Account accountFor(int user) {
+        Account[] current = accounts;
+        if (user < current.length && current[user] != null) {
+            return current[user];
+        }
+        synchronized (this) {
+            current = accounts;
+            if (user >= current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length << 1, user + 1));
+            }
+            if (current[user] == null) {
+                current[user] = new Account();
+            }
+            accounts = current;
+            return current[user];
+        }
+    }
+
+    /**
+     * A user's counterparties and per-currency running totals. Guarded by its own monitor.
+     */
+    private static final class Account {
+        private final IntList counterparties = new IntList();
+        private final long[] net = new long[CurrencyVectors.SIZE];
+        private final long[] owed = new long[CurrencyVectors.SIZE];
+        private final long[] owedToMe = new long[CurrencyVectors.SIZE];
+
+        /**
+         * Replaces one pair's contribution in one currency, given as that pair's
+         * balance from this user's perspective.
+         */
+        synchronized void adjust(int currency, long previous, long current) {
+            net[currency] += current - previous;
+            owedToMe[currency] += Math.max(current, 0) - Math.max(previous, 0);
+            owed[currency] += Math.max(-current, 0) - Math.max(-previous, 0);
+        }
+    }
+
+    Checkpoint openCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * The balances as they were when checkpoint() was called. Each stripe, and
+     * each group's pairs, is copied either by the first change to it after that
+     * point or, if it has not changed, when it is read, so the copying cost is
+     * spread over the writers and the reader instead of pausing either.
+     */
+    public final class Checkpoint {
+        // Stripe index -> its contents at the checkpoint (VISITED once read); guarded by the stripe's lock
+        private final PairsCopy[] copies = new PairsCopy[STRIPE_COUNT];
+        // Group id -> its pairs at the checkpoint (VISITED once read); each entry guarded by its group's lock
+        private final Map<String, PairsCopy> groupCopies = new ConcurrentHashMap<>();
+
+        private Checkpoint() {
+        }
+
+        /**
+         * Visits every non-zero pairwise balance at the checkpoint once per
+         * currency, unconverted. Call at most once.
+         */
+        public void forEachBalance(BalanceVisitor visitor) {
+            for (int i = 0; i < STRIPE_COUNT; i++) {
+                PairsCopy copy;
+                synchronized (stripes[i]) {
+                    copy = copies[i] != null ? copies[i] : new PairsCopy(stripes[i]);
+                    // Later changes to the stripe need not copy it again
+                    copies[i] = PairsCopy.VISITED;
+                }
+                copy.visit(interner, visitor);
+            }
+        }
+
+        /**
+         * Visits every non-zero pairwise balance of a group at the checkpoint
+         * once per currency, unconverted. Call at most once per group. A group
+         * ledger created after the checkpoint reads as empty, as it was then.
+         */
+        public void forEachGroupBalance(GroupLedger group, BalanceVisitor visitor) {
+            PairsCopy copy;
+            synchronized (group) {
+                copy = groupCopies.get(group.getGroupId());
+                if (copy == null) {
+                    copy = group.copyPairs();
+                }
+                groupCopies.put(group.getGroupId(), PairsCopy.VISITED);
+            }
+            copy.visit(interner, visitor);
+        }
+
+        /**
+         * Copies a group's pairs before their first change. Must hold the group's lock.
+         */
+        void preserveGroup(GroupLedger group) {
+            if (!groupCopies.containsKey(group.getGroupId())) {
+                groupCopies.put(group.getGroupId(), group.copyPairs());
+            }
+        }
+
+        /**
+         * Stops preserving stripes and groups for this checkpoint.
+         */
+        public void close() {
+            if (checkpoint == this) {
+                checkpoint = null;
+            }
+        }
+    }
+
+    /**
+     * Packed pairs and their per-currency balances (a stripe's or a group's),
+     * copied under the owner's lock.
+     */
+    static final class PairsCopy {
+        static final PairsCopy VISITED = new PairsCopy(new LongVectorMap(CurrencyVectors.SIZE));
+
+        private final long[] keys;
+        private final long[] vectors;
+
+        PairsCopy(LongVectorMap pairs) {
+            keys = new long[pairs.size()];
+            vectors = new long[pairs.size() * CurrencyVectors.SIZE];
+            for (int row = 0; row < keys.length; row++) {
+                keys[row] = pairs.keyAt(row);
+                for (int c = 0; c < CurrencyVectors.SIZE; c++) {
+                    vectors[row * CurrencyVectors.SIZE + c] = pairs.valueAt(row, c);
+                }
+            }
+        }
+
+        void visit(IdInterner interner, BalanceVisitor visitor) {
+            for (int row = 0; row < keys.length; row++) {
+                String low = null;
+                String high = null;
+                for (int c = 0; c < CurrencyVectors.SIZE; c++) {
+                    long balance = vectors[row * CurrencyVectors.SIZE + c];
+                    if (balance == 0) {
+                        continue;
+                    }
+                    if (low == null) {
+                        low = interner.externalId((int) (keys[row] >>> 32));
+                        high = interner.externalId((int) keys[row]);
+                    }
+                    if (balance > 0) {
+                        visitor.visit(low, high, CURRENCIES[c], balance);
+                    } else {
+                        visitor.visit(high, low, CURRENCIES[c], -balance);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Callback for iterating over pairwise balances.
+     */
+    public interface BalanceVisitor {
+        /**
+         * @param creditorId  The user who is owed money
+         * @param debtorId    The user who owes money
+         * @param currency    The currency of the debt
+         * @param amountCents The positive amount owed, in cents
+         */
+        void visit(String creditorId, String debtorId, Currency currency, long amountCents);
+    }
+
+    /**
+     * Callback for iterating over one user's balances by dense id.
+     */
+    public interface CounterpartyVisitor {
+        /**
+         * @param other       The dense id of the other user
+         * @param amountCents Positive = they owe the user, Negative = the user owes them
+         */
+        void visit(int other, long amountCents);
+    }
+}
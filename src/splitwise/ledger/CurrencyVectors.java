@@ -0,0 +1,110 @@
+package splitwise.ledger;
+
+import splitwise.exception.InvalidCurrencyException;
+import splitwise.model.Currency;
+import splitwise.util.LongVectorMap;
+
+import java.util.Arrays;
+
+/**
+ * Helpers for per-currency balance vectors: one long of cents per currency,
+ * indexed by Currency ordinal.
+ *
+ * A vector is converted to a single currency with a conversion vector, where
+ * rates[c] is the rate from currency c to the target (see
+ * RateTable.conversionVector). Conversion is a dot product rounded once to
+ * the nearest cent; components that are zero never need a rate.
+ */
+public final class CurrencyVectors {
+    /** Number of components in a balance vector. */
+    public static final int SIZE = Currency.values().length;
+
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private CurrencyVectors() {
+    }
+
+    /**
+     * Converts a vector to one currency.
+     *
+     * @throws InvalidCurrencyException if a non-zero component has no rate
+     */
+    public static long convert(long[] vector, double[] rates) {
+        return Math.round(convertExact(vector, rates));
+    }
+
+    /**
+     * Converts a vector to one currency without rounding to a whole cent.
+     */
+    public static double convertExact(long[] vector, double[] rates) {
+        double total = 0;
+        for (int c = 0; c < SIZE; c++) {
+            if (vector[c] != 0) {
+                total += vector[c] * rate(rates, c);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Converts the vector stored in a row of a LongVectorMap to one currency.
+     */
+    static long convert(LongVectorMap map, int row, double[] rates) {
+        return Math.round(convertExact(map, row, rates));
+    }
+
+    static double convertExact(LongVectorMap map, int row, double[] rates) {
+        double total = 0;
+        for (int c = 0; c < SIZE; c++) {
+            long value = map.valueAt(row, c);
+            if (value != 0) {
+                total += value * rate(rates, c);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Rounds converted amounts to cents so that they sum to their rounded total
+     * (largest remainder): every amount is rounded down, then the cents still
+     * missing go to the amounts with the largest fractions.
+     *
+     * Rounding each net balance on its own can leave a set of nets that summed
+     * to zero before conversion a cent or two off zero, which a settlement
+     * cannot balance; rounded this way they still sum to zero.
+     *
+     * @param exact   Unrounded amounts, e.g. from convertExact
+     * @param rounded Receives the rounded amounts, in order
+     */
+    public static void roundToSum(double[] exact, long[] rounded) {
+        int n = exact.length;
+        double sum = 0;
+        long floorSum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += exact[i];
+            rounded[i] = (long) Math.floor(exact[i]);
+            floorSum += rounded[i];
+        }
+        // Between 0 and n apart from float error in the sum
+        long missing = Math.max(0, Math.min(n, Math.round(sum) - floorSum));
+        if (missing == 0) {
+            return;
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(exact[b] - Math.floor(exact[b]), exact[a] - Math.floor(exact[a])));
+        for (int i = 0; i < missing; i++) {
+            rounded[order[i]]++;
+        }
+    }
+
+    private static double rate(double[] rates, int currency) {
+        double rate = rates[currency];
+        if (Double.isNaN(rate)) {
+            throw new InvalidCurrencyException("No exchange rate available from " + CURRENCIES[currency]);
+        }
+        return rate;
+    }
+}
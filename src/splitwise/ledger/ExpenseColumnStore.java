@@ -0,0 +1,337 @@
+package splitwise.ledger;
+
+import splitwise.model.Currency;
+import splitwise.model.Expense;
+import splitwise.model.ExpenseType;
+import splitwise.util.Ids;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Append-only columnar copy of the expenses, for aggregate scans.
+ *
+ * Each expense is one row across parallel primitive arrays: id, payer and
+ * group (dense ids), amount in cents, currency, type, creation time in epoch
+ * millis (UTC, as in the journal) and, derived from it, the month. An
+ * aggregation is then a loop over a few arrays instead of a walk over Expense
+ * objects, and large scans can be split across a ForkJoinPool.
+ *
+ * Removing an expense clears its row's live flag; the row itself stays.
+ * Thread-safe: writes lock the store, and a scan works on a View taken under
+ * the lock. Rows never move, so a view stays valid while appends continue; a
+ * removal made after the view was taken may or may not be seen by it.
+ */
+public class ExpenseColumnStore {
+    /** Group column value for expenses outside any group. */
+    public static final int NO_GROUP = -1;
+    /** Id column value for ids without a 64-bit form (e.g. legacy UUIDs). */
+    public static final long NO_ID = -1L;
+
+    // Scans shorter than this run on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final ExpenseType[] TYPES = ExpenseType.values();
+
+    private final IdInterner payers;
+    private final IdInterner groups;
+    private final Map<String, Integer> rowsById;
+    private long[] ids;
+    private int[] payerColumn;
+    private int[] groupColumn;
+    private long[] amounts;
+    private byte[] currencies;
+    private byte[] types;
+    private long[] createdAt;
+    private int[] months; // Months since 1970-01
+    private boolean[] live;
+    private int rows;
+    private int liveRows;
+
+    public ExpenseColumnStore() {
+        this.payers = new IdInterner();
+        this.groups = new IdInterner();
+        this.rowsById = new HashMap<>();
+        allocate(1024);
+    }
+
+    /**
+     * Appends an expense as a new row. An expense already in the store is
+     * replaced: its old row is removed first.
+     */
+    public synchronized void append(Expense expense) {
+        remove(expense.getId());
+        if (rows == ids.length) {
+            allocate(rows << 1);
+        }
+        int row = rows;
+        ids[row] = Ids.isCompact(expense.getId()) ? Ids.decode(expense.getId()) : NO_ID;
+        payerColumn[row] = payers.intern(expense.getPaidBy().getId());
+        groupColumn[row] = expense.getGroupId() == null ? NO_GROUP : groups.intern(expense.getGroupId());
+        amounts[row] = expense.getAmountCents();
+        currencies[row] = (byte) expense.getCurrency().ordinal();
+        types[row] = (byte) expense.getType().ordinal();
+        LocalDateTime created = expense.getCreatedAt();
+        createdAt[row] = created.toInstant(ZoneOffset.UTC).toEpochMilli();
+        months[row] = (created.getYear() - 1970) * 12 + created.getMonthValue() - 1;
+        live[row] = true;
+        rowsById.put(expense.getId(), row);
+        rows++;
+        liveRows++;
+    }
+
+    /**
+     * Marks an expense's row as removed.
+     *
+     * @return true if the expense was in the store
+     */
+    public synchronized boolean remove(String expenseId) {
+        Integer row = rowsById.remove(expenseId);
+        if (row == null) {
+            return false;
+        }
+        live[row] = false;
+        liveRows--;
+        return true;
+    }
+
+    /**
+     * Gets the number of expenses in the store (live rows).
+     */
+    public synchronized int size() {
+        return liveRows;
+    }
+
+    /**
+     * Gets a read-only view of every row appended so far.
+     */
+    public synchronized View view() {
+        return new View(this, rows);
+    }
+
+    public Map<String, Long> totalByPayer(Currency currency) {
+        return view().totalByPayer(currency, null);
+    }
+
+    public Map<String, Long> totalByGroup(Currency currency) {
+        return view().totalByGroup(currency, null);
+    }
+
+    public Map<YearMonth, Long> totalByMonth(Currency currency) {
+        return view().totalByMonth(currency, null);
+    }
+
+    private void allocate(int capacity) {
+        ids = ids == null ? new long[capacity] : Arrays.copyOf(ids, capacity);
+        payerColumn = payerColumn == null ? new int[capacity] : Arrays.copyOf(payerColumn, capacity);
+        groupColumn = groupColumn == null ? new int[capacity] : Arrays.copyOf(groupColumn, capacity);
+        amounts = amounts == null ? new long[capacity] : Arrays.copyOf(amounts, capacity);
+        currencies = currencies == null ? new byte[capacity] : Arrays.copyOf(currencies, capacity);
+        types = types == null ? new byte[capacity] : Arrays.copyOf(types, capacity);
+        createdAt = createdAt == null ? new long[capacity] : Arrays.copyOf(createdAt, capacity);
+        months = months == null ? new int[capacity] : Arrays.copyOf(months, capacity);
+        live = live == null ? new boolean[capacity] : Arrays.copyOf(live, capacity);
+    }
+
+    /**
+     * The columns as of one moment: rows [0, rows()) in append order.
+     * Accessors take a row number; rows that have been removed report
+     * isLive(row) == false and are skipped by the aggregations.
+     */
+    public static final class View {
+        private final IdInterner payers;
+        private final IdInterner groups;
+        private final long[] ids;
+        private final int[] payerColumn;
+        private final int[] groupColumn;
+        private final long[] amounts;
+        private final byte[] currencies;
+        private final byte[] types;
+        private final long[] createdAt;
+        private final int[] months;
+        private final boolean[] live;
+        private final int rows;
+
+        private View(ExpenseColumnStore store, int rows) {
+            this.payers = store.payers;
+            this.groups = store.groups;
+            this.ids = store.ids;
+            this.payerColumn = store.payerColumn;
+            this.groupColumn = store.groupColumn;
+            this.amounts = store.amounts;
+            this.currencies = store.currencies;
+            this.types = store.types;
+            this.createdAt = store.createdAt;
+            this.months = store.months;
+            this.live = store.live;
+            this.rows = rows;
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        public boolean isLive(int row) {
+            return live[row];
+        }
+
+        /**
+         * Gets the 64-bit expense id, or NO_ID if the id has no 64-bit form.
+         */
+        public long id(int row) {
+            return ids[row];
+        }
+
+        public String payerId(int row) {
+            return payers.externalId(payerColumn[row]);
+        }
+
+        /**
+         * Gets the group id, or null for an expense outside any group.
+         */
+        public String groupId(int row) {
+            return groupColumn[row] == NO_GROUP ? null : groups.externalId(groupColumn[row]);
+        }
+
+        public long amountCents(int row) {
+            return amounts[row];
+        }
+
+        public Currency currency(int row) {
+            return CURRENCIES[currencies[row]];
+        }
+
+        public ExpenseType type(int row) {
+            return TYPES[types[row]];
+        }
+
+        public long createdAtMillis(int row) {
+            return createdAt[row];
+        }
+
+        /**
+         * Sums the amounts in one currency per payer.
+         *
+         * @param pool The pool to split large scans across, or null to scan on the calling thread
+         */
+        public Map<String, Long> totalByPayer(Currency currency, ForkJoinPool pool) {
+            long[] totals = sum(payerColumn, 0, payers.size(), currency, pool);
+            Map<String, Long> byPayer = new LinkedHashMap<>();
+            for (int payer = 0; payer < totals.length; payer++) {
+                if (totals[payer] != 0) {
+                    byPayer.put(payers.externalId(payer), totals[payer]);
+                }
+            }
+            return byPayer;
+        }
+
+        /**
+         * Sums the amounts in one currency per group; expenses outside groups are left out.
+         */
+        public Map<String, Long> totalByGroup(Currency currency, ForkJoinPool pool) {
+            long[] totals = sum(groupColumn, 0, groups.size(), currency, pool);
+            Map<String, Long> byGroup = new LinkedHashMap<>();
+            for (int group = 0; group < totals.length; group++) {
+                if (totals[group] != 0) {
+                    byGroup.put(groups.externalId(group), totals[group]);
+                }
+            }
+            return byGroup;
+        }
+
+        /**
+         * Sums the amounts in one currency per calendar month (UTC), in month order.
+         */
+        public Map<YearMonth, Long> totalByMonth(Currency currency, ForkJoinPool pool) {
+            int first = Integer.MAX_VALUE;
+            int last = Integer.MIN_VALUE;
+            for (int row = 0; row < rows; row++) {
+                first = Math.min(first, months[row]);
+                last = Math.max(last, months[row]);
+            }
+            Map<YearMonth, Long> byMonth = new LinkedHashMap<>();
+            if (rows == 0) {
+                return byMonth;
+            }
+            // Shift the month column into bucket numbers 0..(last - first)
+            long[] totals = sum(months, first, last - first + 1, currency, pool);
+            for (int bucket = 0; bucket < totals.length; bucket++) {
+                if (totals[bucket] != 0) {
+                    int month = first + bucket;
+                    byMonth.put(YearMonth.of(1970 + Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1),
+                            totals[bucket]);
+                }
+            }
+            return byMonth;
+        }
+
+        /**
+         * Sums the live amounts in one currency into buckets keys[row] - offset;
+         * rows whose key is below offset (NO_GROUP, with offset 0) are skipped.
+         */
+        private long[] sum(int[] keys, int offset, int buckets, Currency currency, ForkJoinPool pool) {
+            byte code = (byte) currency.ordinal();
+            if (pool == null || rows < PARALLEL_THRESHOLD) {
+                return sumRange(keys, offset, buckets, code, 0, rows);
+            }
+            return pool.invoke(new SumTask(keys, offset, buckets, code, 0, rows));
+        }
+
+        private long[] sumRange(int[] keys, int offset, int buckets, byte currency, int from, int to) {
+            long[] totals = new long[buckets];
+            for (int row = from; row < to; row++) {
+                if (live[row] && currencies[row] == currency && keys[row] >= offset) {
+                    totals[keys[row] - offset] += amounts[row];
+                }
+            }
+            return totals;
+        }
+
+        /**
+         * Sums a range of rows, splitting it in half until it is small enough
+         * to scan, then adding the halves' bucket totals.
+         */
+        private final class SumTask extends RecursiveTask<long[]> {
+            private static final long serialVersionUID = 1L;
+
+            private final int[] keys;
+            private final int offset;
+            private final int buckets;
+            private final byte currency;
+            private final int from;
+            private final int to;
+
+            SumTask(int[] keys, int offset, int buckets, byte currency, int from, int to) {
+                this.keys = keys;
+                this.offset = offset;
+                this.buckets = buckets;
+                this.currency = currency;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected long[] compute() {
+                if (to - from <= PARALLEL_THRESHOLD) {
+                    return sumRange(keys, offset, buckets, currency, from, to);
+                }
+                int middle = (from + to) >>> 1;
+                SumTask left = new SumTask(keys, offset, buckets, currency, from, middle);
+                left.fork();
+                long[] totals = new SumTask(keys, offset, buckets, currency, middle, to).compute();
+                long[] leftTotals = left.join();
+                for (int i = 0; i < buckets; i++) {
+                    totals[i] += leftTotals[i];
+                }
+                return totals;
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package splitwise.ledger;
+
+import splitwise.model.Currency;
+import splitwise.util.LongVectorMap;
+
+/**
+ * Pairwise balances and per-member net balances arising within one group.
+ * Group expenses and group payments are applied here in addition to the
+ * global BalanceLedger, so a group's view never has to be rebuilt from its
+ * expenses.
+ *
+ * Storage: sized by the group's activity, not by the number of users in the
+ * system. Pairs use the same packed keys, sign convention and per-currency
+ * vectors as BalanceLedger, and each member's net balance is a vector kept next
+ * to them, so a delta costs O(1) and reading every member's net costs O(members).
+ * Every change bumps the group's version, so a cached result (such as a
+ * settlement plan) can tell in O(1) whether the group changed since it was built.
+ * Thread-safe: one lock per group, so different groups never contend.
+ * Checkpoints of the global ledger cover its group ledgers too: a change
+ * first preserves the group's pairs for an open checkpoint.
+ * All amounts are in cents.
+ */
+public class GroupLedger {
+    private final String groupId;
+    private final BalanceLedger global;
+    private final IdInterner interner;
+    // Packed pair -> per-currency balance from the smaller id's perspective, as in BalanceLedger
+    private final LongVectorMap pairs;
+    // Dense id + 1 (so the key is never 0) -> per-currency net balance
+    private final LongVectorMap netBalances;
+    private long version;
+
+    /**
+     * @param global The global ledger, whose interner is shared so dense ids
+     *               agree and whose checkpoints cover this group
+     */
+    public GroupLedger(String groupId, BalanceLedger global) {
+        this.groupId = groupId;
+        this.global = global;
+        this.interner = global.getInterner();
+        this.pairs = new LongVectorMap(CurrencyVectors.SIZE, 8);
+        this.netBalances = new LongVectorMap(CurrencyVectors.SIZE, 8);
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * Records that the debtor owes the creditor an additional amount within the group.
+     * A negative amount reduces the debt.
+     */
+    public synchronized void apply(int creditor, int debtor, Currency currency, long amountCents) {
+        if (creditor == debtor || amountCents == 0) {
+            return;
+        }
+        preserve();
+        int component = currency.ordinal();
+        pairs.addTo(BalanceLedger.pairKey(creditor, debtor), component, creditor < debtor ? amountCents : -amountCents);
+        netBalances.addTo(creditor + 1L, component, amountCents);
+        netBalances.addTo(debtor + 1L, component, -amountCents);
+        version++;
+    }
+
+    /**
+     * Applies a batch of changes under one lock acquisition.
+     */
+    public synchronized void apply(LedgerBatch batch) {
+        preserve();
+        version++;
+        batch.forEach((key, currency, delta) -> {
+            pairs.addTo(key, currency, delta);
+            // The smaller id gains the delta, the larger id loses it
+            netBalances.addTo((key >>> 32) + 1, currency, delta);
+            netBalances.addTo((int) key + 1L, currency, -delta);
+        });
+    }
+
+    /**
+     * Gets a member's net balance within the group converted to one currency
+     * (positive = net creditor). O(1).
+     *
+     * @param rates Conversion vector to the target currency
+     */
+    public synchronized long getNetBalance(int user, double[] rates) {
+        if (user < 0) {
+            return 0L;
+        }
+        int row = netBalances.row(user + 1L);
+        return row < 0 ? 0L : CurrencyVectors.convert(netBalances, row, rates);
+    }
+
+    /**
+     * Reads the converted net balances of several members in one consistent view.
+     * The nets are rounded together (CurrencyVectors.roundToSum), so the nets of
+     * all the group's members still sum to zero after conversion.
+     *
+     * @param members     Dense ids (UNKNOWN ids read as 0)
+     * @param rates       Conversion vector to the target currency
+     * @param netBalances Receives the net balance of each member, in order
+     * @return The version the balances were read at
+     */
+    public synchronized long readNetBalances(int[] members, double[] rates, long[] netBalances) {
+        double[] exact = new double[members.length];
+        for (int i = 0; i < members.length; i++) {
+            int row = members[i] < 0 ? -1 : this.netBalances.row(members[i] + 1L);
+            exact[i] = row < 0 ? 0 : CurrencyVectors.convertExact(this.netBalances, row, rates);
+        }
+        CurrencyVectors.roundToSum(exact, netBalances);
+        return version;
+    }
+
+    /**
+     * Gets the version of the group's balances, which changes whenever they do.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the balance of a user with another user within the group, converted
+     * to one currency. Positive = the other user owes this user.
+     */
+    public synchronized long getBalance(int user, int other, double[] rates) {
+        if (user == other || user < 0 || other < 0) {
+            return 0L;
+        }
+        int row = pairs.row(BalanceLedger.pairKey(user, other));
+        long balance = row < 0 ? 0L : CurrencyVectors.convert(pairs, row, rates);
+        return user < other ? balance : -balance;
+    }
+
+    /**
+     * Visits every non-zero pairwise balance in the group once per currency, unconverted.
+     */
+    public void forEachBalance(BalanceLedger.BalanceVisitor visitor) {
+        BalanceLedger.PairsCopy copy;
+        synchronized (this) {
+            copy = copyPairs();
+        }
+        // Call back outside the lock so visitors may query the ledger
+        copy.visit(interner, visitor);
+    }
+
+    /**
+     * Copies the pairs. Must hold this group's lock.
+     */
+    BalanceLedger.PairsCopy copyPairs() {
+        return new BalanceLedger.PairsCopy(pairs);
+    }
+
+    /**
+     * Copies the pairs for an open checkpoint before their first change. Must
+     * hold this group's lock.
+     */
+    private void preserve() {
+        BalanceLedger.Checkpoint open = global.openCheckpoint();
+        if (open != null) {
+            open.preserveGroup(this);
+        }
+    }
+}
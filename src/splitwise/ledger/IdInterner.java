@@ -0,0 +1,73 @@
+package splitwise.ledger;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps external ids (strings, e.g. user or group ids) to dense int ids 0, 1, 2, ...
+ * Dense ids let the ledger pack a user pair into one long and index
+ * per-user state by array position instead of hashing long strings.
+ * Thread-safe: lookups are lock-free, only first-time registration locks.
+ */
+public class IdInterner {
+    public static final int UNKNOWN = -1;
+
+    private final ConcurrentHashMap<String, Integer> denseIds;
+    private volatile String[] externalIds;
+    private int count;
+
+    public IdInterner() {
+        this.denseIds = new ConcurrentHashMap<>();
+        this.externalIds = new String[64];
+    }
+
+    /**
+     * Gets the dense id for an external id, assigning the next free one if needed.
+     */
+    public int intern(String externalId) {
+        Integer denseId = denseIds.get(externalId);
+        if (denseId != null) {
+            return denseId;
+        }
+        return register(externalId);
+    }
+
+    /**
+     * Gets the dense id for an external id, or UNKNOWN if it was never interned.
+     */
+    public int lookup(String externalId) {
+        Integer denseId = denseIds.get(externalId);
+        return denseId == null ? UNKNOWN : denseId;
+    }
+
+    /**
+     * Gets the external id for a dense id.
+     */
+    public String externalId(int denseId) {
+        return externalIds[denseId];
+    }
+
+    /**
+     * Gets the number of interned ids; valid dense ids are 0 to size() - 1.
+     */
+    public int size() {
+        return denseIds.size();
+    }
+
+    private synchronized int register(String externalId) {
+        Integer existing = denseIds.get(externalId);
+        if (existing != null) {
+            return existing;
+        }
+        int denseId = count++;
+        String[] ids = externalIds;
+        if (denseId == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length << 1);
+        }
+        ids[denseId] = externalId;
+        // Publish the array before the mapping so readers never see a missing id
+        externalIds = ids;
+        denseIds.put(externalId, denseId);
+        return denseId;
+    }
+}
@@ -0,0 +1,68 @@
+package splitwise.ledger;
+
+import splitwise.model.Currency;
+import splitwise.util.LongVectorMap;
+
+/**
+ * Accumulates balance changes for many user pairs, to be applied to a
+ * BalanceLedger in one pass. Changes to the same pair are summed first (per
+ * currency), so a batch touches each pair once however many expenses it covers.
+ * Not thread-safe: build a batch on one thread, then apply it.
+ * All amounts are in cents.
+ */
+public class LedgerBatch {
+    // Packed pair -> summed per-currency change from the smaller id's perspective, as in BalanceLedger
+    private final LongVectorMap deltas;
+
+    public LedgerBatch() {
+        this.deltas = new LongVectorMap(CurrencyVectors.SIZE);
+    }
+
+    /**
+     * Adds to the amount the debtor owes the creditor, by dense id.
+     */
+    public void add(int creditor, int debtor, Currency currency, long amountCents) {
+        if (creditor == debtor || amountCents == 0) {
+            return;
+        }
+        deltas.addTo(BalanceLedger.pairKey(creditor, debtor), currency.ordinal(),
+                creditor < debtor ? amountCents : -amountCents);
+    }
+
+    /**
+     * Gets the number of distinct user pairs in the batch.
+     */
+    public int size() {
+        return deltas.size();
+    }
+
+    public boolean isEmpty() {
+        return deltas.isEmpty();
+    }
+
+    /**
+     * Visits every non-zero (pair, currency) change; changes that cancelled out are skipped.
+     */
+    void forEach(DeltaVisitor visitor) {
+        for (int row = 0; row < deltas.size(); row++) {
+            for (int c = 0; c < CurrencyVectors.SIZE; c++) {
+                long delta = deltas.valueAt(row, c);
+                if (delta != 0) {
+                    visitor.visit(deltas.keyAt(row), c, delta);
+                }
+            }
+        }
+    }
+
+    /**
+     * Callback for iterating over a batch's changes.
+     */
+    interface DeltaVisitor {
+        /**
+         * @param pairKey  The packed pair
+         * @param currency The currency ordinal
+         * @param delta    The change from the smaller id's perspective
+         */
+        void visit(long pairKey, int currency, long delta);
+    }
+}
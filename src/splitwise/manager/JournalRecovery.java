@@ -0,0 +1,318 @@
+package splitwise.manager;
+
+import splitwise.exception.GroupNotFoundException;
+import splitwise.exception.UserNotFoundException;
+import splitwise.ledger.BalanceLedger;
+import splitwise.model.*;
+import splitwise.persistence.Journal;
+import splitwise.persistence.JournalEntry;
+import splitwise.persistence.JournalRecordType;
+import splitwise.persistence.Snapshot;
+import splitwise.service.ActivityService;
+import splitwise.service.BalanceService;
+import splitwise.service.ExpenseService;
+import splitwise.service.GroupService;
+import splitwise.service.TransactionService;
+import splitwise.service.UserService;
+import splitwise.util.Ids;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rebuilds service state from the latest snapshot, if any, and the journal.
+ *
+ * Journal replay runs in three phases:
+ * 1. Structural records (users, groups, membership) are applied in LSN order.
+ * 2. Financial records (expenses, deletions, transactions) are partitioned by
+ *    group and replayed in parallel. Each partition materializes its entities
+ *    and applies balance deltas to the concurrent ledger; deltas commute, so
+ *    partitions never need to coordinate.
+ * 3. Surviving expenses, transactions and the activity feed are registered in
+ *    LSN order, so every index ends up in its original order.
+ *
+ * Replay is idempotent by id: a snapshot may already hold users, groups,
+ * memberships and activities from records at or after its LSN (see
+ * SplitwiseManager.snapshot), so a record whose entity already exists is
+ * skipped, and membership changes are simply re-applied in order. Expenses,
+ * transactions and balances in a snapshot are exactly those at its LSN.
+ */
+class JournalRecovery {
+    private final UserService userService;
+    private final GroupService groupService;
+    private final ExpenseService expenseService;
+    private final BalanceService balanceService;
+    private final TransactionService transactionService;
+    private final ActivityService activityService;
+    private final BalanceLedger ledger;
+
+    JournalRecovery(UserService userService, GroupService groupService, ExpenseService expenseService,
+                    BalanceService balanceService, TransactionService transactionService,
+                    ActivityService activityService, BalanceLedger ledger) {
+        this.userService = userService;
+        this.groupService = groupService;
+        this.expenseService = expenseService;
+        this.balanceService = balanceService;
+        this.transactionService = transactionService;
+        this.activityService = activityService;
+        this.ledger = ledger;
+    }
+
+    /**
+     * Loads a snapshot into the (empty) services. Global and group balances are
+     * restored as-is, so no expense or transaction is re-applied to them; only a
+     * snapshot that predates group balances has them rebuilt from the group
+     * expenses and payments.
+     */
+    void restore(Snapshot snapshot) {
+        for (User user : snapshot.getUsers()) {
+            userService.restoreUser(user);
+        }
+        for (Group group : snapshot.getGroups()) {
+            groupService.restoreGroup(group);
+        }
+        for (Expense expense : snapshot.getExpenses()) {
+            expenseService.restoreExpense(expense);
+        }
+        for (Transaction transaction : snapshot.getTransactions()) {
+            transactionService.restoreTransaction(transaction);
+        }
+        for (Balance balance : snapshot.getBalances()) {
+            ledger.apply(balance.getToUser().getId(), balance.getFromUser().getId(), balance.getCurrency(),
+                    balance.getAmountCents());
+        }
+        Map<String, List<Balance>> groupBalances = snapshot.getGroupBalances();
+        if (groupBalances != null) {
+            for (Map.Entry<String, List<Balance>> entry : groupBalances.entrySet()) {
+                balanceService.restoreGroupBalances(entry.getKey(), entry.getValue());
+            }
+        } else {
+            balanceService.restoreGroupBalances(snapshot.getExpenses(), snapshot.getTransactions());
+        }
+        for (Activity activity : snapshot.getActivities()) {
+            activityService.onActivityRecorded(activity);
+        }
+    }
+
+    /**
+     * Replays every journal record with an LSN of at least fromLsn.
+     *
+     * @return The number of records replayed
+     */
+    int recover(Journal journal, long fromLsn) {
+        List<JournalEntry> structural = new ArrayList<>();
+        Map<String, List<JournalEntry>> partitions = new LinkedHashMap<>();
+        List<JournalEntry> financial = new ArrayList<>();
+
+        journal.replay(fromLsn, entry -> {
+            String partitionKey = entry.getPartitionKey();
+            if (partitionKey == null) {
+                structural.add(entry);
+            } else {
+                partitions.computeIfAbsent(partitionKey, key -> new ArrayList<>()).add(entry);
+                financial.add(entry);
+            }
+        });
+
+        // Phase 1: users, groups and membership, in order
+        for (JournalEntry entry : structural) {
+            applyStructural(entry);
+        }
+
+        // Phase 2: financial partitions in parallel. Service maps are only read here;
+        // the only shared writes go to the thread-safe ledger and these concurrent maps.
+        Map<String, Expense> expenses = new ConcurrentHashMap<>();
+        Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+        Set<String> deletedExpenseIds = ConcurrentHashMap.newKeySet();
+        partitions.values().parallelStream().forEach(partition -> {
+            for (JournalEntry entry : partition) {
+                applyFinancial(entry, expenses, transactions, deletedExpenseIds);
+            }
+        });
+
+        // Phase 3: register entities and rebuild the activity feed in LSN order
+        int next = 0;
+        for (JournalEntry entry : structural) {
+            while (next < financial.size() && financial.get(next).getLsn() < entry.getLsn()) {
+                registerFinancial(financial.get(next++), expenses, transactions, deletedExpenseIds);
+            }
+            recordStructuralActivity(entry);
+        }
+        while (next < financial.size()) {
+            registerFinancial(financial.get(next++), expenses, transactions, deletedExpenseIds);
+        }
+
+        return structural.size() + financial.size();
+    }
+
+    private void applyStructural(JournalEntry entry) {
+        switch (entry.getType()) {
+            case USER_CREATED: {
+                JournalEntry.UserCreated record = (JournalEntry.UserCreated) entry;
+                if (userService.userExists(record.getUserId())) {
+                    break;
+                }
+                userService.restoreUser(new User(record.getUserId(), record.getName(), record.getEmail(),
+                        record.getPhone()));
+                break;
+            }
+            case GROUP_CREATED: {
+                JournalEntry.GroupCreated record = (JournalEntry.GroupCreated) entry;
+                if (groupService.groupExists(record.getGroupId())) {
+                    break;
+                }
+                groupService.restoreGroup(new Group(record.getGroupId(), record.getName(),
+                        record.getDescription(), user(record.getCreatorId()), record.getTimestamp()));
+                break;
+            }
+            case MEMBER_ADDED: {
+                JournalEntry.MembershipChanged record = (JournalEntry.MembershipChanged) entry;
+                group(record.getGroupId()).addMember(user(record.getUserId()));
+                break;
+            }
+            case MEMBER_REMOVED: {
+                JournalEntry.MembershipChanged record = (JournalEntry.MembershipChanged) entry;
+                group(record.getGroupId()).removeMember(user(record.getUserId()));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Not a structural record: " + entry.getType());
+        }
+    }
+
+    private void applyFinancial(JournalEntry entry, Map<String, Expense> expenses,
+                                Map<String, Transaction> transactions, Set<String> deletedExpenseIds) {
+        switch (entry.getType()) {
+            case EXPENSE_ADDED: {
+                JournalEntry.ExpenseAdded record = (JournalEntry.ExpenseAdded) entry;
+                Optional<Expense> restored = expenseService.getExpenseById(record.getExpenseId());
+                if (restored.isPresent()) {
+                    // Already restored, balances included
+                    expenses.put(record.getExpenseId(), restored.get());
+                    break;
+                }
+                Expense expense = record.toExpense(this::user);
+                expenses.put(expense.getId(), expense);
+                balanceService.updateBalancesForExpense(expense);
+                break;
+            }
+            case EXPENSE_DELETED: {
+                JournalEntry.ExpenseDeleted record = (JournalEntry.ExpenseDeleted) entry;
+                Expense expense = expenses.get(record.getExpenseId());
+                if (expense == null) {
+                    // Added before the snapshot this replay started from
+                    expense = expenseService.getExpenseById(record.getExpenseId()).orElse(null);
+                    if (expense != null) {
+                        expenses.put(expense.getId(), expense);
+                    }
+                }
+                if (expense != null && deletedExpenseIds.add(expense.getId())) {
+                    balanceService.reverseBalancesForExpense(expense);
+                }
+                break;
+            }
+            case TRANSACTION_RECORDED: {
+                JournalEntry.TransactionRecorded record = (JournalEntry.TransactionRecorded) entry;
+                Optional<Transaction> restored = transactionService.getTransactionById(record.getTransactionId());
+                if (restored.isPresent()) {
+                    transactions.put(record.getTransactionId(), restored.get());
+                    break;
+                }
+                Transaction transaction = record.toTransaction(this::user);
+                transactions.put(transaction.getId(), transaction);
+                balanceService.settleBalance(transaction.getFromUser(), transaction.getToUser(),
+                        transaction.getAmountCents(), transaction.getCurrency(), transaction.getGroupId());
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Not a financial record: " + entry.getType());
+        }
+    }
+
+    private void registerFinancial(JournalEntry entry, Map<String, Expense> expenses,
+                                   Map<String, Transaction> transactions, Set<String> deletedExpenseIds) {
+        switch (entry.getType()) {
+            case EXPENSE_ADDED: {
+                JournalEntry.ExpenseAdded record = (JournalEntry.ExpenseAdded) entry;
+                Expense expense = expenses.get(record.getExpenseId());
+                if (!deletedExpenseIds.contains(expense.getId())
+                        && !expenseService.getExpenseById(expense.getId()).isPresent()) {
+                    expenseService.restoreExpense(expense);
+                }
+                activityService.onActivityRecorded(Activity.expenseAdded(activityId(entry), expense, entry.getTimestamp()));
+                break;
+            }
+            case EXPENSE_DELETED: {
+                JournalEntry.ExpenseDeleted record = (JournalEntry.ExpenseDeleted) entry;
+                Expense expense = expenses.get(record.getExpenseId());
+                if (expense != null) {
+                    expenseService.evictExpense(expense.getId());
+                    activityService.onActivityRecorded(
+                            Activity.expenseDeleted(activityId(entry), user(record.getActorId()), expense, entry.getTimestamp()));
+                }
+                break;
+            }
+            case TRANSACTION_RECORDED: {
+                JournalEntry.TransactionRecorded record = (JournalEntry.TransactionRecorded) entry;
+                Transaction transaction = transactions.get(record.getTransactionId());
+                if (!transactionService.getTransactionById(transaction.getId()).isPresent()) {
+                    transactionService.restoreTransaction(transaction);
+                }
+                activityService.onActivityRecorded(Activity.transactionRecorded(activityId(entry), transaction, entry.getTimestamp()));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Not a financial record: " + entry.getType());
+        }
+    }
+
+    private void recordStructuralActivity(JournalEntry entry) {
+        switch (entry.getType()) {
+            case GROUP_CREATED: {
+                JournalEntry.GroupCreated record = (JournalEntry.GroupCreated) entry;
+                activityService.onActivityRecorded(Activity.groupCreated(activityId(entry), user(record.getCreatorId()),
+                        record.getGroupId(), record.getName(), entry.getTimestamp()));
+                break;
+            }
+            case MEMBER_ADDED:
+            case MEMBER_REMOVED: {
+                JournalEntry.MembershipChanged record = (JournalEntry.MembershipChanged) entry;
+                boolean added = entry.getType() == JournalRecordType.MEMBER_ADDED;
+                activityService.onActivityRecorded(Activity.membershipChanged(activityId(entry), user(record.getActorId()),
+                        user(record.getUserId()), record.getGroupId(), added, entry.getTimestamp()));
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Derives the id of the activity a journal record produced from the
+     * record's LSN, so replaying the record recreates the same id. LSNs count
+     * up from 0, far below any snowflake id (those carry the milliseconds
+     * since 2024 in their top bits), so the two kinds of id never collide.
+     */
+    static String activityId(long lsn) {
+        return Ids.encode(lsn);
+    }
+
+    private static String activityId(JournalEntry entry) {
+        return activityId(entry.getLsn());
+    }
+
+    private User user(String userId) {
+        return userService.getUserById(userId)
+                .orElseThrow(() -> new UserNotFoundException(userId));
+    }
+
+    private Group group(String groupId) {
+        return groupService.getGroupById(groupId)
+                .orElseThrow(() -> new GroupNotFoundException(groupId));
+    }
+}
@@ -1,22 +1,56 @@
 package splitwise.manager;
 
+import splitwise.exception.GroupNotFoundException;
 import splitwise.exception.InvalidSplitException;
+import splitwise.factory.ExpenseFactory;
 import splitwise.model.*;
 import splitwise.model.split.Split;
+import splitwise.observer.ExpenseEventBus;
 import splitwise.observer.ExpenseObserver;
 import splitwise.observer.NotificationService;
+import splitwise.observer.OverflowPolicy;
+import splitwise.ledger.BalanceLedger;
+import splitwise.ledger.ExpenseColumnStore;
+import splitwise.persistence.Journal;
+import splitwise.persistence.Snapshot;
+import splitwise.persistence.SnapshotStore;
 import splitwise.service.*;
 import splitwise.util.BalanceSimplifier;
-
+import splitwise.util.Ids;
+import splitwise.util.ParallelSimplifier;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Singleton manager class that orchestrates all Splitwise operations.
  * Acts as a facade and DI container for all services.
  * Singleton Pattern: Single point of access for the application.
  * Dependency Inversion: Manages service instances and their dependencies.
+ *
+ * When opened with a journal directory, every mutation is validated, appended
+ * to a write-ahead Journal and only then applied, so a mutation whose record
+ * cannot be written (JournalException) changes nothing and notifies no one.
+ * Startup loads the latest snapshot and replays only the journal records
+ * written after it. Journaled mutations are serialized on a state lock, so
+ * journal order always matches the order changes were applied; splits are
+ * computed and validated before it is taken. Without a journal, mutations
+ * rely on the services' own locking and never take the state lock.
+ *
+ * Expense observers are notified asynchronously through an ExpenseEventBus.
+ * A mutation's events are handed to the bus only after the state lock is
+ * released, so neither observer work nor a full observer queue holds it.
  */
 public class SplitwiseManager {
     private static volatile SplitwiseManager instance;
@@ -29,22 +63,43 @@ public class SplitwiseManager {
     private final TransactionService transactionService;
     private final ActivityService activityService;
     private final NotificationService notificationService;
+    private final ExpenseEventBus expenseEventBus;
+    private final BalanceLedger ledger;
+    private final ExpenseColumnStore expenseColumns;
+    private final Journal journal; // null when running in memory only
+    private final SnapshotStore snapshotStore; // null when running in memory only
+    private final ReentrantLock stateLock;
+    private final Object snapshotLock; // Serializes snapshots
+    private SnapshotCapture capture; // The snapshot being copied, if any; guarded by stateLock
 
     private SplitwiseManager() {
+        this(null, null);
+    }
+
+    private SplitwiseManager(Journal journal, SnapshotStore snapshotStore) {
+        this.journal = journal;
+        this.snapshotStore = snapshotStore;
+        this.stateLock = new ReentrantLock();
+        this.snapshotLock = new Object();
+
         // Initialize services with proper dependency injection
-        this.balanceService = new BalanceServiceImpl();
+        this.ledger = new BalanceLedger();
         this.userService = new UserServiceImpl();
-        this.groupService = new GroupServiceImpl();
         this.currencyService = new CurrencyServiceImpl();
+        this.balanceService = new BalanceServiceImpl(ledger, userService, currencyService);
+        this.groupService = new GroupServiceImpl();
         this.transactionService = new TransactionServiceImpl(balanceService);
         this.activityService = new ActivityServiceImpl();
         this.notificationService = new NotificationService();
 
         // ExpenseService depends on BalanceService
-        this.expenseService = new ExpenseServiceImpl(balanceService);
+        this.expenseColumns = new ExpenseColumnStore();
+        this.expenseService = new ExpenseServiceImpl(balanceService, expenseColumns);
 
-        // Register notification service as observer
-        expenseService.addObserver(notificationService);
+        // Expense observers subscribe to the event bus rather than the service
+        this.expenseEventBus = new ExpenseEventBus();
+        expenseService.addObserver(expenseEventBus);
+        expenseEventBus.subscribe(notificationService);
     }
 
     /**
@@ -62,23 +117,152 @@ public class SplitwiseManager {
         return instance;
     }
 
+    /**
+     * Creates the singleton instance backed by a journal and snapshots in the
+     * given directory, recovering all state recorded there.
+     *
+     * @throws IllegalStateException if the instance already exists
+     */
+    public static SplitwiseManager open(Path journalDirectory) {
+        synchronized (SplitwiseManager.class) {
+            if (instance != null) {
+                throw new IllegalStateException("SplitwiseManager is already initialized");
+            }
+            SplitwiseManager manager = new SplitwiseManager(new Journal(journalDirectory),
+                    new SnapshotStore(journalDirectory));
+            manager.recover();
+            instance = manager;
+            return manager;
+        }
+    }
+
     /**
      * Resets the singleton instance (useful for testing).
      */
     public static void resetInstance() {
         synchronized (SplitwiseManager.class) {
+            if (instance != null) {
+                instance.close();
+            }
             instance = null;
         }
     }
 
+    /**
+     * Delivers pending expense events, then flushes and closes the journal, if any.
+     */
+    public void close() {
+        expenseEventBus.close();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Writes a snapshot of all state and drops the journal segments it covers.
+     * This is a fuzzy checkpoint: writes are blocked only while the journal
+     * rolls to a new segment at the snapshot's LSN and the ledger is frozen
+     * copy-on-write. The state is then copied while writes continue; expenses
+     * and transactions changed since the LSN are set back to how they were at
+     * it, and the users, groups and activities that already reflect later
+     * records are left for replay to skip by id. Serialization, fsync and
+     * journal truncation also run without blocking writes.
+     *
+     * @return The journal LSN the snapshot covers up to (exclusive)
+     * @throws IllegalStateException if the manager is not backed by a journal
+     */
+    public long snapshot() {
+        if (journal == null) {
+            throw new IllegalStateException("Snapshots require a journal; use SplitwiseManager.open");
+        }
+        synchronized (snapshotLock) {
+            SnapshotCapture started;
+            stateLock.lock();
+            try {
+                started = new SnapshotCapture(journal.checkpoint(), ledger.checkpoint());
+                capture = started;
+            } finally {
+                stateLock.unlock();
+            }
+            Snapshot snapshot = captureSnapshot(started);
+            snapshotStore.save(snapshot);
+            journal.truncateBefore(snapshot.getLsn());
+            return snapshot.getLsn();
+        }
+    }
+
+    /**
+     * Copies the state as of the capture's LSN, without the state lock except
+     * to end the capture. Groups are copied first and users last, so every user
+     * the copies refer to is included. Takes time linear in the number of
+     * entities and balances.
+     */
+    private Snapshot captureSnapshot(SnapshotCapture started) {
+        List<Balance> balances = new ArrayList<>();
+        Map<String, List<Balance>> groupBalances;
+        List<Group> groups = new ArrayList<>();
+        List<Expense> expenses;
+        List<Transaction> transactions;
+        List<Activity> activities;
+        try {
+            started.balances.forEachBalance((creditorId, debtorId, currency, amountCents) ->
+                    balances.add(new Balance(userService.getUserById(debtorId).get(),
+                            userService.getUserById(creditorId).get(), amountCents, currency)));
+            groupBalances = balanceService.getGroupBalancesAt(started.balances);
+            for (Group group : groupService.getAllGroups()) {
+                groups.add(group.copy());
+            }
+            expenses = expenseService.getAllExpenses();
+            transactions = transactionService.getAllTransactions();
+            activities = activityService.getAllActivities();
+        } finally {
+            stateLock.lock();
+            try {
+                capture = null;
+            } finally {
+                stateLock.unlock();
+            }
+            started.balances.close();
+        }
+        List<User> users = userService.getAllUsers();
+        return new Snapshot(started.lsn, users, groups, started.expensesAtLsn(expenses),
+                started.transactionsAtLsn(transactions), balances, groupBalances, activities);
+    }
+
+    private void recover() {
+        JournalRecovery recovery = new JournalRecovery(userService, groupService, expenseService,
+                balanceService, transactionService, activityService, ledger);
+        long fromLsn = 0;
+        Optional<Snapshot> snapshot = snapshotStore.loadLatest();
+        if (snapshot.isPresent()) {
+            recovery.restore(snapshot.get());
+            fromLsn = snapshot.get().getLsn();
+        }
+        recovery.recover(journal, fromLsn);
+    }
+
     // ==================== User Operations ====================
 
     public User createUser(String name, String email) {
-        return userService.createUser(name, email);
+        return createUser(name, email, null);
     }
 
     public User createUser(String name, String email, String phone) {
-        return userService.createUser(name, email, phone);
+        if (journal == null) {
+            return userService.createUser(name, email, phone);
+        }
+        beginWrite();
+        try {
+            if (userService.getUserByEmail(email).isPresent()) {
+                throw new IllegalArgumentException("User with email already exists: " + email);
+            }
+            User user = new User(name, email, phone);
+            journal.recordUserCreated(user);
+            userService.restoreUser(user);
+            return user;
+        } finally {
+            endWrite();
+        }
     }
 
     public Optional<User> getUserById(String userId) {
@@ -96,17 +280,33 @@ public class SplitwiseManager {
     // ==================== Group Operations ====================
 
     public Group createGroup(String name, User creator) {
-        Group group = groupService.createGroup(name, creator);
-        activityService.recordActivity(ActivityType.GROUP_CREATED, creator,
-                "Created group '" + name + "'", group.getId());
-        return group;
+        Group group = new Group(name, creator);
+        beginWrite();
+        try {
+            String activityId = journal != null ? JournalRecovery.activityId(journal.recordGroupCreated(group))
+                                                : Ids.next();
+            groupService.restoreGroup(group);
+            activityService.recordActivity(
+                    Activity.groupCreated(activityId, creator, group.getId(), name, LocalDateTime.now()));
+            return group;
+        } finally {
+            endWrite();
+        }
     }
 
     public Group createGroup(String name, String description, User creator) {
-        Group group = groupService.createGroup(name, description, creator);
-        activityService.recordActivity(ActivityType.GROUP_CREATED, creator,
-                "Created group '" + name + "'", group.getId());
-        return group;
+        Group group = new Group(name, description, creator);
+        beginWrite();
+        try {
+            String activityId = journal != null ? JournalRecovery.activityId(journal.recordGroupCreated(group))
+                                                : Ids.next();
+            groupService.restoreGroup(group);
+            activityService.recordActivity(
+                    Activity.groupCreated(activityId, creator, group.getId(), name, LocalDateTime.now()));
+            return group;
+        } finally {
+            endWrite();
+        }
     }
 
     public Optional<Group> getGroupById(String groupId) {
@@ -114,21 +314,43 @@ public class SplitwiseManager {
     }
 
     public boolean addMemberToGroup(String groupId, User member, User addedBy) {
-        boolean result = groupService.addMember(groupId, member);
-        if (result) {
-            activityService.recordActivity(ActivityType.MEMBER_ADDED, addedBy,
-                    "Added " + member.getName() + " to the group", groupId);
+        beginWrite();
+        try {
+            if (group(groupId).isMember(member)) {
+                return false;
+            }
+            String activityId = journal != null
+                    ? JournalRecovery.activityId(journal.recordMemberAdded(groupId, member, addedBy))
+                    : Ids.next();
+            if (!groupService.addMember(groupId, member)) {
+                return false; // Lost a race with a concurrent add, possible only without a journal
+            }
+            activityService.recordActivity(
+                    Activity.membershipChanged(activityId, addedBy, member, groupId, true, LocalDateTime.now()));
+            return true;
+        } finally {
+            endWrite();
         }
-        return result;
     }
 
     public boolean removeMemberFromGroup(String groupId, User member, User removedBy) {
-        boolean result = groupService.removeMember(groupId, member);
-        if (result) {
-            activityService.recordActivity(ActivityType.MEMBER_REMOVED, removedBy,
-                    "Removed " + member.getName() + " from the group", groupId);
+        beginWrite();
+        try {
+            if (!group(groupId).canRemoveMember(member)) {
+                return false;
+            }
+            String activityId = journal != null
+                    ? JournalRecovery.activityId(journal.recordMemberRemoved(groupId, member, removedBy))
+                    : Ids.next();
+            if (!groupService.removeMember(groupId, member)) {
+                return false; // Lost a race with a concurrent removal, possible only without a journal
+            }
+            activityService.recordActivity(
+                    Activity.membershipChanged(activityId, removedBy, member, groupId, false, LocalDateTime.now()));
+            return true;
+        } finally {
+            endWrite();
         }
-        return result;
     }
 
     public Set<User> getGroupMembers(String groupId) {
@@ -143,48 +365,106 @@ public class SplitwiseManager {
 
     public Expense addExpense(String description, double amount, User paidBy,
                                ExpenseType type, List<User> participants) throws InvalidSplitException {
-        Expense expense = expenseService.createExpense(description, amount, paidBy, type, participants);
-        activityService.recordActivity(ActivityType.EXPENSE_ADDED, paidBy,
-                description + " - " + Currency.USD.format(amount));
-        return expense;
+        Expense expense = ExpenseFactory.createExpense(description, amount, paidBy, type, participants);
+        beginWrite();
+        try {
+            addExpense(expense);
+            return expense;
+        } finally {
+            endWrite();
+        }
     }
 
     public Expense addExpense(String description, double amount, Currency currency,
                                User paidBy, ExpenseType type, List<User> participants)
             throws InvalidSplitException {
-        Expense expense = expenseService.createExpense(description, amount, currency, paidBy, type, participants);
-        activityService.recordActivity(ActivityType.EXPENSE_ADDED, paidBy,
-                description + " - " + currency.format(amount));
-        return expense;
+        Expense expense = ExpenseFactory.createExpense(description, amount, currency, paidBy, type, participants);
+        beginWrite();
+        try {
+            addExpense(expense);
+            return expense;
+        } finally {
+            endWrite();
+        }
     }
 
     public Expense addExpenseWithSplits(String description, double amount, Currency currency,
                                          User paidBy, ExpenseType type, List<Split> splits)
             throws InvalidSplitException {
-        Expense expense = expenseService.createExpenseWithSplits(description, amount, currency, paidBy, type, splits);
-        activityService.recordActivity(ActivityType.EXPENSE_ADDED, paidBy,
-                description + " - " + currency.format(amount));
-        return expense;
+        Expense expense = ExpenseFactory.createExpenseWithSplits(description, amount, currency, paidBy, type, splits);
+        beginWrite();
+        try {
+            addExpense(expense);
+            return expense;
+        } finally {
+            endWrite();
+        }
     }
 
     public Expense addGroupExpense(String description, double amount, Currency currency,
                                     User paidBy, ExpenseType type, List<User> participants,
                                     String groupId) throws InvalidSplitException {
-        Expense expense = expenseService.createGroupExpense(description, amount, currency,
+        Expense expense = ExpenseFactory.createGroupExpense(description, amount, currency,
                                                             paidBy, type, participants, groupId);
-        activityService.recordActivity(ActivityType.EXPENSE_ADDED, paidBy,
-                description + " - " + currency.format(amount), groupId);
-        return expense;
+        beginWrite();
+        try {
+            addExpense(expense);
+            return expense;
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Adds a batch of expenses. Either all are added or, if any request is invalid, none are.
+     */
+    public List<Expense> addExpenses(List<ExpenseRequest> requests) throws InvalidSplitException {
+        List<Expense> expenses = expenseService.prepareExpenses(requests);
+        beginWrite();
+        try {
+            // The batch's records are journaled with consecutive LSNs
+            long firstLsn = journal != null ? journal.recordExpensesAdded(expenses) : 0L;
+            expenseService.addExpenses(expenses);
+            if (capture != null) {
+                for (Expense expense : expenses) {
+                    capture.expenseAdded(expense);
+                }
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<Activity> activities = new ArrayList<>(expenses.size());
+            for (int i = 0; i < expenses.size(); i++) {
+                String activityId = journal != null ? JournalRecovery.activityId(firstLsn + i) : Ids.next();
+                activities.add(Activity.expenseAdded(activityId, expenses.get(i), now));
+            }
+            activityService.recordActivities(activities);
+            return expenses;
+        } finally {
+            endWrite();
+        }
     }
 
     public boolean deleteExpense(String expenseId, User deletedBy) {
-        Optional<Expense> expense = expenseService.getExpenseById(expenseId);
-        boolean result = expenseService.deleteExpense(expenseId);
-        if (result && expense.isPresent()) {
-            activityService.recordActivity(ActivityType.EXPENSE_DELETED, deletedBy,
-                    "Deleted expense: " + expense.get().getDescription());
+        beginWrite();
+        try {
+            Optional<Expense> expense = expenseService.getExpenseById(expenseId);
+            if (!expense.isPresent()) {
+                return false;
+            }
+            String activityId = journal != null
+                    ? JournalRecovery.activityId(journal.recordExpenseDeleted(expense.get(), deletedBy))
+                    : Ids.next();
+            if (!expenseService.deleteExpense(expenseId)) {
+                return false; // Lost a race with a concurrent delete, possible only without a journal
+            }
+            if (capture != null) {
+                capture.expenseDeleted(expense.get());
+            }
+            activityService.recordActivity(
+                    Activity.expenseDeleted(activityId, deletedBy, expense.get(), LocalDateTime.now()));
+            return true;
+        } finally {
+            endWrite();
         }
-        return result;
     }
 
     public List<Expense> getExpensesForUser(User user) {
@@ -195,6 +475,36 @@ public class SplitwiseManager {
         return expenseService.getExpensesForGroup(groupId);
     }
 
+    // ==================== Expense Analytics ====================
+    // Scans of the column store; amounts are in cents, one currency at a time
+
+    /**
+     * Gets the total amount paid by each payer, in one currency.
+     */
+    public Map<User, Long> getSpendByPayer(Currency currency) {
+        Map<User, Long> spend = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : expenseColumns.totalByPayer(currency).entrySet()) {
+            userService.getUserById(entry.getKey()).ifPresent(user -> spend.put(user, entry.getValue()));
+        }
+        return spend;
+    }
+
+    /**
+     * Gets the total spend of each group, in one currency.
+     *
+     * @return Group id -> total in cents
+     */
+    public Map<String, Long> getSpendByGroup(Currency currency) {
+        return expenseColumns.totalByGroup(currency);
+    }
+
+    /**
+     * Gets the total spend per calendar month (UTC), in one currency.
+     */
+    public Map<YearMonth, Long> getSpendByMonth(Currency currency) {
+        return expenseColumns.totalByMonth(currency);
+    }
+
     // ==================== Balance Operations ====================
 
     public String getBalanceSummary(User user) {
@@ -202,42 +512,158 @@ public class SplitwiseManager {
     }
 
     public double getBalanceBetween(User user1, User user2) {
-        return balanceService.getBalanceBetween(user1, user2);
+        return Money.toAmount(balanceService.getBalanceBetween(user1, user2));
     }
 
     public List<Balance> getSimplifiedBalances(List<User> users) {
         return balanceService.getSimplifiedBalances(users);
     }
 
+    /**
+     * Gets the minimum transactions, in the given currency, that settle the users'
+     * debts, spending at most timeBudget on the exact search before settling the
+     * rest greedily.
+     */
+    public List<Balance> getSimplifiedBalances(List<User> users, Currency currency, Duration timeBudget) {
+        return balanceService.getSimplifiedBalances(users, currency, timeBudget);
+    }
+
+    /**
+     * Gets the non-zero balances arising from a group's expenses and payments,
+     * one per user pair and currency.
+     */
+    public List<Balance> getGroupBalances(String groupId) {
+        return balanceService.getBalancesForGroup(groupId);
+    }
+
+    /**
+     * Gets each member's net balance within a group, in the group's default currency.
+     */
+    public Map<User, Long> getGroupNetBalances(String groupId) {
+        return balanceService.getGroupNetBalances(groupId, groupService.getMembers(groupId),
+                groupCurrency(groupId));
+    }
+
+    /**
+     * Gets the minimum transactions, in the group's default currency, that settle
+     * the debts within a group.
+     */
+    public List<Balance> getSimplifiedGroupBalances(String groupId) {
+        return balanceService.getSimplifiedGroupBalances(groupId, groupService.getMembers(groupId),
+                groupCurrency(groupId));
+    }
+
+    /**
+     * Gets the minimum transactions that settle the debts within a group, spending
+     * at most timeBudget on the exact search.
+     */
+    public List<Balance> getSimplifiedGroupBalances(String groupId, Duration timeBudget) {
+        return balanceService.getSimplifiedGroupBalances(groupId, groupService.getMembers(groupId),
+                groupCurrency(groupId), timeBudget);
+    }
+
+    private Currency groupCurrency(String groupId) {
+        return groupService.getGroupById(groupId).map(Group::getDefaultCurrency).orElse(Currency.USD);
+    }
+
+    /**
+     * Simplifies the debts within every group in parallel, passing each group's
+     * transactions to the listener as soon as they are ready. The listener is
+     * called from pool threads, so it must be thread-safe.
+     */
+    public void simplifyAllGroups(Duration timeBudget, ParallelSimplifier.ResultListener<String> listener) {
+        balanceService.simplifyGroups(groupService.getAllGroups(), timeBudget, listener);
+    }
+
+    /**
+     * Simplifies the debts within every group in parallel.
+     *
+     * @return Group id -> transactions that settle the group
+     */
+    public Map<String, List<Balance>> simplifyAllGroups(Duration timeBudget) {
+        Map<String, List<Balance>> results = new ConcurrentHashMap<>();
+        simplifyAllGroups(timeBudget, results::put);
+        return results;
+    }
+
+    /**
+     * Simplifies all outstanding debts in the given currency, one connected
+     * component of the debt graph at a time, in parallel.
+     */
+    public void simplifyAllComponents(Currency currency, Duration timeBudget,
+                                      ParallelSimplifier.ResultListener<List<User>> listener) {
+        balanceService.simplifyComponents(currency, timeBudget, listener);
+    }
+
     public void printSimplifiedBalances(List<User> users) {
-        BalanceSimplifier.printSimplification(users);
+        BalanceSimplifier.printSimplification(balanceService.getSimplifiedBalances(users));
     }
 
     // ==================== Transaction Operations ====================
 
     public Transaction recordPayment(User fromUser, User toUser, double amount) {
-        Transaction transaction = transactionService.recordPayment(fromUser, toUser, amount);
-        activityService.recordActivity(ActivityType.PAYMENT_MADE, fromUser,
-                "Paid " + toUser.getName() + " " + Currency.USD.format(amount));
-        return transaction;
+        return recordPayment(fromUser, toUser, amount, Currency.USD);
     }
 
     public Transaction recordPayment(User fromUser, User toUser, double amount, Currency currency) {
-        Transaction transaction = transactionService.recordPayment(fromUser, toUser, amount, currency);
-        activityService.recordActivity(ActivityType.PAYMENT_MADE, fromUser,
-                "Paid " + toUser.getName() + " " + currency.format(amount));
-        return transaction;
+        Transaction transaction = new Transaction(fromUser, toUser, Money.toCents(amount), currency,
+                TransactionType.PAYMENT);
+        beginWrite();
+        try {
+            recordTransaction(transaction);
+            return transaction;
+        } finally {
+            endWrite();
+        }
     }
 
-    public Transaction settleUp(User fromUser, User toUser) {
-        double balance = balanceService.getBalanceBetween(toUser, fromUser);
-        if (balance > 0) {
-            Transaction transaction = transactionService.recordSettlement(fromUser, toUser, balance);
-            activityService.recordActivity(ActivityType.SETTLED, fromUser,
-                    "Settled up with " + toUser.getName() + " - " + Currency.USD.format(balance));
+    public Transaction recordGroupPayment(User fromUser, User toUser, double amount, String groupId) {
+        return recordGroupPayment(fromUser, toUser, amount, Currency.USD, groupId);
+    }
+
+    /**
+     * Records a payment within a group, reducing both the global and the group balance.
+     */
+    public Transaction recordGroupPayment(User fromUser, User toUser, double amount, Currency currency,
+                                          String groupId) {
+        Transaction transaction = new Transaction(fromUser, toUser, Money.toCents(amount), currency,
+                TransactionType.PAYMENT);
+        transaction.setGroupId(groupId);
+        beginWrite();
+        try {
+            recordTransaction(transaction);
             return transaction;
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Settles everything fromUser owes toUser, with one settlement in each
+     * currency the debt is held in (no conversion is needed).
+     *
+     * @return The first settlement recorded, or null if fromUser owes nothing
+     */
+    public Transaction settleUp(User fromUser, User toUser) {
+        beginWrite();
+        try {
+            long[] balanceCents = balanceService.getBalanceVector(toUser, fromUser);
+            Transaction first = null;
+            for (Currency currency : Currency.values()) {
+                if (balanceCents[currency.ordinal()] <= 0) {
+                    continue;
+                }
+                Transaction transaction = new Transaction(fromUser, toUser, balanceCents[currency.ordinal()],
+                        currency, TransactionType.SETTLEMENT);
+                recordTransaction(transaction);
+                if (first == null) {
+                    first = transaction;
+                }
+            }
+            return first;
+        } finally {
+            endWrite();
         }
-        return null;
     }
 
     public List<Transaction> getTransactionHistory(User user) {
@@ -258,12 +684,31 @@ public class SplitwiseManager {
         currencyService.updateExchangeRate(from, to, rate);
     }
 
+    /**
+     * Converts an expense's amount at the exchange rate of the day it was created.
+     */
+    public double convertExpenseAmount(Expense expense, Currency to) {
+        return Money.toAmount(currencyService.convertCents(expense.getAmountCents(), expense.getCurrency(), to,
+                expense.getCreatedAt().toLocalDate()));
+    }
+
+    /**
+     * Loads historical exchange rates from a CSV file of date,from,to,rate lines.
+     */
+    public void loadExchangeRateHistory(Path csvFile) {
+        currencyService.loadRateHistory(csvFile);
+    }
+
     // ==================== Activity Operations ====================
 
     public List<Activity> getRecentActivities(int limit) {
         return activityService.getRecentActivities(limit);
     }
 
+    public List<Activity> getRecentActivities(String beforeActivityId, int limit) {
+        return activityService.getRecentActivities(beforeActivityId, limit);
+    }
+
     public List<Activity> getActivitiesForUser(User user) {
         return activityService.getActivitiesForUser(user);
     }
@@ -272,14 +717,100 @@ public class SplitwiseManager {
         return activityService.getActivitiesForGroup(groupId);
     }
 
+    // ==================== Notification Operations ====================
+
+    /**
+     * Gets a page of a user's notifications older than a cursor, newest first.
+     *
+     * @param beforeSequence Sequence of the last notification already seen, or Long.MAX_VALUE for the newest
+     */
+    public List<Notification> getNotifications(User user, long beforeSequence, int limit) {
+        return notificationService.getNotifications(user, beforeSequence, limit);
+    }
+
+    public List<Notification> getUnreadNotifications(User user, int limit) {
+        return notificationService.getUnreadNotifications(user, limit);
+    }
+
+    public void markNotificationsRead(User user) {
+        notificationService.markAllRead(user);
+    }
+
     // ==================== Observer Management ====================
 
     public void addExpenseObserver(ExpenseObserver observer) {
-        expenseService.addObserver(observer);
+        expenseEventBus.subscribe(observer);
+    }
+
+    /**
+     * Subscribes an observer with its own queue size and overflow policy.
+     */
+    public void addExpenseObserver(ExpenseObserver observer, int capacity, OverflowPolicy policy) {
+        expenseEventBus.subscribe(observer, capacity, policy);
     }
 
     public void removeExpenseObserver(ExpenseObserver observer) {
-        expenseService.removeObserver(observer);
+        expenseEventBus.unsubscribe(observer);
+    }
+
+    /**
+     * Waits until every expense observer has processed the events published so far.
+     */
+    public void awaitExpenseEvents() {
+        expenseEventBus.awaitIdle();
+    }
+
+    // ==================== Journal ====================
+    // Each helper journals a change first, then applies it and records its
+    // activity; callers run between beginWrite and endWrite. Activity ids come
+    // from the LSN (see JournalRecovery.activityId), so replay recreates the same ids.
+
+    /**
+     * Starts a mutation: holds back the expense events it publishes and, when
+     * journaling, takes the state lock so the journal order is the apply order.
+     * The events are delivered by endWrite once the lock is released, so a slow
+     * BLOCK observer never stalls other writers and an observer that writes back
+     * cannot deadlock. Without a journal the services' own locking suffices.
+     */
+    private void beginWrite() {
+        expenseEventBus.hold();
+        if (journal != null) {
+            stateLock.lock();
+        }
+    }
+
+    private void endWrite() {
+        try {
+            if (journal != null) {
+                stateLock.unlock();
+            }
+        } finally {
+            expenseEventBus.release();
+        }
+    }
+
+    private void addExpense(Expense expense) {
+        String activityId = journal != null ? JournalRecovery.activityId(journal.recordExpenseAdded(expense))
+                                            : Ids.next();
+        expenseService.addExpense(expense);
+        if (capture != null) {
+            capture.expenseAdded(expense);
+        }
+        activityService.recordActivity(Activity.expenseAdded(activityId, expense, LocalDateTime.now()));
+    }
+
+    private void recordTransaction(Transaction transaction) {
+        String activityId = journal != null ? JournalRecovery.activityId(journal.recordTransaction(transaction))
+                                            : Ids.next();
+        transactionService.recordTransaction(transaction);
+        if (capture != null) {
+            capture.transactionRecorded(transaction);
+        }
+        activityService.recordActivity(Activity.transactionRecorded(activityId, transaction, LocalDateTime.now()));
+    }
+
+    private Group group(String groupId) {
+        return groupService.getGroupById(groupId).orElseThrow(() -> new GroupNotFoundException(groupId));
     }
 
     // ==================== Service Access (for advanced usage) ====================
@@ -292,10 +823,18 @@ public class SplitwiseManager {
         return groupService;
     }
 
+    public ExpenseEventBus getExpenseEventBus() {
+        return expenseEventBus;
+    }
+
     public ExpenseService getExpenseService() {
         return expenseService;
     }
 
+    public ExpenseColumnStore getExpenseColumns() {
+        return expenseColumns;
+    }
+
     public BalanceService getBalanceService() {
         return balanceService;
     }
@@ -315,4 +854,62 @@ public class SplitwiseManager {
     public NotificationService getNotificationService() {
         return notificationService;
     }
+
+    /**
+     * A snapshot in progress: its LSN, the frozen ledger, and the expenses and
+     * transactions changed since the LSN, which its copies must undo.
+     * Changes are recorded under the state lock while the capture is open.
+     */
+    private static final class SnapshotCapture {
+        private final long lsn;
+        private final BalanceLedger.Checkpoint balances;
+        private final Set<String> addedExpenseIds = new HashSet<>();
+        private final Map<String, Expense> deletedExpenses = new LinkedHashMap<>();
+        private final Set<String> addedTransactionIds = new HashSet<>();
+
+        SnapshotCapture(long lsn, BalanceLedger.Checkpoint balances) {
+            this.lsn = lsn;
+            this.balances = balances;
+        }
+
+        void expenseAdded(Expense expense) {
+            addedExpenseIds.add(expense.getId());
+        }
+
+        void expenseDeleted(Expense expense) {
+            deletedExpenses.put(expense.getId(), expense);
+        }
+
+        void transactionRecorded(Transaction transaction) {
+            addedTransactionIds.add(transaction.getId());
+        }
+
+        /**
+         * Turns a copy of the expenses taken after the LSN into the expenses at
+         * it. Must be called once the capture has ended.
+         */
+        List<Expense> expensesAtLsn(List<Expense> copied) {
+            Map<String, Expense> expenses = new LinkedHashMap<>();
+            for (Expense expense : copied) {
+                expenses.put(expense.getId(), expense);
+            }
+            expenses.putAll(deletedExpenses);
+            expenses.keySet().removeAll(addedExpenseIds);
+            return new ArrayList<>(expenses.values());
+        }
+
+        /**
+         * Turns a copy of the transactions taken after the LSN into the
+         * transactions at it. Must be called once the capture has ended.
+         */
+        List<Transaction> transactionsAtLsn(List<Transaction> copied) {
+            List<Transaction> transactions = new ArrayList<>(copied.size());
+            for (Transaction transaction : copied) {
+                if (!addedTransactionIds.contains(transaction.getId())) {
+                    transactions.add(transaction);
+                }
+            }
+            return transactions;
+        }
+    }
 }
@@ -1,36 +1,127 @@
 package splitwise.model;
 
+import splitwise.util.Ids;
+
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
 
 /**
  * Represents an activity in the system's activity feed.
  * Single Responsibility: Only stores activity/event data.
+ *
+ * Activities recorded by the system are structured records (type, actor,
+ * amount, currency, counterparty, group) created by the static factories.
+ * Their description is rendered only when it is asked for, since most
+ * activities are never displayed. Activities created with a description
+ * (e.g. loaded from a snapshot) keep that text as is. The factories take the
+ * id from the caller, so an activity rebuilt from the journal keeps the id it
+ * was first recorded with.
  */
 public class Activity {
     private final String id;
     private final ActivityType type;
     private final User actor;
-    private final String description;
     private final LocalDateTime timestamp;
-    private final Map<String, Object> metadata;
+    private final String description; // null for structured activities
+    private final String subject;     // Expense description or group name; null if none
+    private final User counterparty;  // Payee or group member; null if none
+    private final long amountCents;
+    private final Currency currency;  // null if the activity has no amount
+    private Map<String, Object> metadata; // Allocated on first use
     private String groupId; // null for non-group activities
 
     public Activity(ActivityType type, User actor, String description) {
-        this.id = UUID.randomUUID().toString();
+        this(type, actor, description, null, LocalDateTime.now());
+    }
+
+    public Activity(ActivityType type, User actor, String description, String groupId) {
+        this(type, actor, description, groupId, LocalDateTime.now());
+    }
+
+    /**
+     * Creates an activity with a known timestamp (e.g. when replaying history).
+     */
+    public Activity(ActivityType type, User actor, String description, String groupId, LocalDateTime timestamp) {
+        this(Ids.next(), type, actor, description, groupId, timestamp);
+    }
+
+    /**
+     * Recreates an activity with a known id and timestamp (e.g. when loading a snapshot).
+     */
+    public Activity(String id, ActivityType type, User actor, String description, String groupId,
+                    LocalDateTime timestamp) {
+        this(id, type, actor, timestamp, description, null, null, 0L, null, groupId);
+    }
+
+    private Activity(String id, ActivityType type, User actor, LocalDateTime timestamp, String description,
+                     String subject, User counterparty, long amountCents, Currency currency, String groupId) {
+        this.id = id;
         this.type = type;
         this.actor = actor;
+        this.timestamp = timestamp;
         this.description = description;
-        this.timestamp = LocalDateTime.now();
-        this.metadata = new HashMap<>();
+        this.subject = subject;
+        this.counterparty = counterparty;
+        this.amountCents = amountCents;
+        this.currency = currency;
+        this.groupId = groupId;
     }
 
-    public Activity(ActivityType type, User actor, String description, String groupId) {
-        this(type, actor, description);
-        this.groupId = groupId;
+    /**
+     * Recreates a structured activity with a known id (e.g. when loading a snapshot).
+     *
+     * @param subject      Expense description or group name, or null
+     * @param counterparty Payee or group member, or null
+     * @param currency     Currency of the amount, or null if the activity has no amount
+     */
+    public static Activity restore(String id, ActivityType type, User actor, LocalDateTime timestamp,
+                                   String subject, User counterparty, long amountCents, Currency currency,
+                                   String groupId) {
+        return new Activity(id, type, actor, timestamp, null, subject, counterparty, amountCents,
+                currency, groupId);
+    }
+
+    private static Activity structured(String id, ActivityType type, User actor, LocalDateTime timestamp,
+                                       String subject, User counterparty, long amountCents, Currency currency,
+                                       String groupId) {
+        return new Activity(id, type, actor, timestamp, null, subject, counterparty,
+                amountCents, currency, groupId);
+    }
+
+    public static Activity expenseAdded(String id, Expense expense, LocalDateTime timestamp) {
+        return structured(id, ActivityType.EXPENSE_ADDED, expense.getPaidBy(), timestamp, expense.getDescription(),
+                null, expense.getAmountCents(), expense.getCurrency(), expense.getGroupId());
+    }
+
+    public static Activity expenseDeleted(String id, User deletedBy, Expense expense, LocalDateTime timestamp) {
+        return structured(id, ActivityType.EXPENSE_DELETED, deletedBy, timestamp, expense.getDescription(),
+                null, 0L, null, null);
+    }
+
+    /**
+     * Records a payment or, for a settlement transaction, settling up.
+     */
+    public static Activity transactionRecorded(String id, Transaction transaction, LocalDateTime timestamp) {
+        ActivityType type = transaction.getType() == TransactionType.SETTLEMENT
+                ? ActivityType.SETTLED : ActivityType.PAYMENT_MADE;
+        return structured(id, type, transaction.getFromUser(), timestamp, null, transaction.getToUser(),
+                transaction.getAmountCents(), transaction.getCurrency(), transaction.getGroupId());
+    }
+
+    public static Activity groupCreated(String id, User creator, String groupId, String groupName,
+                                        LocalDateTime timestamp) {
+        return structured(id, ActivityType.GROUP_CREATED, creator, timestamp, groupName, null, 0L, null, groupId);
+    }
+
+    /**
+     * Records a member being added to (added = true) or removed from a group.
+     */
+    public static Activity membershipChanged(String id, User actor, User member, String groupId, boolean added,
+                                             LocalDateTime timestamp) {
+        return structured(id, added ? ActivityType.MEMBER_ADDED : ActivityType.MEMBER_REMOVED, actor, timestamp,
+                null, member, 0L, null, groupId);
     }
 
     public String getId() {
@@ -45,24 +136,63 @@ public class Activity {
         return actor;
     }
 
+    /**
+     * Gets the description, rendering it from the structured fields if needed.
+     */
     public String getDescription() {
-        return description;
+        return description != null ? description : render(new StringBuilder(48)).toString();
     }
 
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
 
+    /**
+     * Checks whether the activity is a structured record (its description is
+     * rendered from the fields) rather than one created with a description.
+     */
+    public boolean isStructured() {
+        return description == null;
+    }
+
+    /**
+     * Gets the expense description or group name of a structured activity, or null.
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Gets the other user involved (the payee, or the member added or removed), or null.
+     */
+    public User getCounterparty() {
+        return counterparty;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    /**
+     * Gets the currency of the amount, or null if the activity has no amount.
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
     public Map<String, Object> getMetadata() {
-        return new HashMap<>(metadata);
+        return metadata == null ? new HashMap<>() : new HashMap<>(metadata);
     }
 
     public void addMetadata(String key, Object value) {
+        if (metadata == null) {
+            metadata = new HashMap<>(4);
+        }
         metadata.put(key, value);
     }
 
     public Object getMetadata(String key) {
-        return metadata.get(key);
+        return metadata == null ? null : metadata.get(key);
     }
 
     public String getGroupId() {
@@ -81,7 +211,7 @@ public class Activity {
             return true;
         }
         // Check metadata for involved users
-        Object involvedUsers = metadata.get("involvedUsers");
+        Object involvedUsers = getMetadata("involvedUsers");
         if (involvedUsers instanceof Iterable) {
             for (Object u : (Iterable<?>) involvedUsers) {
                 if (user.equals(u)) {
@@ -96,7 +226,35 @@ public class Activity {
      * Returns a formatted activity message.
      */
     public String getFormattedMessage() {
-        return actor.getName() + " " + type.getDescription() + ": " + description;
+        StringBuilder message = new StringBuilder(64)
+                .append(actor.getName()).append(' ').append(type.getDescription()).append(": ");
+        return (description != null ? message.append(description) : render(message)).toString();
+    }
+
+    /**
+     * Appends the description of a structured activity.
+     */
+    private StringBuilder render(StringBuilder out) {
+        switch (type) {
+            case EXPENSE_ADDED:
+                return MoneyFormatter.appendTo(out.append(subject).append(" - "), currency, amountCents);
+            case EXPENSE_DELETED:
+                return out.append("Deleted expense: ").append(subject);
+            case SETTLED:
+                out.append("Settled up with ").append(counterparty.getName()).append(" - ");
+                return MoneyFormatter.appendTo(out, currency, amountCents);
+            case PAYMENT_MADE:
+                out.append("Paid ").append(counterparty.getName()).append(' ');
+                return MoneyFormatter.appendTo(out, currency, amountCents);
+            case GROUP_CREATED:
+                return out.append("Created group '").append(subject).append('\'');
+            case MEMBER_ADDED:
+                return out.append("Added ").append(counterparty.getName()).append(" to the group");
+            case MEMBER_REMOVED:
+                return out.append("Removed ").append(counterparty.getName()).append(" from the group");
+            default:
+                return out.append(type.getDescription());
+        }
     }
 
     @Override
@@ -114,7 +272,7 @@ public class Activity {
 
     @Override
     public String toString() {
-        return "Activity{id='" + id.substring(0, 8) + "...', type=" + type +
+        return "Activity{id='" + Ids.shortForm(id) + "...', type=" + type +
                ", actor=" + actor.getName() + ", timestamp=" + timestamp + "}";
     }
 }
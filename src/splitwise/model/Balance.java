@@ -9,18 +9,18 @@ import java.util.Objects;
 public class Balance {
     private final User fromUser;  // The debtor (who owes money)
     private final User toUser;    // The creditor (who is owed money)
-    private double amount;
+    private long amountCents;
     private Currency currency;
 
-    public Balance(User fromUser, User toUser, double amount) {
+    public Balance(User fromUser, User toUser, long amountCents) {
         this.fromUser = fromUser;
         this.toUser = toUser;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.currency = Currency.USD;
     }
 
-    public Balance(User fromUser, User toUser, double amount, Currency currency) {
-        this(fromUser, toUser, amount);
+    public Balance(User fromUser, User toUser, long amountCents, Currency currency) {
+        this(fromUser, toUser, amountCents);
         this.currency = currency;
     }
 
@@ -33,11 +33,15 @@ public class Balance {
     }
 
     public double getAmount() {
-        return amount;
+        return Money.toAmount(amountCents);
     }
 
-    public void setAmount(double amount) {
-        this.amount = amount;
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
     }
 
     public Currency getCurrency() {
@@ -51,22 +55,22 @@ public class Balance {
     /**
      * Adds to the existing balance amount.
      */
-    public void addAmount(double additionalAmount) {
-        this.amount += additionalAmount;
+    public void addAmountCents(long additionalCents) {
+        this.amountCents += additionalCents;
     }
 
     /**
-     * Checks if this balance is effectively zero (settled).
+     * Checks if this balance is zero (settled).
      */
     public boolean isSettled() {
-        return Math.abs(amount) < 0.01;
+        return amountCents == 0;
     }
 
     /**
      * Returns a formatted string describing this balance.
      */
     public String getDescription() {
-        return fromUser.getName() + " owes " + toUser.getName() + " " + currency.format(amount);
+        return fromUser.getName() + " owes " + toUser.getName() + " " + currency.formatCents(amountCents);
     }
 
     @Override
@@ -86,6 +90,6 @@ public class Balance {
     @Override
     public String toString() {
         return "Balance{" + fromUser.getName() + " owes " + toUser.getName() +
-               " " + currency.format(amount) + "}";
+               " " + currency.formatCents(amountCents) + "}";
     }
 }
@@ -29,4 +29,11 @@ public enum Currency {
     public String format(double amount) {
         return symbol + String.format("%.2f", amount);
     }
+
+    /**
+     * Formats an amount given in cents (e.g. 1234 -> "$12.34").
+     */
+    public String formatCents(long amountCents) {
+        return MoneyFormatter.format(this, amountCents);
+    }
 }
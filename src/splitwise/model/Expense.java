@@ -1,24 +1,30 @@
 package splitwise.model;
 
 import splitwise.model.split.Split;
+import splitwise.model.split.SplitShares;
+import splitwise.util.Ids;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 
 /**
  * Represents an expense in the system.
  * Single Responsibility: Only stores expense data.
+ *
+ * Shares are held as SplitShares (primitive arrays). The Split objects returned
+ * by getSplits are created from them on first use and cached.
  */
 public class Expense {
     private final String id;
     private String description;
-    private double amount;
+    private long amountCents;
     private Currency currency;
     private User paidBy;
-    private List<Split> splits;
+    private SplitShares shares;
+    private volatile List<Split> splits; // Materialized from shares on demand
     private ExpenseType type;
     private String groupId; // null for non-group expenses
     private LocalDateTime createdAt;
@@ -26,20 +32,28 @@ public class Expense {
     private String notes;
 
     public Expense(String description, double amount, User paidBy, ExpenseType type) {
-        this.id = UUID.randomUUID().toString();
-        this.description = description;
-        this.amount = amount;
-        this.currency = Currency.USD;
-        this.paidBy = paidBy;
-        this.type = type;
-        this.splits = new ArrayList<>();
-        this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
+        this(description, amount, Currency.USD, paidBy, type);
     }
 
     public Expense(String description, double amount, Currency currency, User paidBy, ExpenseType type) {
-        this(description, amount, paidBy, type);
+        this(Ids.next(), description, Money.toCents(amount), currency, paidBy, type,
+             LocalDateTime.now());
+    }
+
+    /**
+     * Recreates an expense with a known id and creation time (e.g. during recovery).
+     */
+    public Expense(String id, String description, long amountCents, Currency currency, User paidBy,
+                   ExpenseType type, LocalDateTime createdAt) {
+        this.id = id;
+        this.description = description;
+        this.amountCents = amountCents;
         this.currency = currency;
+        this.paidBy = paidBy;
+        this.type = type;
+        this.shares = new SplitShares(type, new User[0], new long[0], null);
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
     }
 
     public String getId() {
@@ -56,11 +70,15 @@ public class Expense {
     }
 
     public double getAmount() {
-        return amount;
+        return Money.toAmount(amountCents);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
     }
 
     public void setAmount(double amount) {
-        this.amount = amount;
+        this.amountCents = Money.toCents(amount);
         this.updatedAt = LocalDateTime.now();
     }
 
@@ -82,17 +100,38 @@ public class Expense {
         this.updatedAt = LocalDateTime.now();
     }
 
+    /**
+     * Gets a copy of the splits. The Split objects are created on first call and
+     * cached; prefer getShares on hot paths.
+     */
     public List<Split> getSplits() {
-        return new ArrayList<>(splits);
+        List<Split> materialized = splits;
+        if (materialized == null) {
+            materialized = Collections.unmodifiableList(shares.toSplits());
+            splits = materialized;
+        }
+        return new ArrayList<>(materialized);
     }
 
     public void setSplits(List<Split> splits) {
-        this.splits = new ArrayList<>(splits);
+        this.shares = SplitShares.of(type, splits);
+        this.splits = Collections.unmodifiableList(new ArrayList<>(splits));
         this.updatedAt = LocalDateTime.now();
     }
 
     public void addSplit(Split split) {
-        this.splits.add(split);
+        List<Split> updated = getSplits();
+        updated.add(split);
+        setSplits(updated);
+    }
+
+    public SplitShares getShares() {
+        return shares;
+    }
+
+    public void setShares(SplitShares shares) {
+        this.shares = shares;
+        this.splits = null;
         this.updatedAt = LocalDateTime.now();
     }
 
@@ -138,17 +177,21 @@ public class Expense {
         if (paidBy.equals(user)) {
             return true;
         }
-        return splits.stream().anyMatch(split -> split.getUser().equals(user));
+        return shares.involvesUser(user);
     }
 
     /**
      * Gets the share amount for a specific user in this expense.
      */
     public double getShareForUser(User user) {
-        return splits.stream()
-                .filter(split -> split.getUser().equals(user))
-                .mapToDouble(Split::getAmount)
-                .sum();
+        return Money.toAmount(getShareCentsForUser(user));
+    }
+
+    /**
+     * Gets the share in cents for a specific user in this expense.
+     */
+    public long getShareCentsForUser(User user) {
+        return shares.getShareCentsForUser(user);
     }
 
     @Override
@@ -166,8 +209,8 @@ public class Expense {
 
     @Override
     public String toString() {
-        return "Expense{id='" + id.substring(0, 8) + "...', description='" + description +
-               "', amount=" + currency.format(amount) + ", paidBy=" + paidBy.getName() +
+        return "Expense{id='" + Ids.shortForm(id) + "...', description='" + description +
+               "', amount=" + currency.formatCents(amountCents) + ", paidBy=" + paidBy.getName() +
                ", type=" + type + "}";
     }
 }
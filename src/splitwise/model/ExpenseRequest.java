@@ -0,0 +1,66 @@
+package splitwise.model;
+
+import java.util.List;
+
+/**
+ * Describes an expense to be created, for batch creation.
+ * Holds the same inputs as the single-expense creation methods.
+ */
+public class ExpenseRequest {
+    private final String description;
+    private final double amount;
+    private final Currency currency;
+    private final User paidBy;
+    private final ExpenseType type;
+    private final List<User> participants;
+    private final String groupId; // null for non-group expenses
+
+    public ExpenseRequest(String description, double amount, User paidBy, ExpenseType type,
+                          List<User> participants) {
+        this(description, amount, Currency.USD, paidBy, type, participants, null);
+    }
+
+    public ExpenseRequest(String description, double amount, Currency currency, User paidBy,
+                          ExpenseType type, List<User> participants) {
+        this(description, amount, currency, paidBy, type, participants, null);
+    }
+
+    public ExpenseRequest(String description, double amount, Currency currency, User paidBy,
+                          ExpenseType type, List<User> participants, String groupId) {
+        this.description = description;
+        this.amount = amount;
+        this.currency = currency;
+        this.paidBy = paidBy;
+        this.type = type;
+        this.participants = participants;
+        this.groupId = groupId;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public User getPaidBy() {
+        return paidBy;
+    }
+
+    public ExpenseType getType() {
+        return type;
+    }
+
+    public List<User> getParticipants() {
+        return participants;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+}
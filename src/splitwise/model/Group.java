@@ -1,16 +1,21 @@
 package splitwise.model;
 
+import splitwise.observer.GroupMembershipObserver;
+import splitwise.util.Ids;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a group of users who share expenses.
  * Single Responsibility: Only manages group membership and metadata.
+ * Membership and the expense list are guarded by the group's monitor;
+ * membership observers are notified after it is released.
  */
 public class Group {
     private final String id;
@@ -21,17 +26,32 @@ public class Group {
     private final Set<User> members;
     private final Set<User> admins;
     private final List<String> expenseIds;
+    private final CopyOnWriteArrayList<GroupMembershipObserver> membershipObservers;
     private Currency defaultCurrency;
 
     public Group(String name, User createdBy) {
-        this.id = UUID.randomUUID().toString();
+        this(Ids.next(), name, "", createdBy, LocalDateTime.now());
+    }
+
+    public Group(String name, String description, User createdBy) {
+        this(name, createdBy);
+        this.description = description;
+    }
+
+    /**
+     * Recreates a group with a known id and creation time (e.g. during recovery).
+     * Only the creator is a member; other members are added separately.
+     */
+    public Group(String id, String name, String description, User createdBy, LocalDateTime createdAt) {
+        this.id = id;
         this.name = name;
-        this.description = "";
+        this.description = description;
         this.createdBy = createdBy;
-        this.createdAt = LocalDateTime.now();
+        this.createdAt = createdAt;
         this.members = new HashSet<>();
         this.admins = new HashSet<>();
         this.expenseIds = new ArrayList<>();
+        this.membershipObservers = new CopyOnWriteArrayList<>();
         this.defaultCurrency = Currency.USD;
 
         // Creator is automatically a member and admin
@@ -39,11 +59,6 @@ public class Group {
         this.admins.add(createdBy);
     }
 
-    public Group(String name, String description, User createdBy) {
-        this(name, createdBy);
-        this.description = description;
-    }
-
     public String getId() {
         return id;
     }
@@ -72,15 +87,15 @@ public class Group {
         return createdAt;
     }
 
-    public Set<User> getMembers() {
+    public synchronized Set<User> getMembers() {
         return new HashSet<>(members);
     }
 
-    public Set<User> getAdmins() {
+    public synchronized Set<User> getAdmins() {
         return new HashSet<>(admins);
     }
 
-    public List<String> getExpenseIds() {
+    public synchronized List<String> getExpenseIds() {
         return new ArrayList<>(expenseIds);
     }
 
@@ -93,26 +108,65 @@ public class Group {
     }
 
     public boolean addMember(User user) {
-        return members.add(user);
+        synchronized (this) {
+            if (!members.add(user)) {
+                return false;
+            }
+        }
+        for (GroupMembershipObserver observer : membershipObservers) {
+            observer.onMemberAdded(this, user);
+        }
+        return true;
     }
 
     public boolean removeMember(User user) {
-        // Cannot remove the creator
-        if (user.equals(createdBy)) {
-            return false;
+        synchronized (this) {
+            if (!canRemoveMember(user)) {
+                return false;
+            }
+            admins.remove(user);
+            members.remove(user);
         }
-        admins.remove(user);
-        return members.remove(user);
+        for (GroupMembershipObserver observer : membershipObservers) {
+            observer.onMemberRemoved(this, user);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the group's metadata, members and admins, read together, without
+     * its observers or expense list (e.g. for a snapshot).
+     */
+    public synchronized Group copy() {
+        Group copy = new Group(id, name, description, createdBy, createdAt);
+        copy.defaultCurrency = defaultCurrency;
+        copy.members.addAll(members);
+        copy.admins.addAll(admins);
+        return copy;
     }
 
-    public boolean addAdmin(User user) {
+    /**
+     * Registers an observer for membership changes.
+     */
+    public void addMembershipObserver(GroupMembershipObserver observer) {
+        membershipObservers.addIfAbsent(observer);
+    }
+
+    /**
+     * Removes a membership observer.
+     */
+    public void removeMembershipObserver(GroupMembershipObserver observer) {
+        membershipObservers.remove(observer);
+    }
+
+    public synchronized boolean addAdmin(User user) {
         if (!members.contains(user)) {
             return false;
         }
         return admins.add(user);
     }
 
-    public boolean removeAdmin(User user) {
+    public synchronized boolean removeAdmin(User user) {
         // Cannot remove creator as admin
         if (user.equals(createdBy)) {
             return false;
@@ -120,23 +174,30 @@ public class Group {
         return admins.remove(user);
     }
 
-    public boolean isMember(User user) {
+    public synchronized boolean isMember(User user) {
         return members.contains(user);
     }
 
-    public boolean isAdmin(User user) {
+    /**
+     * Checks whether removeMember would remove a user: any member except the creator.
+     */
+    public synchronized boolean canRemoveMember(User user) {
+        return !user.equals(createdBy) && members.contains(user);
+    }
+
+    public synchronized boolean isAdmin(User user) {
         return admins.contains(user);
     }
 
-    public void addExpenseId(String expenseId) {
+    public synchronized void addExpenseId(String expenseId) {
         expenseIds.add(expenseId);
     }
 
-    public boolean removeExpenseId(String expenseId) {
+    public synchronized boolean removeExpenseId(String expenseId) {
         return expenseIds.remove(expenseId);
     }
 
-    public int getMemberCount() {
+    public synchronized int getMemberCount() {
         return members.size();
     }
 
@@ -155,6 +216,6 @@ public class Group {
 
     @Override
     public String toString() {
-        return "Group{id='" + id.substring(0, 8) + "...', name='" + name + "', members=" + members.size() + "}";
+        return "Group{id='" + Ids.shortForm(id) + "...', name='" + name + "', members=" + members.size() + "}";
     }
 }
@@ -0,0 +1,28 @@
+package splitwise.model;
+
+/**
+ * Fixed-point helpers for monetary amounts.
+ * All amounts are stored as a long number of cents (minor units), so sums and
+ * splits are exact and no floating point rounding is needed after conversion.
+ * Doubles are only used at the API boundary and for display.
+ */
+public final class Money {
+    public static final long CENTS_PER_UNIT = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a decimal amount (e.g. 12.34) to cents (e.g. 1234), rounding half up.
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+
+    /**
+     * Converts cents back to a decimal amount for display or legacy APIs.
+     */
+    public static double toAmount(long cents) {
+        return (double) cents / CENTS_PER_UNIT;
+    }
+}
@@ -0,0 +1,48 @@
+package splitwise.model;
+
+/**
+ * Formats amounts in cents as display text, e.g. 1234 USD -> "$12.34".
+ *
+ * Works on the cents directly with StringBuilder appends, so it never goes
+ * through String.format or a double: formatting costs a few appends and is
+ * exact for every long. Output matches Currency.format for the same amount
+ * (symbol, then a '-' for negative amounts, then two decimals).
+ */
+public final class MoneyFormatter {
+    private static final String[] SYMBOLS = symbols();
+
+    private MoneyFormatter() {
+    }
+
+    public static String format(Currency currency, long amountCents) {
+        return appendTo(new StringBuilder(16), currency, amountCents).toString();
+    }
+
+    /**
+     * Appends a formatted amount to a builder.
+     *
+     * @return The builder, for chaining
+     */
+    public static StringBuilder appendTo(StringBuilder out, Currency currency, long amountCents) {
+        out.append(SYMBOLS[currency.ordinal()]);
+        // Split before negating, so Long.MIN_VALUE cannot overflow
+        long units = amountCents / Money.CENTS_PER_UNIT;
+        int cents = (int) (amountCents % Money.CENTS_PER_UNIT);
+        if (amountCents < 0) {
+            out.append('-');
+            units = -units;
+            cents = -cents;
+        }
+        return out.append(units).append('.')
+                .append((char) ('0' + cents / 10)).append((char) ('0' + cents % 10));
+    }
+
+    private static String[] symbols() {
+        Currency[] currencies = Currency.values();
+        String[] symbols = new String[currencies.length];
+        for (Currency currency : currencies) {
+            symbols[currency.ordinal()] = currency.getSymbol();
+        }
+        return symbols;
+    }
+}
@@ -0,0 +1,96 @@
+package splitwise.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification in a user's inbox.
+ * Stores the facts of the event rather than rendered text; the message is
+ * built only when it is read. Immutable.
+ */
+public class Notification {
+    private final long sequence;
+    private final NotificationType type;
+    private final User actor;
+    private final String subject;
+    private final long amountCents;
+    private final Currency currency;
+    private final String expenseId;
+    private final LocalDateTime timestamp;
+
+    /**
+     * @param sequence    Position in the recipient's inbox, increasing from 0
+     * @param actor       The user who caused the event
+     * @param subject     The expense or activity description
+     * @param amountCents The amount involved, or 0 if none
+     * @param currency    The currency of the amount, or null if none
+     * @param expenseId   The expense concerned, or null for activities
+     */
+    public Notification(long sequence, NotificationType type, User actor, String subject, long amountCents,
+                        Currency currency, String expenseId, LocalDateTime timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.actor = actor;
+        this.subject = subject;
+        this.amountCents = amountCents;
+        this.currency = currency;
+        this.expenseId = expenseId;
+        this.timestamp = timestamp;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public NotificationType getType() {
+        return type;
+    }
+
+    public User getActor() {
+        return actor;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public String getExpenseId() {
+        return expenseId;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Renders the notification text.
+     */
+    public String getMessage() {
+        switch (type) {
+            case EXPENSE_ADDED:
+                return "New expense '" + subject + "' for " + currency.formatCents(amountCents)
+                        + " added by " + actor.getName();
+            case EXPENSE_UPDATED:
+                return "Expense '" + subject + "' was updated";
+            case EXPENSE_DELETED:
+                return "Expense '" + subject + "' was deleted by " + actor.getName();
+            case AMOUNT_OWED:
+                return "You owe " + actor.getName() + " " + currency.formatCents(amountCents)
+                        + " for " + subject;
+            default:
+                return actor.getName() + ": " + subject;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Notification{sequence=" + sequence + ", type=" + type + ", message='" + getMessage() + "'}";
+    }
+}
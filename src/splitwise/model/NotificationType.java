@@ -0,0 +1,12 @@
+package splitwise.model;
+
+/**
+ * Enum representing the kinds of notifications delivered to a user's inbox.
+ */
+public enum NotificationType {
+    EXPENSE_ADDED,
+    EXPENSE_UPDATED,
+    EXPENSE_DELETED,
+    AMOUNT_OWED,
+    ACTIVITY
+}
@@ -1,8 +1,9 @@
 package splitwise.model;
 
+import splitwise.util.Ids;
+
 import java.time.LocalDateTime;
 import java.util.Objects;
-import java.util.UUID;
 
 /**
  * Represents a financial transaction (payment or settlement) between users.
@@ -12,25 +13,33 @@ public class Transaction {
     private final String id;
     private final User fromUser;
     private final User toUser;
-    private final double amount;
+    private final long amountCents;
     private final Currency currency;
     private final TransactionType type;
     private final LocalDateTime timestamp;
     private String notes;
     private String groupId; // null for non-group transactions
 
-    public Transaction(User fromUser, User toUser, double amount, Currency currency, TransactionType type) {
-        this.id = UUID.randomUUID().toString();
+    public Transaction(User fromUser, User toUser, long amountCents, Currency currency, TransactionType type) {
+        this(Ids.next(), fromUser, toUser, amountCents, currency, type, LocalDateTime.now());
+    }
+
+    /**
+     * Recreates a transaction with a known id and timestamp (e.g. during recovery).
+     */
+    public Transaction(String id, User fromUser, User toUser, long amountCents, Currency currency,
+                       TransactionType type, LocalDateTime timestamp) {
+        this.id = id;
         this.fromUser = fromUser;
         this.toUser = toUser;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.currency = currency;
         this.type = type;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
     }
 
-    public Transaction(User fromUser, User toUser, double amount, TransactionType type) {
-        this(fromUser, toUser, amount, Currency.USD, type);
+    public Transaction(User fromUser, User toUser, long amountCents, TransactionType type) {
+        this(fromUser, toUser, amountCents, Currency.USD, type);
     }
 
     public String getId() {
@@ -46,7 +55,11 @@ public class Transaction {
     }
 
     public double getAmount() {
-        return amount;
+        return Money.toAmount(amountCents);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
     }
 
     public Currency getCurrency() {
@@ -89,7 +102,7 @@ public class Transaction {
      */
     public String getDescription() {
         String action = type == TransactionType.PAYMENT ? "paid" : "settled with";
-        return fromUser.getName() + " " + action + " " + toUser.getName() + " " + currency.format(amount);
+        return fromUser.getName() + " " + action + " " + toUser.getName() + " " + currency.formatCents(amountCents);
     }
 
     @Override
@@ -107,7 +120,7 @@ public class Transaction {
 
     @Override
     public String toString() {
-        return "Transaction{id='" + id.substring(0, 8) + "...', " + getDescription() +
+        return "Transaction{id='" + Ids.shortForm(id) + "...', " + getDescription() +
                ", type=" + type + ", timestamp=" + timestamp + "}";
     }
 }
@@ -10,12 +10,12 @@ public class ExactSplit extends Split {
 
     public ExactSplit(User user, double amount) {
         super(user);
-        this.amount = amount;
+        setAmount(amount);
     }
 
     @Override
     public boolean validate() {
         // Exact amount must be non-negative
-        return amount >= 0;
+        return amountCents >= 0;
     }
 }
@@ -30,6 +30,6 @@ public class PercentageSplit extends Split {
 
     @Override
     public String toString() {
-        return "PercentageSplit{user=" + user.getName() + ", percentage=" + percentage + "%, amount=" + amount + "}";
+        return "PercentageSplit{user=" + user.getName() + ", percentage=" + percentage + "%, amount=" + getAmount() + "}";
     }
 }
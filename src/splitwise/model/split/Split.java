@@ -1,5 +1,6 @@
 package splitwise.model.split;
 
+import splitwise.model.Money;
 import splitwise.model.User;
 
 /**
@@ -9,11 +10,11 @@ import splitwise.model.User;
  */
 public abstract class Split {
     protected User user;
-    protected double amount;
+    protected long amountCents;
 
     protected Split(User user) {
         this.user = user;
-        this.amount = 0;
+        this.amountCents = 0;
     }
 
     public User getUser() {
@@ -21,11 +22,19 @@ public abstract class Split {
     }
 
     public double getAmount() {
-        return amount;
+        return Money.toAmount(amountCents);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
     }
 
     public void setAmount(double amount) {
-        this.amount = amount;
+        this.amountCents = Money.toCents(amount);
+    }
+
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
     }
 
     /**
@@ -36,6 +45,6 @@ public abstract class Split {
 
     @Override
     public String toString() {
-        return getClass().getSimpleName() + "{user=" + user.getName() + ", amount=" + amount + "}";
+        return getClass().getSimpleName() + "{user=" + user.getName() + ", amount=" + getAmount() + "}";
     }
 }
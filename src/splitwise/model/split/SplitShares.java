@@ -0,0 +1,128 @@
+package splitwise.model.split;
+
+import splitwise.model.ExpenseType;
+import splitwise.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The computed shares of an expense in primitive form: participant i is
+ * users[i] and owes amountCents[i]. Percentage expenses also keep each
+ * participant's percentage.
+ * Balances, indexes and the journal read shares straight from these arrays;
+ * Split objects are created only when toSplits is called.
+ * Immutable: the arrays are owned by this object and never exposed.
+ */
+public final class SplitShares {
+    private final ExpenseType type;
+    private final User[] users;
+    private final long[] amountCents;
+    private final double[] percentages; // null unless type is PERCENTAGE
+
+    /**
+     * Takes ownership of the arrays; callers must not modify them afterwards.
+     */
+    public SplitShares(ExpenseType type, User[] users, long[] amountCents, double[] percentages) {
+        if (users.length != amountCents.length) {
+            throw new IllegalArgumentException("Each participant needs exactly one share");
+        }
+        this.type = type;
+        this.users = users;
+        this.amountCents = amountCents;
+        this.percentages = type == ExpenseType.PERCENTAGE ? percentages : null;
+    }
+
+    /**
+     * Captures the shares of existing Split objects.
+     */
+    public static SplitShares of(ExpenseType type, List<Split> splits) {
+        int size = splits.size();
+        User[] users = new User[size];
+        long[] amounts = new long[size];
+        double[] percentages = type == ExpenseType.PERCENTAGE ? new double[size] : null;
+        for (int i = 0; i < size; i++) {
+            Split split = splits.get(i);
+            users[i] = split.getUser();
+            amounts[i] = split.getAmountCents();
+            if (percentages != null && split instanceof PercentageSplit) {
+                percentages[i] = ((PercentageSplit) split).getPercentage();
+            }
+        }
+        return new SplitShares(type, users, amounts, percentages);
+    }
+
+    public ExpenseType getType() {
+        return type;
+    }
+
+    public int size() {
+        return users.length;
+    }
+
+    public User getUser(int index) {
+        return users[index];
+    }
+
+    public long getAmountCents(int index) {
+        return amountCents[index];
+    }
+
+    /**
+     * Gets a participant's percentage, or 0 for non-percentage expenses.
+     */
+    public double getPercentage(int index) {
+        return percentages == null ? 0 : percentages[index];
+    }
+
+    /**
+     * Gets the total share in cents of a user (0 if the user is not a participant).
+     */
+    public long getShareCentsForUser(User user) {
+        long total = 0;
+        for (int i = 0; i < users.length; i++) {
+            if (users[i].equals(user)) {
+                total += amountCents[i];
+            }
+        }
+        return total;
+    }
+
+    public boolean involvesUser(User user) {
+        for (User participant : users) {
+            if (participant.equals(user)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getTotalCents() {
+        return Arrays.stream(amountCents).sum();
+    }
+
+    /**
+     * Materializes one Split object per participant, of the subclass matching the expense type.
+     */
+    public List<Split> toSplits() {
+        List<Split> splits = new ArrayList<>(users.length);
+        for (int i = 0; i < users.length; i++) {
+            Split split;
+            switch (type) {
+                case EXACT:
+                    split = new ExactSplit(users[i], 0);
+                    break;
+                case PERCENTAGE:
+                    split = new PercentageSplit(users[i], percentages[i]);
+                    break;
+                default:
+                    split = new EqualSplit(users[i]);
+                    break;
+            }
+            split.setAmountCents(amountCents[i]);
+            splits.add(split);
+        }
+        return splits;
+    }
+}
@@ -0,0 +1,482 @@
+package splitwise.observer;
+
+import splitwise.model.Expense;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers expense events to observers asynchronously.
+ * Registered with ExpenseService as its only observer, the bus hands each event
+ * to a bounded queue per subscriber and returns, so expense writes no longer pay
+ * for formatting, logging or other observer work.
+ *
+ * Each subscriber is served by its own dedicated thread, so one slow observer
+ * never delays another, and it sees events in exactly the order they were
+ * published. What happens when a subscriber's queue is full is chosen per
+ * subscription with an OverflowPolicy.
+ *
+ * Published events first enter one shared outbox, which fixes their order
+ * across publishers, and are then handed to the subscribers by whichever
+ * publisher drains it. A publisher that holds a lock calls hold() before
+ * taking it and release() after dropping it: its events stay in the outbox
+ * meanwhile, so a full BLOCK queue stalls it only once the lock is free, and
+ * an observer that writes back through the same lock cannot deadlock with it.
+ * Thread-safe.
+ */
+public class ExpenseEventBus implements ExpenseObserver, Closeable {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final List<Subscription> subscriptions;
+    private final Queue<Event> outbox;
+    private final ReentrantLock drainLock; // Held while moving outbox events to the subscriptions
+    private final ThreadLocal<Integer> holds;
+    private volatile boolean closed;
+
+    public ExpenseEventBus() {
+        this.subscriptions = new CopyOnWriteArrayList<>();
+        this.outbox = new ConcurrentLinkedQueue<>();
+        this.drainLock = new ReentrantLock();
+        this.holds = ThreadLocal.withInitial(() -> 0);
+    }
+
+    /**
+     * Subscribes an observer with the default capacity and the BLOCK policy,
+     * so it receives every event.
+     */
+    public void subscribe(ExpenseObserver observer) {
+        subscribe(observer, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Subscribes an observer on its own delivery thread.
+     * Subscribing an observer that is already subscribed has no effect.
+     *
+     * @param capacity The maximum number of pending events
+     * @param policy   What to do when the queue is full
+     */
+    public synchronized void subscribe(ExpenseObserver observer, int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (closed) {
+            throw new IllegalStateException("Event bus is closed");
+        }
+        if (find(observer) != null) {
+            return;
+        }
+        Subscription subscription = new Subscription(observer, capacity, policy);
+        subscriptions.add(subscription);
+        subscription.start();
+    }
+
+    /**
+     * Unsubscribes an observer. Events already queued for it are still delivered.
+     */
+    public synchronized void unsubscribe(ExpenseObserver observer) {
+        Subscription subscription = find(observer);
+        if (subscription != null) {
+            subscriptions.remove(subscription);
+            subscription.shutdown();
+        }
+    }
+
+    /**
+     * Gets the number of events discarded for an observer under the DROP policy.
+     */
+    public long getDroppedCount(ExpenseObserver observer) {
+        Subscription subscription = find(observer);
+        return subscription == null ? 0 : subscription.getDroppedCount();
+    }
+
+    /**
+     * Holds back delivery of the events this thread publishes until the
+     * matching release(). Holds nest; events are delivered when the outermost
+     * one is released (or earlier, by another publisher draining the outbox).
+     */
+    public void hold() {
+        holds.set(holds.get() + 1);
+    }
+
+    /**
+     * Releases a hold() and, if it was the outermost, delivers the events
+     * published meanwhile.
+     */
+    public void release() {
+        int depth = holds.get() - 1;
+        if (depth > 0) {
+            holds.set(depth);
+            return;
+        }
+        holds.remove();
+        drain();
+    }
+
+    /**
+     * Waits until every event published so far has been delivered.
+     * Must not be called from an observer callback.
+     */
+    public void awaitIdle() {
+        drainFully();
+        for (Subscription subscription : subscriptions) {
+            subscription.awaitIdle();
+        }
+    }
+
+    @Override
+    public void onExpenseAdded(Expense expense) {
+        publish(new Event(EventKind.ADDED, Collections.singletonList(expense), false));
+    }
+
+    @Override
+    public void onExpensesAdded(List<Expense> expenses) {
+        publish(new Event(EventKind.ADDED, new ArrayList<>(expenses), true));
+    }
+
+    @Override
+    public void onExpenseUpdated(Expense expense) {
+        publish(new Event(EventKind.UPDATED, Collections.singletonList(expense), false));
+    }
+
+    @Override
+    public void onExpenseDeleted(Expense expense) {
+        publish(new Event(EventKind.DELETED, Collections.singletonList(expense), false));
+    }
+
+    /**
+     * Stops accepting events, delivers everything already queued and stops
+     * the delivery threads.
+     */
+    @Override
+    public void close() {
+        drainFully();
+        List<Subscription> stopping;
+        synchronized (this) {
+            closed = true;
+            stopping = new ArrayList<>(subscriptions);
+            subscriptions.clear();
+        }
+        for (Subscription subscription : stopping) {
+            subscription.shutdown();
+        }
+        for (Subscription subscription : stopping) {
+            subscription.join();
+        }
+    }
+
+    private void publish(Event event) {
+        if (closed) {
+            return;
+        }
+        outbox.add(event);
+        if (holds.get() == 0) {
+            drain();
+        }
+    }
+
+    /**
+     * Hands the outbox to the subscriptions in order. One thread drains at a
+     * time and the others wait for it, which keeps the BLOCK back-pressure;
+     * an observer's delivery thread never waits but leaves its events to the
+     * current drainer, since that drainer may be blocked on its queue. When a
+     * delivery thread does drain, a full BLOCK queue takes its events past the
+     * capacity rather than make it wait, since that queue may be its own.
+     */
+    private void drain() {
+        if (!isDeliveryThread()) {
+            drainFully();
+            return;
+        }
+        // Re-check after unlocking, so an event added while another thread drained is not stranded
+        while (!outbox.isEmpty() && drainLock.tryLock()) {
+            try {
+                offerQueued(false);
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drains the outbox, waiting for any other drainer, so every event
+     * published before the call has been offered when it returns.
+     */
+    private void drainFully() {
+        drainLock.lock();
+        try {
+            offerQueued(true);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Offers every outbox event to every subscription. Must hold the drain lock.
+     *
+     * @param mayWait Whether a full BLOCK queue may make the caller wait
+     */
+    private void offerQueued(boolean mayWait) {
+        Event event;
+        while ((event = outbox.poll()) != null) {
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(event, mayWait);
+            }
+        }
+    }
+
+    private boolean isDeliveryThread() {
+        Thread current = Thread.currentThread();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.thread == current) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Subscription find(ExpenseObserver observer) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.observer == observer) {
+                return subscription;
+            }
+        }
+        return null;
+    }
+
+    private enum EventKind {
+        ADDED, UPDATED, DELETED
+    }
+
+    private static final class Event {
+        private final EventKind kind;
+        private final List<Expense> expenses;
+        private boolean batch;
+
+        Event(EventKind kind, List<Expense> expenses, boolean batch) {
+            this.kind = kind;
+            this.expenses = expenses;
+            this.batch = batch;
+        }
+
+        Event copy() {
+            return kind == EventKind.ADDED ? new Event(kind, new ArrayList<>(expenses), batch) : this;
+        }
+
+        boolean concerns(String expenseId) {
+            for (Expense expense : expenses) {
+                if (expense.getId().equals(expenseId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void deliverTo(ExpenseObserver observer) {
+            switch (kind) {
+                case ADDED:
+                    if (batch) {
+                        observer.onExpensesAdded(Collections.unmodifiableList(expenses));
+                    } else {
+                        observer.onExpenseAdded(expenses.get(0));
+                    }
+                    break;
+                case UPDATED:
+                    observer.onExpenseUpdated(expenses.get(0));
+                    break;
+                case DELETED:
+                    observer.onExpenseDeleted(expenses.get(0));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * A bounded queue drained by one thread, which preserves publication order.
+     */
+    private static final class Subscription implements Runnable {
+        private final ExpenseObserver observer;
+        private final int capacity;
+        private final OverflowPolicy policy;
+        private final ArrayDeque<Event> queue;
+        private final ReentrantLock lock;
+        private final Condition notEmpty;
+        private final Condition notFull;
+        private final Condition idle;
+        private final Thread thread;
+        private boolean delivering;
+        private boolean stopped;
+        private boolean finished;
+        private long droppedCount;
+
+        Subscription(ExpenseObserver observer, int capacity, OverflowPolicy policy) {
+            this.observer = observer;
+            this.capacity = capacity;
+            this.policy = policy;
+            this.queue = new ArrayDeque<>(Math.min(capacity, DEFAULT_CAPACITY));
+            this.lock = new ReentrantLock();
+            this.notEmpty = lock.newCondition();
+            this.notFull = lock.newCondition();
+            this.idle = lock.newCondition();
+            this.thread = new Thread(this, "expense-observer-" + THREAD_COUNTER.incrementAndGet());
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void offer(Event event, boolean mayWait) {
+            lock.lock();
+            try {
+                if (stopped) {
+                    return;
+                }
+                if (queue.size() >= capacity) {
+                    if (policy == OverflowPolicy.DROP) {
+                        droppedCount++;
+                        return;
+                    }
+                    if (policy == OverflowPolicy.COALESCE && coalesce(event)) {
+                        return;
+                    }
+                    while (mayWait && queue.size() >= capacity && !stopped) {
+                        notFull.awaitUninterruptibly();
+                    }
+                    if (stopped) {
+                        return;
+                    }
+                }
+                // Coalescing grows queued batches, so those subscribers get their own copy
+                queue.addLast(policy == OverflowPolicy.COALESCE ? event.copy() : event);
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Merges an event into a pending one. Must be called holding the lock.
+         *
+         * @return true if the event was merged
+         */
+        private boolean coalesce(Event event) {
+            if (event.kind == EventKind.ADDED) {
+                Event tail = queue.peekLast();
+                if (tail != null && tail.kind == EventKind.ADDED) {
+                    tail.expenses.addAll(event.expenses);
+                    tail.batch = true;
+                    return true;
+                }
+                return false;
+            }
+            if (event.kind == EventKind.UPDATED) {
+                // Observers read the live expense, so a pending update already
+                // carries this one, unless a later event touches the same expense
+                String expenseId = event.expenses.get(0).getId();
+                Iterator<Event> pending = queue.descendingIterator();
+                while (pending.hasNext()) {
+                    Event queued = pending.next();
+                    if (queued.concerns(expenseId)) {
+                        return queued.kind == EventKind.UPDATED;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Event event;
+                lock.lock();
+                try {
+                    while (queue.isEmpty() && !stopped) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    if (queue.isEmpty()) {
+                        finished = true;
+                        idle.signalAll();
+                        return;
+                    }
+                    event = queue.pollFirst();
+                    delivering = true;
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    event.deliverTo(observer);
+                } catch (RuntimeException e) {
+                    // A failing observer must not stop delivery of later events
+                    System.err.println("Expense observer " + observer.getClass().getSimpleName()
+                            + " failed: " + e);
+                }
+
+                lock.lock();
+                try {
+                    delivering = false;
+                    if (queue.isEmpty()) {
+                        idle.signalAll();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Stops accepting events; the thread exits once the queue is drained.
+         */
+        void shutdown() {
+            lock.lock();
+            try {
+                stopped = true;
+                notEmpty.signal();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void awaitIdle() {
+            lock.lock();
+            try {
+                while ((!queue.isEmpty() || delivering) && !finished) {
+                    idle.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void join() {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long getDroppedCount() {
+            lock.lock();
+            try {
+                return droppedCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@ package splitwise.observer;
 
 import splitwise.model.Expense;
 
+import java.util.List;
+
 /**
  * Observer interface for expense-related events.
  * Observer Pattern: Allows objects to be notified of expense changes.
@@ -16,6 +18,18 @@ public interface ExpenseObserver {
      */
     void onExpenseAdded(Expense expense);
 
+    /**
+     * Called once when a batch of expenses is added.
+     * Defaults to calling onExpenseAdded for each expense; override to handle the batch in bulk.
+     *
+     * @param expenses The newly added expenses, in creation order
+     */
+    default void onExpensesAdded(List<Expense> expenses) {
+        for (Expense expense : expenses) {
+            onExpenseAdded(expense);
+        }
+    }
+
     /**
      * Called when an expense is updated.
      *
@@ -0,0 +1,28 @@
+package splitwise.observer;
+
+import splitwise.model.Group;
+import splitwise.model.User;
+
+/**
+ * Observer interface for group membership changes.
+ * Observer Pattern: Lets indexes stay in sync even when Group.addMember or
+ * Group.removeMember is called directly instead of through GroupService.
+ */
+public interface GroupMembershipObserver {
+
+    /**
+     * Called after a user joins a group.
+     *
+     * @param group The group
+     * @param user  The new member
+     */
+    void onMemberAdded(Group group, User user);
+
+    /**
+     * Called after a user leaves a group.
+     *
+     * @param group The group
+     * @param user  The removed member
+     */
+    void onMemberRemoved(Group group, User user);
+}
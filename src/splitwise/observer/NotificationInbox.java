@@ -0,0 +1,107 @@
+package splitwise.observer;
+
+import splitwise.model.Currency;
+import splitwise.model.Notification;
+import splitwise.model.NotificationType;
+import splitwise.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One user's notifications, kept in a fixed-capacity ring buffer.
+ * Once full, each new notification overwrites the oldest one, so memory per
+ * user is bounded. Every notification gets the next sequence number, and a read
+ * cursor marks everything below it as read. Pages are served straight from the
+ * buffer, so a read costs O(page size) no matter how many notifications arrived.
+ * Thread-safe.
+ */
+public class NotificationInbox {
+    private final Notification[] buffer;
+    private long nextSequence;
+    private long readSequence; // Notifications below this sequence have been read
+
+    public NotificationInbox(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Inbox capacity must be positive: " + capacity);
+        }
+        this.buffer = new Notification[capacity];
+    }
+
+    /**
+     * Appends a notification, evicting the oldest one if the inbox is full.
+     *
+     * @return The new notification
+     */
+    public synchronized Notification add(NotificationType type, User actor, String subject, long amountCents,
+                                         Currency currency, String expenseId, LocalDateTime timestamp) {
+        Notification notification = new Notification(nextSequence, type, actor, subject, amountCents,
+                currency, expenseId, timestamp);
+        buffer[slot(nextSequence)] = notification;
+        nextSequence++;
+        return notification;
+    }
+
+    /**
+     * Gets a page of notifications older than a cursor, newest first.
+     *
+     * @param beforeSequence Sequence of the last notification already seen, or Long.MAX_VALUE for the newest
+     */
+    public synchronized List<Notification> getNotifications(long beforeSequence, int limit) {
+        return collect(Math.min(beforeSequence, nextSequence), oldestRetained(), limit);
+    }
+
+    /**
+     * Gets up to 'limit' unread notifications, newest first.
+     */
+    public synchronized List<Notification> getUnread(int limit) {
+        return collect(nextSequence, Math.max(readSequence, oldestRetained()), limit);
+    }
+
+    public synchronized int getUnreadCount() {
+        return (int) (nextSequence - Math.max(readSequence, oldestRetained()));
+    }
+
+    /**
+     * Marks every notification up to and including a sequence as read.
+     */
+    public synchronized void markReadThrough(long sequence) {
+        readSequence = Math.max(readSequence, Math.min(sequence + 1, nextSequence));
+    }
+
+    public synchronized void markAllRead() {
+        readSequence = nextSequence;
+    }
+
+    /**
+     * Gets the number of notifications currently held.
+     */
+    public synchronized int size() {
+        return (int) (nextSequence - oldestRetained());
+    }
+
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Collects notifications with sequences in [from, to), newest first.
+     */
+    private List<Notification> collect(long to, long from, int limit) {
+        int count = (int) Math.max(0, Math.min(limit, to - from));
+        List<Notification> page = new ArrayList<>(count);
+        for (long sequence = to - 1; page.size() < count; sequence--) {
+            page.add(buffer[slot(sequence)]);
+        }
+        return page;
+    }
+
+    private long oldestRetained() {
+        return Math.max(0, nextSequence - buffer.length);
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % buffer.length);
+    }
+}
@@ -2,101 +2,167 @@ package splitwise.observer;
 
 import splitwise.model.Activity;
 import splitwise.model.Expense;
+import splitwise.model.Notification;
+import splitwise.model.NotificationType;
 import splitwise.model.User;
-import splitwise.model.split.Split;
+import splitwise.model.split.SplitShares;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service that implements both ExpenseObserver and ActivityObserver
  * to send notifications to users about relevant events.
  * Observer Pattern: Receives and processes notifications.
+ *
+ * Each user has a NotificationInbox of fixed capacity holding structured
+ * notifications, so memory stays bounded on a long-running node.
+ * Expense events arrive on an ExpenseEventBus delivery thread; inboxes are thread-safe.
  */
 public class NotificationService implements ExpenseObserver, ActivityObserver {
-    private final List<String> notificationLog;
+    public static final int DEFAULT_INBOX_CAPACITY = 100;
+
+    private final Map<String, NotificationInbox> inboxesByUserId;
+    private final int inboxCapacity;
 
     public NotificationService() {
-        this.notificationLog = new ArrayList<>();
+        this(DEFAULT_INBOX_CAPACITY);
+    }
+
+    /**
+     * @param inboxCapacity The number of notifications kept per user
+     */
+    public NotificationService(int inboxCapacity) {
+        if (inboxCapacity <= 0) {
+            throw new IllegalArgumentException("Inbox capacity must be positive: " + inboxCapacity);
+        }
+        this.inboxesByUserId = new ConcurrentHashMap<>();
+        this.inboxCapacity = inboxCapacity;
     }
 
     @Override
     public void onExpenseAdded(Expense expense) {
-        String message = String.format("[NOTIFICATION] New expense '%s' for %s added by %s",
-                expense.getDescription(),
-                expense.getCurrency().format(expense.getAmount()),
-                expense.getPaidBy().getName());
+        System.out.println(notifyExpenseAdded(expense));
+    }
 
-        notificationLog.add(message);
-        notifyUsers(expense, message);
+    @Override
+    public void onExpensesAdded(List<Expense> expenses) {
+        // One console write for the whole batch
+        StringBuilder output = new StringBuilder();
+        for (Expense expense : expenses) {
+            output.append(notifyExpenseAdded(expense)).append(System.lineSeparator());
+        }
+        System.out.print(output);
     }
 
     @Override
     public void onExpenseUpdated(Expense expense) {
-        String message = String.format("[NOTIFICATION] Expense '%s' was updated",
-                expense.getDescription());
-
-        notificationLog.add(message);
-        notifyUsers(expense, message);
+        Notification notification = notifyInvolvedUsers(expense, NotificationType.EXPENSE_UPDATED);
+        System.out.println("[NOTIFICATION] " + notification.getMessage());
     }
 
     @Override
     public void onExpenseDeleted(Expense expense) {
-        String message = String.format("[NOTIFICATION] Expense '%s' was deleted by %s",
-                expense.getDescription(),
-                expense.getPaidBy().getName());
-
-        notificationLog.add(message);
-        notifyUsers(expense, message);
+        Notification notification = notifyInvolvedUsers(expense, NotificationType.EXPENSE_DELETED);
+        System.out.println("[NOTIFICATION] " + notification.getMessage());
     }
 
     @Override
     public void onActivityRecorded(Activity activity) {
-        String message = String.format("[ACTIVITY] %s", activity.getFormattedMessage());
-        notificationLog.add(message);
-        System.out.println(message);
+        getInbox(activity.getActor()).add(NotificationType.ACTIVITY, activity.getActor(),
+                activity.getDescription(), 0, null, null, activity.getTimestamp());
+        System.out.println("[ACTIVITY] " + activity.getFormattedMessage());
     }
 
     /**
-     * Notifies all users involved in an expense.
+     * Notifies the payer of a new expense and every other participant of their share.
      * In a real application, this would send push notifications, emails, etc.
+     *
+     * @return The console line for the expense
      */
-    private void notifyUsers(Expense expense, String message) {
-        System.out.println(message);
-
-        // Notify the payer
-        notifyUser(expense.getPaidBy(), message);
+    private String notifyExpenseAdded(Expense expense) {
+        User payer = expense.getPaidBy();
+        Notification notification = getInbox(payer).add(NotificationType.EXPENSE_ADDED, payer,
+                expense.getDescription(), expense.getAmountCents(), expense.getCurrency(), expense.getId(),
+                expense.getCreatedAt());
+
+        SplitShares shares = expense.getShares();
+        for (int i = 0; i < shares.size(); i++) {
+            if (!shares.getUser(i).equals(payer)) {
+                getInbox(shares.getUser(i)).add(NotificationType.AMOUNT_OWED, payer, expense.getDescription(),
+                        shares.getAmountCents(i), expense.getCurrency(), expense.getId(), expense.getCreatedAt());
+            }
+        }
+        return "[NOTIFICATION] " + notification.getMessage();
+    }
 
-        // Notify all participants
-        for (Split split : expense.getSplits()) {
-            if (!split.getUser().equals(expense.getPaidBy())) {
-                notifyUser(split.getUser(), "You owe " + expense.getPaidBy().getName() + " " +
-                        expense.getCurrency().format(split.getAmount()) + " for " + expense.getDescription());
+    /**
+     * Sends the same notification to the payer and every participant of an expense.
+     *
+     * @return The payer's notification
+     */
+    private Notification notifyInvolvedUsers(Expense expense, NotificationType type) {
+        User payer = expense.getPaidBy();
+        LocalDateTime now = LocalDateTime.now();
+        Notification notification = getInbox(payer).add(type, payer, expense.getDescription(),
+                expense.getAmountCents(), expense.getCurrency(), expense.getId(), now);
+        SplitShares shares = expense.getShares();
+        for (int i = 0; i < shares.size(); i++) {
+            if (!shares.getUser(i).equals(payer)) {
+                getInbox(shares.getUser(i)).add(type, payer, expense.getDescription(),
+                        expense.getAmountCents(), expense.getCurrency(), expense.getId(), now);
             }
         }
+        return notification;
+    }
+
+    /**
+     * Gets a user's inbox, creating it on first use.
+     */
+    public NotificationInbox getInbox(User user) {
+        return inboxesByUserId.computeIfAbsent(user.getId(), id -> new NotificationInbox(inboxCapacity));
     }
 
     /**
-     * Sends a notification to a specific user.
-     * In a real application, this would integrate with notification providers.
+     * Gets a page of a user's notifications older than a cursor, newest first.
+     *
+     * @param beforeSequence Sequence of the last notification already seen, or Long.MAX_VALUE for the newest
      */
-    private void notifyUser(User user, String message) {
-        // Simulate notification - in real app would send push/email
-        String notification = String.format("  -> Notifying %s: %s", user.getName(), message);
-        notificationLog.add(notification);
+    public List<Notification> getNotifications(User user, long beforeSequence, int limit) {
+        NotificationInbox inbox = inboxesByUserId.get(user.getId());
+        return inbox == null ? Collections.emptyList() : inbox.getNotifications(beforeSequence, limit);
     }
 
     /**
-     * Gets the notification log for testing/debugging purposes.
+     * Gets up to 'limit' of a user's unread notifications, newest first.
      */
-    public List<String> getNotificationLog() {
-        return new ArrayList<>(notificationLog);
+    public List<Notification> getUnreadNotifications(User user, int limit) {
+        NotificationInbox inbox = inboxesByUserId.get(user.getId());
+        return inbox == null ? Collections.emptyList() : inbox.getUnread(limit);
+    }
+
+    public int getUnreadCount(User user) {
+        NotificationInbox inbox = inboxesByUserId.get(user.getId());
+        return inbox == null ? 0 : inbox.getUnreadCount();
+    }
+
+    /**
+     * Marks all of a user's notifications as read.
+     */
+    public void markAllRead(User user) {
+        NotificationInbox inbox = inboxesByUserId.get(user.getId());
+        if (inbox != null) {
+            inbox.markAllRead();
+        }
     }
 
     /**
-     * Clears the notification log.
+     * Removes every inbox.
      */
-    public void clearLog() {
-        notificationLog.clear();
+    public void clear() {
+        inboxesByUserId.clear();
     }
 }
@@ -0,0 +1,18 @@
+package splitwise.observer;
+
+/**
+ * What an ExpenseEventBus subscription does when its queue is full.
+ */
+public enum OverflowPolicy {
+    /** The publisher waits until the observer catches up. No event is lost. */
+    BLOCK,
+    /** The new event is discarded and counted. The publisher never waits. */
+    DROP,
+    /**
+     * The new event is merged into a pending one where that loses nothing the
+     * observer would see: an added expense joins a pending batch of added
+     * expenses, and an update to an expense already pending an update is folded
+     * into it. Events that cannot be merged block, as with BLOCK.
+     */
+    COALESCE
+}
@@ -0,0 +1,255 @@
+package splitwise.persistence;
+
+import splitwise.exception.JournalException;
+import splitwise.model.Expense;
+import splitwise.model.ExpenseType;
+import splitwise.model.Group;
+import splitwise.model.Transaction;
+import splitwise.model.User;
+import splitwise.model.split.SplitShares;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Typed front end of the WriteAheadLog.
+ * Encodes each mutating operation into a compact binary record (enum codes as
+ * single bytes, amounts as long cents, entities referenced by id) and decodes
+ * records back into JournalEntry objects for recovery.
+ * Thread-safe: records are encoded and appended under the journal lock.
+ */
+public class Journal implements Closeable {
+    private final WriteAheadLog log;
+    private final ByteArrayOutputStream buffer;
+    private final DataOutputStream out;
+
+    public Journal(Path directory) {
+        this(openLog(directory));
+    }
+
+    public Journal(WriteAheadLog log) {
+        this.log = log;
+        this.buffer = new ByteArrayOutputStream(256);
+        this.out = new DataOutputStream(buffer);
+    }
+
+    public WriteAheadLog getLog() {
+        return log;
+    }
+
+    public synchronized long recordUserCreated(User user) {
+        try {
+            begin(JournalRecordType.USER_CREATED, LocalDateTime.now());
+            out.writeUTF(user.getId());
+            out.writeUTF(user.getName());
+            out.writeUTF(user.getEmail());
+            writeNullable(out, user.getPhone());
+            return commit();
+        } catch (IOException e) {
+            throw new JournalException("Failed to journal user " + user.getId(), e);
+        }
+    }
+
+    public synchronized long recordGroupCreated(Group group) {
+        try {
+            begin(JournalRecordType.GROUP_CREATED, group.getCreatedAt());
+            out.writeUTF(group.getId());
+            out.writeUTF(group.getName());
+            out.writeUTF(group.getDescription() == null ? "" : group.getDescription());
+            out.writeUTF(group.getCreatedBy().getId());
+            return commit();
+        } catch (IOException e) {
+            throw new JournalException("Failed to journal group " + group.getId(), e);
+        }
+    }
+
+    public synchronized long recordMemberAdded(String groupId, User member, User addedBy) {
+        return recordMembership(JournalRecordType.MEMBER_ADDED, groupId, member, addedBy);
+    }
+
+    public synchronized long recordMemberRemoved(String groupId, User member, User removedBy) {
+        return recordMembership(JournalRecordType.MEMBER_REMOVED, groupId, member, removedBy);
+    }
+
+    public synchronized long recordExpenseAdded(Expense expense) {
+        try {
+            begin(JournalRecordType.EXPENSE_ADDED, expense.getCreatedAt());
+            writeExpense(out, expense);
+            return commit();
+        } catch (IOException e) {
+            throw new JournalException("Failed to journal expense " + expense.getId(), e);
+        }
+    }
+
+    /**
+     * Journals a batch of new expenses with a single force to disk.
+     *
+     * @return The LSN of the first record
+     */
+    public synchronized long recordExpensesAdded(List<Expense> expenses) {
+        try {
+            List<byte[]> payloads = new ArrayList<>(expenses.size());
+            for (Expense expense : expenses) {
+                begin(JournalRecordType.EXPENSE_ADDED, expense.getCreatedAt());
+                writeExpense(out, expense);
+                out.flush();
+                payloads.add(buffer.toByteArray());
+            }
+            return log.appendAll(payloads);
+        } catch (IOException e) {
+            throw new JournalException("Failed to journal a batch of " + expenses.size() + " expenses", e);
+        }
+    }
+
+    public synchronized long recordExpenseDeleted(Expense expense, User deletedBy) {
+        try {
+            begin(JournalRecordType.EXPENSE_DELETED, LocalDateTime.now());
+            out.writeUTF(expense.getId());
+            writeNullable(out, expense.getGroupId());
+            out.writeUTF(deletedBy.getId());
+            return commit();
+        } catch (IOException e) {
+            throw new JournalException("Failed to journal deletion of expense " + expense.getId(), e);
+        }
+    }
+
+    public synchronized long recordTransaction(Transaction transaction) {
+        try {
+            begin(JournalRecordType.TRANSACTION_RECORDED, transaction.getTimestamp());
+            writeTransaction(out, transaction);
+            return commit();
+        } catch (IOException e) {
+            throw new JournalException("Failed to journal transaction " + transaction.getId(), e);
+        }
+    }
+
+    /**
+     * Starts a new log segment, so that everything before the returned LSN
+     * can later be dropped as whole segments.
+     *
+     * @return The LSN of the next record to be journaled
+     */
+    public synchronized long checkpoint() {
+        try {
+            return log.roll();
+        } catch (IOException e) {
+            throw new JournalException("Failed to start a new journal segment", e);
+        }
+    }
+
+    /**
+     * Deletes journal segments holding only records below the given LSN.
+     *
+     * @return The number of segments deleted
+     */
+    public int truncateBefore(long lsn) {
+        try {
+            return log.deleteSegmentsBefore(lsn);
+        } catch (IOException e) {
+            throw new JournalException("Failed to truncate journal", e);
+        }
+    }
+
+    /**
+     * Decodes every record with an LSN of at least fromLsn, in LSN order.
+     */
+    public void replay(long fromLsn, Consumer<JournalEntry> consumer) {
+        try {
+            log.replay(fromLsn, (lsn, payload) -> consumer.accept(JournalEntry.decode(lsn, payload)));
+        } catch (IOException e) {
+            throw new JournalException("Failed to read journal", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new JournalException("Failed to close journal", e);
+        }
+    }
+
+    private long recordMembership(JournalRecordType type, String groupId, User member, User actor) {
+        try {
+            begin(type, LocalDateTime.now());
+            out.writeUTF(groupId);
+            out.writeUTF(member.getId());
+            out.writeUTF(actor.getId());
+            return commit();
+        } catch (IOException e) {
+            throw new JournalException("Failed to journal membership change in group " + groupId, e);
+        }
+    }
+
+    private void begin(JournalRecordType type, LocalDateTime timestamp) throws IOException {
+        buffer.reset();
+        out.writeByte(type.getCode());
+        out.writeLong(JournalEntry.toEpochMillis(timestamp));
+    }
+
+    private long commit() throws IOException {
+        out.flush();
+        return log.append(buffer.toByteArray());
+    }
+
+    /**
+     * Writes the fields of an expense record (everything after the timestamp).
+     * Shares are written as computed, so replay never re-runs split strategies.
+     */
+    static void writeExpense(DataOutputStream out, Expense expense) throws IOException {
+        out.writeUTF(expense.getId());
+        writeNullable(out, expense.getGroupId());
+        out.writeUTF(expense.getDescription());
+        out.writeLong(expense.getAmountCents());
+        out.writeByte(expense.getCurrency().ordinal());
+        out.writeUTF(expense.getPaidBy().getId());
+        out.writeByte(expense.getType().ordinal());
+
+        SplitShares shares = expense.getShares();
+        boolean percentage = expense.getType() == ExpenseType.PERCENTAGE;
+        out.writeInt(shares.size());
+        for (int i = 0; i < shares.size(); i++) {
+            out.writeUTF(shares.getUser(i).getId());
+            out.writeLong(shares.getAmountCents(i));
+            if (percentage) {
+                out.writeDouble(shares.getPercentage(i));
+            }
+        }
+    }
+
+    /**
+     * Writes the fields of a transaction record (everything after the timestamp).
+     */
+    static void writeTransaction(DataOutputStream out, Transaction transaction) throws IOException {
+        out.writeUTF(transaction.getId());
+        out.writeUTF(transaction.getFromUser().getId());
+        out.writeUTF(transaction.getToUser().getId());
+        out.writeLong(transaction.getAmountCents());
+        out.writeByte(transaction.getCurrency().ordinal());
+        out.writeByte(transaction.getType().ordinal());
+        writeNullable(out, transaction.getGroupId());
+    }
+
+    static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static WriteAheadLog openLog(Path directory) {
+        try {
+            return new WriteAheadLog(directory);
+        } catch (IOException e) {
+            throw new JournalException("Failed to open journal in " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package splitwise.persistence;
+
+import splitwise.model.Currency;
+import splitwise.model.Expense;
+import splitwise.model.ExpenseType;
+import splitwise.model.Transaction;
+import splitwise.model.TransactionType;
+import splitwise.model.User;
+import splitwise.model.split.SplitShares;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Function;
+
+/**
+ * A decoded journal record.
+ * Every record carries its LSN, its type and the time the mutation happened;
+ * subclasses hold the type-specific fields. Entities are referenced by id.
+ *
+ * Binary payload layout: [byte type][long epoch millis][type-specific fields].
+ */
+public abstract class JournalEntry {
+    private final long lsn;
+    private final JournalRecordType type;
+    private final LocalDateTime timestamp;
+
+    protected JournalEntry(long lsn, JournalRecordType type, LocalDateTime timestamp) {
+        this.lsn = lsn;
+        this.type = type;
+        this.timestamp = timestamp;
+    }
+
+    public long getLsn() {
+        return lsn;
+    }
+
+    public JournalRecordType getType() {
+        return type;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the key used to partition financial records for parallel replay:
+     * the group id, or "" for non-group records. Records in different
+     * partitions only touch commutative balance state.
+     * Returns null for structural records (users, groups, membership),
+     * which are replayed first and in order.
+     */
+    public String getPartitionKey() {
+        return null;
+    }
+
+    /**
+     * Decodes a record payload written by Journal.
+     */
+    public static JournalEntry decode(long lsn, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        JournalRecordType type = JournalRecordType.fromCode(in.readByte());
+        LocalDateTime timestamp = fromEpochMillis(in.readLong());
+
+        switch (type) {
+            case USER_CREATED:
+                return new UserCreated(lsn, timestamp, in.readUTF(), in.readUTF(), in.readUTF(), readNullable(in));
+            case GROUP_CREATED:
+                return new GroupCreated(lsn, timestamp, in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+            case MEMBER_ADDED:
+            case MEMBER_REMOVED:
+                return new MembershipChanged(lsn, type, timestamp, in.readUTF(), in.readUTF(), in.readUTF());
+            case EXPENSE_ADDED:
+                return ExpenseAdded.read(lsn, timestamp, in);
+            case EXPENSE_DELETED:
+                return new ExpenseDeleted(lsn, timestamp, in.readUTF(), readNullable(in), in.readUTF());
+            case TRANSACTION_RECORDED:
+                return TransactionRecorded.read(lsn, timestamp, in);
+            default:
+                throw new IllegalArgumentException("Unsupported journal record type: " + type);
+        }
+    }
+
+    static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * A user was created.
+     */
+    public static final class UserCreated extends JournalEntry {
+        private final String userId;
+        private final String name;
+        private final String email;
+        private final String phone;
+
+        UserCreated(long lsn, LocalDateTime timestamp, String userId, String name, String email, String phone) {
+            super(lsn, JournalRecordType.USER_CREATED, timestamp);
+            this.userId = userId;
+            this.name = name;
+            this.email = email;
+            this.phone = phone;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getPhone() {
+            return phone;
+        }
+    }
+
+    /**
+     * A group was created.
+     */
+    public static final class GroupCreated extends JournalEntry {
+        private final String groupId;
+        private final String name;
+        private final String description;
+        private final String creatorId;
+
+        GroupCreated(long lsn, LocalDateTime timestamp, String groupId, String name, String description,
+                     String creatorId) {
+            super(lsn, JournalRecordType.GROUP_CREATED, timestamp);
+            this.groupId = groupId;
+            this.name = name;
+            this.description = description;
+            this.creatorId = creatorId;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getCreatorId() {
+            return creatorId;
+        }
+    }
+
+    /**
+     * A member was added to or removed from a group.
+     */
+    public static final class MembershipChanged extends JournalEntry {
+        private final String groupId;
+        private final String userId;
+        private final String actorId;
+
+        MembershipChanged(long lsn, JournalRecordType type, LocalDateTime timestamp, String groupId,
+                          String userId, String actorId) {
+            super(lsn, type, timestamp);
+            this.groupId = groupId;
+            this.userId = userId;
+            this.actorId = actorId;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getActorId() {
+            return actorId;
+        }
+    }
+
+    /**
+     * An expense was added, with its final per-user shares.
+     */
+    public static final class ExpenseAdded extends JournalEntry {
+        private final String expenseId;
+        private final String groupId;
+        private final String description;
+        private final long amountCents;
+        private final Currency currency;
+        private final String payerId;
+        private final ExpenseType expenseType;
+        private final String[] participantIds;
+        private final long[] shareCents;
+        private final double[] percentages; // null unless expenseType is PERCENTAGE
+
+        ExpenseAdded(long lsn, LocalDateTime timestamp, String expenseId, String groupId, String description,
+                     long amountCents, Currency currency, String payerId, ExpenseType expenseType,
+                     String[] participantIds, long[] shareCents, double[] percentages) {
+            super(lsn, JournalRecordType.EXPENSE_ADDED, timestamp);
+            this.expenseId = expenseId;
+            this.groupId = groupId;
+            this.description = description;
+            this.amountCents = amountCents;
+            this.currency = currency;
+            this.payerId = payerId;
+            this.expenseType = expenseType;
+            this.participantIds = participantIds;
+            this.shareCents = shareCents;
+            this.percentages = percentages;
+        }
+
+        static ExpenseAdded read(long lsn, LocalDateTime timestamp, DataInputStream in) throws IOException {
+            String expenseId = in.readUTF();
+            String groupId = readNullable(in);
+            String description = in.readUTF();
+            long amountCents = in.readLong();
+            Currency currency = Currency.values()[in.readByte()];
+            String payerId = in.readUTF();
+            ExpenseType expenseType = ExpenseType.values()[in.readByte()];
+
+            int count = in.readInt();
+            String[] participantIds = new String[count];
+            long[] shareCents = new long[count];
+            double[] percentages = expenseType == ExpenseType.PERCENTAGE ? new double[count] : null;
+            for (int i = 0; i < count; i++) {
+                participantIds[i] = in.readUTF();
+                shareCents[i] = in.readLong();
+                if (percentages != null) {
+                    percentages[i] = in.readDouble();
+                }
+            }
+            return new ExpenseAdded(lsn, timestamp, expenseId, groupId, description, amountCents, currency,
+                    payerId, expenseType, participantIds, shareCents, percentages);
+        }
+
+        @Override
+        public String getPartitionKey() {
+            return groupId == null ? "" : groupId;
+        }
+
+        public String getExpenseId() {
+            return expenseId;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public long getAmountCents() {
+            return amountCents;
+        }
+
+        public Currency getCurrency() {
+            return currency;
+        }
+
+        public String getPayerId() {
+            return payerId;
+        }
+
+        public ExpenseType getExpenseType() {
+            return expenseType;
+        }
+
+        public int getParticipantCount() {
+            return participantIds.length;
+        }
+
+        public String getParticipantId(int index) {
+            return participantIds[index];
+        }
+
+        public long getShareCents(int index) {
+            return shareCents[index];
+        }
+
+        public double getPercentage(int index) {
+            return percentages == null ? 0 : percentages[index];
+        }
+
+        /**
+         * Recreates the expense with its recorded shares, resolving user ids with the given lookup.
+         */
+        public Expense toExpense(Function<String, User> users) {
+            Expense expense = new Expense(expenseId, description, amountCents, currency, users.apply(payerId),
+                    expenseType, getTimestamp());
+            expense.setGroupId(groupId);
+            User[] participants = new User[participantIds.length];
+            for (int i = 0; i < participantIds.length; i++) {
+                participants[i] = users.apply(participantIds[i]);
+            }
+            // The share arrays are only read after decoding, so they can be handed over as they are
+            expense.setShares(new SplitShares(expenseType, participants, shareCents, percentages));
+            return expense;
+        }
+    }
+
+    /**
+     * An expense was deleted.
+     */
+    public static final class ExpenseDeleted extends JournalEntry {
+        private final String expenseId;
+        private final String groupId;
+        private final String actorId;
+
+        ExpenseDeleted(long lsn, LocalDateTime timestamp, String expenseId, String groupId, String actorId) {
+            super(lsn, JournalRecordType.EXPENSE_DELETED, timestamp);
+            this.expenseId = expenseId;
+            this.groupId = groupId;
+            this.actorId = actorId;
+        }
+
+        @Override
+        public String getPartitionKey() {
+            return groupId == null ? "" : groupId;
+        }
+
+        public String getExpenseId() {
+            return expenseId;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getActorId() {
+            return actorId;
+        }
+    }
+
+    /**
+     * A payment or settlement was recorded.
+     */
+    public static final class TransactionRecorded extends JournalEntry {
+        private final String transactionId;
+        private final String fromUserId;
+        private final String toUserId;
+        private final long amountCents;
+        private final Currency currency;
+        private final TransactionType transactionType;
+        private final String groupId;
+
+        TransactionRecorded(long lsn, LocalDateTime timestamp, String transactionId, String fromUserId,
+                            String toUserId, long amountCents, Currency currency,
+                            TransactionType transactionType, String groupId) {
+            super(lsn, JournalRecordType.TRANSACTION_RECORDED, timestamp);
+            this.transactionId = transactionId;
+            this.fromUserId = fromUserId;
+            this.toUserId = toUserId;
+            this.amountCents = amountCents;
+            this.currency = currency;
+            this.transactionType = transactionType;
+            this.groupId = groupId;
+        }
+
+        static TransactionRecorded read(long lsn, LocalDateTime timestamp, DataInputStream in) throws IOException {
+            return new TransactionRecorded(lsn, timestamp, in.readUTF(), in.readUTF(), in.readUTF(),
+                    in.readLong(), Currency.values()[in.readByte()],
+                    TransactionType.values()[in.readByte()], readNullable(in));
+        }
+
+        /**
+         * Recreates the transaction, resolving user ids with the given lookup.
+         */
+        public Transaction toTransaction(Function<String, User> users) {
+            Transaction transaction = new Transaction(transactionId, users.apply(fromUserId),
+                    users.apply(toUserId), amountCents, currency, transactionType, getTimestamp());
+            transaction.setGroupId(groupId);
+            return transaction;
+        }
+
+        @Override
+        public String getPartitionKey() {
+            return groupId == null ? "" : groupId;
+        }
+
+        public String getTransactionId() {
+            return transactionId;
+        }
+
+        public String getFromUserId() {
+            return fromUserId;
+        }
+
+        public String getToUserId() {
+            return toUserId;
+        }
+
+        public long getAmountCents() {
+            return amountCents;
+        }
+
+        public Currency getCurrency() {
+            return currency;
+        }
+
+        public TransactionType getTransactionType() {
+            return transactionType;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+    }
+}
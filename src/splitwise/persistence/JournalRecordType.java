@@ -0,0 +1,41 @@
+package splitwise.persistence;
+
+/**
+ * Enum representing the kinds of mutations recorded in the journal.
+ * Each type has a stable one-byte code used in the binary format;
+ * codes must never be reused or renumbered.
+ */
+public enum JournalRecordType {
+    USER_CREATED(1),
+    GROUP_CREATED(2),
+    MEMBER_ADDED(3),
+    MEMBER_REMOVED(4),
+    EXPENSE_ADDED(5),
+    EXPENSE_DELETED(6),
+    TRANSACTION_RECORDED(7);
+
+    private static final JournalRecordType[] BY_CODE = new JournalRecordType[8];
+
+    static {
+        for (JournalRecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    JournalRecordType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static JournalRecordType fromCode(byte code) {
+        if (code <= 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("Unknown journal record type: " + code);
+        }
+        return BY_CODE[code];
+    }
+}
@@ -0,0 +1,341 @@
+package splitwise.persistence;
+
+import splitwise.exception.UserNotFoundException;
+import splitwise.model.Activity;
+import splitwise.model.ActivityType;
+import splitwise.model.Balance;
+import splitwise.model.Currency;
+import splitwise.model.Expense;
+import splitwise.model.Group;
+import splitwise.model.Transaction;
+import splitwise.model.User;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A copy of all application state, tagged with the journal LSN it covers: the
+ * snapshot reflects every record below that LSN. Its expenses, transactions
+ * and balances reflect none after; its users, groups and activities may also
+ * reflect some later records, which replay skips by id.
+ *
+ * Binary layout: [int magic][int version][long lsn], then sections for users,
+ * groups, expenses, transactions, balances, group balances and activities
+ * (each an int count followed by its records; a group balances record is a
+ * group id and that group's balances), then an int CRC32 of everything before it.
+ * Expense and transaction records use the same encoding as the journal.
+ * Version 2 adds the group balances section; version 1 has none, so its
+ * group balances are rebuilt from the group expenses and payments.
+ * Version 3 adds a currency byte to each balance; older balances are read as USD.
+ * Version 4 stores the fields of structured activities instead of their rendered
+ * description; activities from older versions are read back as plain text.
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x53575350; // "SWSP"
+    private static final int VERSION = 4;
+    private static final int NO_CURRENCY = -1;
+
+    private final long lsn;
+    private final List<User> users;
+    private final List<Group> groups;
+    private final List<Expense> expenses;
+    private final List<Transaction> transactions;
+    private final List<Balance> balances;
+    private final Map<String, List<Balance>> groupBalances;
+    private final List<Activity> activities;
+
+    /**
+     * @param lsn          The first journal LSN not fully reflected in this snapshot
+     * @param groups       Groups detached from live state (their members must not change)
+     * @param balances      Non-zero pairwise balances
+     * @param groupBalances Group id -> the group's non-zero pairwise balances,
+     *                      or null if not recorded (read from version 1)
+     * @param activities    Activities in recording order
+     */
+    public Snapshot(long lsn, List<User> users, List<Group> groups, List<Expense> expenses,
+                    List<Transaction> transactions, List<Balance> balances,
+                    Map<String, List<Balance>> groupBalances, List<Activity> activities) {
+        this.lsn = lsn;
+        this.users = users;
+        this.groups = groups;
+        this.expenses = expenses;
+        this.transactions = transactions;
+        this.balances = balances;
+        this.groupBalances = groupBalances;
+        this.activities = activities;
+    }
+
+    public long getLsn() {
+        return lsn;
+    }
+
+    public List<User> getUsers() {
+        return Collections.unmodifiableList(users);
+    }
+
+    public List<Group> getGroups() {
+        return Collections.unmodifiableList(groups);
+    }
+
+    public List<Expense> getExpenses() {
+        return Collections.unmodifiableList(expenses);
+    }
+
+    public List<Transaction> getTransactions() {
+        return Collections.unmodifiableList(transactions);
+    }
+
+    public List<Balance> getBalances() {
+        return Collections.unmodifiableList(balances);
+    }
+
+    /**
+     * Gets each group's balances, or null if the snapshot predates them.
+     */
+    public Map<String, List<Balance>> getGroupBalances() {
+        return groupBalances == null ? null : Collections.unmodifiableMap(groupBalances);
+    }
+
+    public List<Activity> getActivities() {
+        return Collections.unmodifiableList(activities);
+    }
+
+    /**
+     * Serializes this snapshot. The stream is flushed but not closed.
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        CheckedOutputStream checked = new CheckedOutputStream(output, new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(lsn);
+
+        out.writeInt(users.size());
+        for (User user : users) {
+            out.writeUTF(user.getId());
+            out.writeUTF(user.getName());
+            out.writeUTF(user.getEmail());
+            Journal.writeNullable(out, user.getPhone());
+            out.writeByte(user.getPreferredCurrency().ordinal());
+        }
+
+        out.writeInt(groups.size());
+        for (Group group : groups) {
+            out.writeUTF(group.getId());
+            out.writeUTF(group.getName());
+            Journal.writeNullable(out, group.getDescription());
+            out.writeUTF(group.getCreatedBy().getId());
+            out.writeLong(JournalEntry.toEpochMillis(group.getCreatedAt()));
+            out.writeByte(group.getDefaultCurrency().ordinal());
+            writeUserIds(out, group.getMembers());
+            writeUserIds(out, group.getAdmins());
+        }
+
+        out.writeInt(expenses.size());
+        for (Expense expense : expenses) {
+            out.writeLong(JournalEntry.toEpochMillis(expense.getCreatedAt()));
+            Journal.writeExpense(out, expense);
+        }
+
+        out.writeInt(transactions.size());
+        for (Transaction transaction : transactions) {
+            out.writeLong(JournalEntry.toEpochMillis(transaction.getTimestamp()));
+            Journal.writeTransaction(out, transaction);
+        }
+
+        writeBalances(out, balances);
+
+        out.writeInt(groupBalances.size());
+        for (Map.Entry<String, List<Balance>> entry : groupBalances.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeBalances(out, entry.getValue());
+        }
+
+        out.writeInt(activities.size());
+        for (Activity activity : activities) {
+            out.writeUTF(activity.getId());
+            out.writeByte(activity.getType().ordinal());
+            out.writeUTF(activity.getActor().getId());
+            out.writeBoolean(activity.isStructured());
+            if (activity.isStructured()) {
+                Journal.writeNullable(out, activity.getSubject());
+                Journal.writeNullable(out, activity.getCounterparty() == null ? null
+                        : activity.getCounterparty().getId());
+                out.writeLong(activity.getAmountCents());
+                out.writeByte(activity.getCurrency() == null ? NO_CURRENCY : activity.getCurrency().ordinal());
+            } else {
+                out.writeUTF(activity.getDescription());
+            }
+            Journal.writeNullable(out, activity.getGroupId());
+            out.writeLong(JournalEntry.toEpochMillis(activity.getTimestamp()));
+        }
+
+        out.flush();
+        // The checksum covers everything written so far, so read it before writing it
+        int checksum = (int) checked.getChecksum().getValue();
+        out.writeInt(checksum);
+        out.flush();
+    }
+
+    /**
+     * Reads a snapshot written by writeTo.
+     *
+     * @throws IOException if the data is truncated, corrupt or of an unknown version
+     */
+    public static Snapshot readFrom(InputStream input) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(input, new CRC32());
+        DataInputStream in = new DataInputStream(checked);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a snapshot file");
+        }
+        int version = in.readInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        long lsn = in.readLong();
+
+        int userCount = in.readInt();
+        List<User> users = new ArrayList<>(userCount);
+        Map<String, User> usersById = new HashMap<>(userCount * 2);
+        for (int i = 0; i < userCount; i++) {
+            User user = new User(in.readUTF(), in.readUTF(), in.readUTF(), JournalEntry.readNullable(in));
+            user.setPreferredCurrency(Currency.values()[in.readByte()]);
+            users.add(user);
+            usersById.put(user.getId(), user);
+        }
+
+        int groupCount = in.readInt();
+        List<Group> groups = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            String id = in.readUTF();
+            String name = in.readUTF();
+            String description = JournalEntry.readNullable(in);
+            User creator = resolve(usersById, in.readUTF());
+            LocalDateTime createdAt = JournalEntry.fromEpochMillis(in.readLong());
+            Group group = new Group(id, name, description, creator, createdAt);
+            group.setDefaultCurrency(Currency.values()[in.readByte()]);
+            for (int count = in.readInt(); count > 0; count--) {
+                group.addMember(resolve(usersById, in.readUTF()));
+            }
+            for (int count = in.readInt(); count > 0; count--) {
+                group.addAdmin(resolve(usersById, in.readUTF()));
+            }
+            groups.add(group);
+        }
+
+        int expenseCount = in.readInt();
+        List<Expense> expenses = new ArrayList<>(expenseCount);
+        for (int i = 0; i < expenseCount; i++) {
+            LocalDateTime createdAt = JournalEntry.fromEpochMillis(in.readLong());
+            expenses.add(JournalEntry.ExpenseAdded.read(lsn, createdAt, in)
+                    .toExpense(userId -> resolve(usersById, userId)));
+        }
+
+        int transactionCount = in.readInt();
+        List<Transaction> transactions = new ArrayList<>(transactionCount);
+        for (int i = 0; i < transactionCount; i++) {
+            LocalDateTime timestamp = JournalEntry.fromEpochMillis(in.readLong());
+            transactions.add(JournalEntry.TransactionRecorded.read(lsn, timestamp, in)
+                    .toTransaction(userId -> resolve(usersById, userId)));
+        }
+
+        List<Balance> balances = readBalances(in, version, usersById);
+
+        Map<String, List<Balance>> groupBalances = null;
+        if (version >= 2) {
+            int groupBalanceCount = in.readInt();
+            groupBalances = new LinkedHashMap<>(groupBalanceCount * 2);
+            for (int i = 0; i < groupBalanceCount; i++) {
+                String groupId = in.readUTF();
+                groupBalances.put(groupId, readBalances(in, version, usersById));
+            }
+        }
+
+        int activityCount = in.readInt();
+        List<Activity> activities = new ArrayList<>(activityCount);
+        for (int i = 0; i < activityCount; i++) {
+            String id = in.readUTF();
+            ActivityType type = ActivityType.values()[in.readByte()];
+            User actor = resolve(usersById, in.readUTF());
+            boolean structured = version >= 4 && in.readBoolean();
+            String description = null;
+            String subject = null;
+            User counterparty = null;
+            long amountCents = 0L;
+            Currency currency = null;
+            if (structured) {
+                subject = JournalEntry.readNullable(in);
+                String counterpartyId = JournalEntry.readNullable(in);
+                counterparty = counterpartyId == null ? null : resolve(usersById, counterpartyId);
+                amountCents = in.readLong();
+                byte currencyCode = in.readByte();
+                currency = currencyCode == NO_CURRENCY ? null : Currency.values()[currencyCode];
+            } else {
+                description = in.readUTF();
+            }
+            String groupId = JournalEntry.readNullable(in);
+            LocalDateTime timestamp = JournalEntry.fromEpochMillis(in.readLong());
+            activities.add(structured
+                    ? Activity.restore(id, type, actor, timestamp, subject, counterparty, amountCents, currency, groupId)
+                    : new Activity(id, type, actor, description, groupId, timestamp));
+        }
+
+        int expectedChecksum = (int) checked.getChecksum().getValue();
+        if (in.readInt() != expectedChecksum) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        return new Snapshot(lsn, users, groups, expenses, transactions, balances, groupBalances, activities);
+    }
+
+    private static void writeBalances(DataOutputStream out, List<Balance> balances) throws IOException {
+        out.writeInt(balances.size());
+        for (Balance balance : balances) {
+            out.writeUTF(balance.getToUser().getId());
+            out.writeUTF(balance.getFromUser().getId());
+            out.writeByte(balance.getCurrency().ordinal());
+            out.writeLong(balance.getAmountCents());
+        }
+    }
+
+    private static List<Balance> readBalances(DataInputStream in, int version, Map<String, User> usersById)
+            throws IOException {
+        int balanceCount = in.readInt();
+        List<Balance> balances = new ArrayList<>(balanceCount);
+        for (int i = 0; i < balanceCount; i++) {
+            User creditor = resolve(usersById, in.readUTF());
+            User debtor = resolve(usersById, in.readUTF());
+            Currency currency = version < 3 ? Currency.USD : Currency.values()[in.readByte()];
+            balances.add(new Balance(debtor, creditor, in.readLong(), currency));
+        }
+        return balances;
+    }
+
+    private static void writeUserIds(DataOutputStream out, Set<User> users) throws IOException {
+        out.writeInt(users.size());
+        for (User user : users) {
+            out.writeUTF(user.getId());
+        }
+    }
+
+    private static User resolve(Map<String, User> usersById, String userId) {
+        User user = usersById.get(userId);
+        if (user == null) {
+            throw new UserNotFoundException(userId);
+        }
+        return user;
+    }
+}
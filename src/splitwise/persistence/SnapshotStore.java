@@ -0,0 +1,115 @@
+package splitwise.persistence;
+
+import splitwise.exception.JournalException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores snapshot files next to the journal, named after the LSN they cover.
+ * A snapshot is written to a temporary file, forced to disk and then atomically
+ * renamed, so a crash never leaves a partial snapshot under a valid name.
+ * Thread-safe: saves are serialized.
+ */
+public class SnapshotStore {
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new JournalException("Failed to create snapshot directory " + directory, e);
+        }
+    }
+
+    /**
+     * Durably writes a snapshot and deletes the snapshots it supersedes.
+     *
+     * @return The path of the snapshot file
+     */
+    public synchronized Path save(Snapshot snapshot) {
+        Path target = directory.resolve(snapshotName(snapshot.getLsn()));
+        Path temp = directory.resolve(snapshotName(snapshot.getLsn()) + TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+                snapshot.writeTo(out);
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (Path older : listSnapshots()) {
+                if (lsnOf(older) < snapshot.getLsn()) {
+                    Files.deleteIfExists(older);
+                }
+            }
+            return target;
+        } catch (IOException e) {
+            throw new JournalException("Failed to write snapshot at LSN " + snapshot.getLsn(), e);
+        }
+    }
+
+    /**
+     * Loads the snapshot with the highest LSN, if any.
+     */
+    public Optional<Snapshot> loadLatest() {
+        try {
+            List<Path> snapshots = listSnapshots();
+            if (snapshots.isEmpty()) {
+                return Optional.empty();
+            }
+            Path latest = snapshots.get(snapshots.size() - 1);
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(latest), 1 << 16)) {
+                return Optional.of(Snapshot.readFrom(in));
+            }
+        } catch (IOException e) {
+            throw new JournalException("Failed to load snapshot from " + directory, e);
+        }
+    }
+
+    /**
+     * Lists complete snapshot files, oldest first.
+     */
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> snapshots = new ArrayList<>();
+            for (Path path : files.collect(Collectors.toList())) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX)) {
+                    snapshots.add(path);
+                }
+            }
+            snapshots.sort((p1, p2) -> Long.compare(lsnOf(p1), lsnOf(p2)));
+            return snapshots;
+        }
+    }
+
+    private static long lsnOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    private static String snapshotName(long lsn) {
+        return String.format("%s%020d%s", SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX);
+    }
+}
@@ -0,0 +1,334 @@
+package splitwise.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segmented write-ahead log of opaque binary records.
+ *
+ * Each record gets a log sequence number (LSN) 0, 1, 2, ... and is framed as
+ * [int payload length][int CRC32 of payload][payload]. Records are written to
+ * segment files named after the LSN of their first record, and a new segment
+ * is started once the current one exceeds the size limit.
+ * On open, a torn or corrupt tail left by a crash is detected by its length or
+ * checksum and truncated, so the log always ends at the last complete record.
+ * An append that fails is rolled back the same way before the exception is
+ * thrown, so no later record is ever written after a partial frame; if even
+ * the rollback fails, the log refuses all further appends.
+ * Thread-safe: appends are serialized.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final long DEFAULT_MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    private final Path directory;
+    private final boolean syncOnAppend;
+    private final long maxSegmentBytes;
+    private final CRC32 checksum;
+    private final ByteBuffer header;
+
+    private FileChannel channel;
+    private long segmentBytes;
+    private long nextLsn;
+    private IOException failure; // Set once the log can no longer be appended to
+
+    /**
+     * Opens (or creates) a log that forces every record to disk before returning.
+     */
+    public WriteAheadLog(Path directory) throws IOException {
+        this(directory, true, DEFAULT_MAX_SEGMENT_BYTES);
+    }
+
+    /**
+     * @param directory       Directory holding the segment files
+     * @param syncOnAppend    Whether each append is forced to disk (fsync) before returning
+     * @param maxSegmentBytes Size after which a new segment file is started
+     */
+    public WriteAheadLog(Path directory, boolean syncOnAppend, long maxSegmentBytes) throws IOException {
+        this.directory = directory;
+        this.syncOnAppend = syncOnAppend;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.checksum = new CRC32();
+        this.header = ByteBuffer.allocate(HEADER_BYTES);
+
+        Files.createDirectories(directory);
+        List<Segment> segments = listSegments();
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            Segment last = segments.get(segments.size() - 1);
+            ScanResult tail = scan(last, Long.MAX_VALUE, null);
+            this.channel = FileChannel.open(last.path, StandardOpenOption.WRITE);
+            // Drop a torn record left by a crash mid-append
+            channel.truncate(tail.validBytes);
+            channel.position(tail.validBytes);
+            this.segmentBytes = tail.validBytes;
+            this.nextLsn = last.firstLsn + tail.recordCount;
+        }
+    }
+
+    /**
+     * Appends a record and returns its log sequence number.
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        return appendAll(Collections.singletonList(payload));
+    }
+
+    /**
+     * Appends several records with a single force to disk. The records go
+     * into one segment, which may take it past the size limit. Either all of
+     * them are appended or, if this throws, none are.
+     *
+     * @return The LSN of the first record
+     */
+    public synchronized long appendAll(List<byte[]> payloads) throws IOException {
+        checkUsable();
+        if (segmentBytes >= maxSegmentBytes) {
+            rollSegment();
+        }
+        long firstLsn = nextLsn;
+        long startBytes = segmentBytes;
+        try {
+            for (byte[] payload : payloads) {
+                write(payload);
+            }
+            if (syncOnAppend) {
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            rollBack(firstLsn, startBytes, e);
+            throw e;
+        }
+        return firstLsn;
+    }
+
+    /**
+     * Cuts the segment back to where a failed append started, so its partial
+     * frames can neither be replayed nor precede a later record.
+     */
+    private void rollBack(long firstLsn, long startBytes, Exception cause) {
+        try {
+            channel.truncate(startBytes);
+            channel.position(startBytes);
+            channel.force(false);
+            segmentBytes = startBytes;
+            nextLsn = firstLsn;
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            failure = e;
+        }
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-ahead log failed and accepts no more records", failure);
+        }
+    }
+
+    private long write(byte[] payload) throws IOException {
+        checksum.reset();
+        checksum.update(payload, 0, payload.length);
+        header.clear();
+        header.putInt(payload.length).putInt((int) checksum.getValue()).flip();
+
+        ByteBuffer[] frame = {header, ByteBuffer.wrap(payload)};
+        long frameBytes = HEADER_BYTES + payload.length;
+        long written = 0;
+        while (written < frameBytes) {
+            written += channel.write(frame);
+        }
+        segmentBytes += frameBytes;
+        return nextLsn++;
+    }
+
+    /**
+     * Gets the LSN the next appended record will receive.
+     */
+    public synchronized long getNextLsn() {
+        return nextLsn;
+    }
+
+    /**
+     * Reads all complete records with an LSN of at least fromLsn, in LSN order.
+     */
+    public void replay(long fromLsn, RecordVisitor visitor) throws IOException {
+        List<Segment> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            boolean hasNext = i + 1 < segments.size();
+            // Skip segments that end before the requested LSN
+            if (hasNext && segments.get(i + 1).firstLsn <= fromLsn) {
+                continue;
+            }
+            scan(segment, fromLsn, visitor);
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one at the next LSN,
+     * unless the current segment is still empty.
+     *
+     * @return The LSN of the first record in the new segment
+     */
+    public synchronized long roll() throws IOException {
+        checkUsable();
+        if (segmentBytes > 0) {
+            rollSegment();
+        }
+        return nextLsn;
+    }
+
+    /**
+     * Deletes every segment whose records all have an LSN below the given one.
+     * The segment currently being written is never deleted.
+     *
+     * @return The number of segments deleted
+     */
+    public int deleteSegmentsBefore(long lsn) throws IOException {
+        List<Segment> segments = listSegments();
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (segments.get(i + 1).firstLsn > lsn) {
+                break;
+            }
+            Files.deleteIfExists(segments.get(i).path);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Forces all appended records to disk.
+     */
+    public synchronized void sync() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    /**
+     * Closes the current segment and opens the next. A failure part way leaves
+     * no usable segment, so it fails the log.
+     */
+    private void rollSegment() throws IOException {
+        try {
+            channel.force(false);
+            channel.close();
+            openSegment(nextLsn);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    private void openSegment(long firstLsn) throws IOException {
+        Path path = directory.resolve(segmentName(firstLsn));
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.segmentBytes = 0;
+        this.nextLsn = firstLsn;
+    }
+
+    /**
+     * Reads one segment, visiting records from fromLsn onwards.
+     * Stops at the first incomplete or corrupt record.
+     */
+    private ScanResult scan(Segment segment, long fromLsn, RecordVisitor visitor) throws IOException {
+        ScanResult result = new ScanResult();
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(segment.path), 1 << 16))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] payload;
+                try {
+                    int expectedChecksum = in.readInt();
+                    if (length < 0) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload, 0, length);
+                    if ((int) crc.getValue() != expectedChecksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                long lsn = segment.firstLsn + result.recordCount;
+                if (visitor != null && lsn >= fromLsn) {
+                    visitor.visit(lsn, payload);
+                }
+                result.recordCount++;
+                result.validBytes += HEADER_BYTES + length;
+            }
+        }
+        return result;
+    }
+
+    private List<Segment> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Segment> segments = new ArrayList<>();
+            for (Path path : files.collect(Collectors.toList())) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    String lsn = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                    segments.add(new Segment(path, Long.parseLong(lsn)));
+                }
+            }
+            segments.sort((s1, s2) -> Long.compare(s1.firstLsn, s2.firstLsn));
+            return segments;
+        }
+    }
+
+    private static String segmentName(long firstLsn) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Callback for reading records during replay.
+     */
+    public interface RecordVisitor {
+        void visit(long lsn, byte[] payload) throws IOException;
+    }
+
+    private static class Segment {
+        final Path path;
+        final long firstLsn;
+
+        Segment(Path path, long firstLsn) {
+            this.path = path;
+            this.firstLsn = firstLsn;
+        }
+    }
+
+    private static class ScanResult {
+        long recordCount;
+        long validBytes;
+    }
+}
@@ -24,27 +24,65 @@ public interface ActivityService extends ActivityObserver {
     Activity recordActivity(ActivityType type, User actor, String description, String groupId);
 
     /**
-     * Gets all activities for a user.
+     * Records an activity built by one of Activity's factories.
+     */
+    Activity recordActivity(Activity activity);
+
+    /**
+     * Records a batch of activities, in order.
+     */
+    void recordActivities(List<Activity> activities);
+
+    /**
+     * Gets all activities for a user, newest first.
      */
     List<Activity> getActivitiesForUser(User user);
 
     /**
-     * Gets all activities for a group.
+     * Gets a page of activities for a user that are older than a cursor, newest first.
+     *
+     * @param beforeActivityId Id of the last activity already seen, or null for the newest
+     */
+    List<Activity> getActivitiesForUser(User user, String beforeActivityId, int limit);
+
+    /**
+     * Gets all activities for a group, newest first.
      */
     List<Activity> getActivitiesForGroup(String groupId);
 
     /**
-     * Gets recent activities with a limit.
+     * Gets a page of activities for a group that are older than a cursor, newest first.
+     *
+     * @param beforeActivityId Id of the last activity already seen, or null for the newest
+     */
+    List<Activity> getActivitiesForGroup(String groupId, String beforeActivityId, int limit);
+
+    /**
+     * Gets recent activities with a limit, newest first.
      */
     List<Activity> getRecentActivities(int limit);
 
     /**
-     * Gets activities by type.
+     * Gets a page of activities that are older than a cursor, newest first.
+     *
+     * @param beforeActivityId Id of the last activity already seen, or null for the newest
+     */
+    List<Activity> getRecentActivities(String beforeActivityId, int limit);
+
+    /**
+     * Gets activities by type, newest first.
      */
     List<Activity> getActivitiesByType(ActivityType type);
 
     /**
-     * Gets all activities.
+     * Gets a page of activities of a type that are older than a cursor, newest first.
+     *
+     * @param beforeActivityId Id of the last activity already seen, or null for the newest
+     */
+    List<Activity> getActivitiesByType(ActivityType type, String beforeActivityId, int limit);
+
+    /**
+     * Gets all activities, oldest first.
      */
     List<Activity> getAllActivities();
 }
@@ -3,80 +3,167 @@ package splitwise.service;
 import splitwise.model.Activity;
 import splitwise.model.ActivityType;
 import splitwise.model.User;
+import splitwise.util.TimelineIndex;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of ActivityService.
  * Single Responsibility: Only handles activity recording and retrieval.
  * Observer Pattern: Implements ActivityObserver to receive activity notifications.
+ *
+ * Activities are kept in an append-only log, which is already in recording
+ * order. Per-user, per-group and per-type indexes hold log positions, so
+ * "latest N" reads cost O(N) and cursor pages cost O(log n + N), with no
+ * sorting at read time.
+ * Thread-safe: the log and its indexes are guarded by this service's monitor,
+ * so a read never sees an append half done.
  */
 public class ActivityServiceImpl implements ActivityService {
-    private final Map<String, Activity> activitiesById;
+    private final List<Activity> log;
+    private final Map<String, Integer> positionsById;
+    private final TimelineIndex<String> userIndex;
+    private final TimelineIndex<String> groupIndex;
+    private final TimelineIndex<ActivityType> typeIndex;
 
     public ActivityServiceImpl() {
-        this.activitiesById = new HashMap<>();
+        this.log = new ArrayList<>();
+        this.positionsById = new HashMap<>();
+        this.userIndex = new TimelineIndex<>();
+        this.groupIndex = new TimelineIndex<>();
+        this.typeIndex = new TimelineIndex<>();
     }
 
     @Override
-    public Activity recordActivity(ActivityType type, User actor, String description) {
+    public synchronized Activity recordActivity(ActivityType type, User actor, String description) {
         Activity activity = new Activity(type, actor, description);
-        activitiesById.put(activity.getId(), activity);
+        append(activity);
         return activity;
     }
 
     @Override
-    public Activity recordActivity(ActivityType type, User actor, String description, String groupId) {
+    public synchronized Activity recordActivity(ActivityType type, User actor, String description, String groupId) {
         Activity activity = new Activity(type, actor, description, groupId);
-        activitiesById.put(activity.getId(), activity);
+        append(activity);
         return activity;
     }
 
+    @Override
+    public synchronized Activity recordActivity(Activity activity) {
+        append(activity);
+        return activity;
+    }
+
+    @Override
+    public synchronized void recordActivities(List<Activity> activities) {
+        for (Activity activity : activities) {
+            onActivityRecorded(activity);
+        }
+    }
+
     @Override
     public List<Activity> getActivitiesForUser(User user) {
-        return activitiesById.values().stream()
-                .filter(a -> a.involvesUser(user))
-                .sorted(Comparator.comparing(Activity::getTimestamp).reversed())
-                .collect(Collectors.toList());
+        return getActivitiesForUser(user, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized List<Activity> getActivitiesForUser(User user, String beforeActivityId, int limit) {
+        return resolve(userIndex.newest(user.getId(), cursor(beforeActivityId), limit));
     }
 
     @Override
     public List<Activity> getActivitiesForGroup(String groupId) {
-        return activitiesById.values().stream()
-                .filter(a -> groupId.equals(a.getGroupId()))
-                .sorted(Comparator.comparing(Activity::getTimestamp).reversed())
-                .collect(Collectors.toList());
+        return getActivitiesForGroup(groupId, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized List<Activity> getActivitiesForGroup(String groupId, String beforeActivityId, int limit) {
+        return resolve(groupIndex.newest(groupId, cursor(beforeActivityId), limit));
     }
 
     @Override
     public List<Activity> getRecentActivities(int limit) {
-        return activitiesById.values().stream()
-                .sorted(Comparator.comparing(Activity::getTimestamp).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        return getRecentActivities(null, limit);
+    }
+
+    @Override
+    public synchronized List<Activity> getRecentActivities(String beforeActivityId, int limit) {
+        int end = Math.min(cursor(beforeActivityId), log.size());
+        int count = Math.max(0, Math.min(limit, end));
+        List<Activity> activities = new ArrayList<>(count);
+        for (int i = end - 1; i >= end - count; i--) {
+            activities.add(log.get(i));
+        }
+        return activities;
     }
 
     @Override
     public List<Activity> getActivitiesByType(ActivityType type) {
-        return activitiesById.values().stream()
-                .filter(a -> a.getType() == type)
-                .sorted(Comparator.comparing(Activity::getTimestamp).reversed())
-                .collect(Collectors.toList());
+        return getActivitiesByType(type, null, Integer.MAX_VALUE);
     }
 
     @Override
-    public List<Activity> getAllActivities() {
-        return new ArrayList<>(activitiesById.values());
+    public synchronized List<Activity> getActivitiesByType(ActivityType type, String beforeActivityId, int limit) {
+        return resolve(typeIndex.newest(type, cursor(beforeActivityId), limit));
     }
 
     @Override
-    public void onActivityRecorded(Activity activity) {
+    public synchronized List<Activity> getAllActivities() {
+        return new ArrayList<>(log);
+    }
+
+    @Override
+    public synchronized void onActivityRecorded(Activity activity) {
         // Store the activity when received through observer pattern
-        activitiesById.put(activity.getId(), activity);
+        if (!positionsById.containsKey(activity.getId())) {
+            append(activity);
+        }
+    }
+
+    /**
+     * Appends an activity to the log and indexes it.
+     * Users are indexed from the actor and the "involvedUsers" metadata at record time.
+     */
+    private void append(Activity activity) {
+        int position = log.size();
+        log.add(activity);
+        positionsById.put(activity.getId(), position);
+
+        userIndex.add(activity.getActor().getId(), position);
+        Object involvedUsers = activity.getMetadata("involvedUsers");
+        if (involvedUsers instanceof Iterable) {
+            for (Object user : (Iterable<?>) involvedUsers) {
+                if (user instanceof User) {
+                    userIndex.add(((User) user).getId(), position);
+                }
+            }
+        }
+        if (activity.getGroupId() != null) {
+            groupIndex.add(activity.getGroupId(), position);
+        }
+        typeIndex.add(activity.getType(), position);
+    }
+
+    /**
+     * Converts an "older than" activity id into a log position cursor.
+     * A null or unknown id means "start from the newest activity".
+     */
+    private int cursor(String beforeActivityId) {
+        if (beforeActivityId == null) {
+            return Integer.MAX_VALUE;
+        }
+        Integer position = positionsById.get(beforeActivityId);
+        return position == null ? Integer.MAX_VALUE : position;
+    }
+
+    private List<Activity> resolve(int[] positions) {
+        List<Activity> activities = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            activities.add(log.get(position));
+        }
+        return activities;
     }
 }
@@ -1,15 +1,24 @@
 package splitwise.service;
 
+import splitwise.ledger.BalanceLedger;
 import splitwise.model.Balance;
+import splitwise.model.Currency;
 import splitwise.model.Expense;
+import splitwise.model.Group;
+import splitwise.model.Transaction;
 import splitwise.model.User;
+import splitwise.util.ParallelSimplifier;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Service interface for balance management operations.
  * Interface Segregation: Only defines balance-specific methods.
+ * All amounts are in cents. Balances are kept per currency; reads about one
+ * user are converted to that user's preferred currency at the latest rates.
  */
 public interface BalanceService {
 
@@ -18,41 +27,145 @@ public interface BalanceService {
      */
     void updateBalancesForExpense(Expense expense);
 
+    /**
+     * Updates balances for a batch of new expenses.
+     * Changes are summed per user pair and applied to the ledger in one pass.
+     */
+    void updateBalancesForExpenses(List<Expense> expenses);
+
     /**
      * Reverses balance updates for a deleted expense.
      */
     void reverseBalancesForExpense(Expense expense);
 
     /**
-     * Gets all balances for a user.
+     * Rebuilds per-group balances from the surviving group expenses and group
+     * payments, leaving global balances untouched (e.g. after loading a
+     * snapshot, whose global balances are restored as they were).
+     */
+    void restoreGroupBalances(List<Expense> expenses, List<Transaction> transactions);
+
+    /**
+     * Restores one group's balances as saved in a snapshot, leaving global
+     * balances untouched.
+     */
+    void restoreGroupBalances(String groupId, List<Balance> balances);
+
+    /**
+     * Gets every group's non-zero balances as they were at a ledger checkpoint,
+     * one per user pair and currency (e.g. for a snapshot).
+     *
+     * @return Group id -> balances, for groups with any
+     */
+    Map<String, List<Balance>> getGroupBalancesAt(BalanceLedger.Checkpoint checkpoint);
+
+    /**
+     * Gets all balances for a user, in the user's preferred currency.
+     */
+    Map<String, Long> getBalancesForUser(User user);
+
+    /**
+     * Gets the balance between two users, in user1's preferred currency.
+     */
+    long getBalanceBetween(User user1, User user2);
+
+    /**
+     * Gets the balance between two users per currency, unconverted, indexed by
+     * Currency ordinal (positive = user2 owes user1).
+     */
+    long[] getBalanceVector(User user1, User user2);
+
+    /**
+     * Gets the net balance of a user in their preferred currency
+     * (positive = net creditor, negative = net debtor).
+     */
+    long getNetBalance(User user);
+
+    /**
+     * Gets the total amount a user owes to others, in their preferred currency.
      */
-    Map<String, Double> getBalancesForUser(User user);
+    long getTotalOwed(User user);
 
     /**
-     * Gets the balance between two users.
+     * Gets the total amount others owe a user, in their preferred currency.
      */
-    double getBalanceBetween(User user1, User user2);
+    long getTotalOwedToMe(User user);
 
     /**
-     * Gets all non-zero balances in the system.
+     * Gets all non-zero balances in the system, one per user pair and currency.
      */
     List<Balance> getAllBalances();
 
     /**
-     * Gets all balances for a specific group.
+     * Gets all non-zero balances arising from a group's expenses and payments,
+     * one per user pair and currency.
      */
     List<Balance> getBalancesForGroup(String groupId);
 
     /**
-     * Settles the debt between two users.
+     * Gets a member's net balance within a group in their preferred currency
+     * (positive = net creditor).
      */
-    void settleBalance(User fromUser, User toUser, double amount);
+    long getGroupNetBalance(String groupId, User user);
 
     /**
-     * Gets simplified balances (minimum transactions to settle all debts).
+     * Gets the net balance within a group of each given member, converted to
+     * one currency, in O(members). The nets are rounded together, so the nets
+     * of all members sum to zero, as they do before conversion.
+     */
+    Map<User, Long> getGroupNetBalances(String groupId, Collection<User> members, Currency currency);
+
+    /**
+     * Gets the minimum transactions, in the given currency, that settle the debts within a group.
+     */
+    List<Balance> getSimplifiedGroupBalances(String groupId, Collection<User> members, Currency currency);
+
+    /**
+     * Gets the minimum transactions that settle the debts within a group, searching
+     * exactly for at most timeBudget before settling the rest greedily.
+     */
+    List<Balance> getSimplifiedGroupBalances(String groupId, Collection<User> members, Currency currency,
+                                             Duration timeBudget);
+
+    /**
+     * Simplifies the debts within every given group in parallel, in each group's
+     * default currency and within its own time budget. Each group's result is
+     * passed to the listener as soon as it is ready, from a pool thread; returns
+     * once every group is done.
+     */
+    void simplifyGroups(Collection<Group> groups, Duration timeBudget,
+                        ParallelSimplifier.ResultListener<String> listener);
+
+    /**
+     * Splits all outstanding debts into the connected components of the debt graph
+     * and simplifies the components in parallel, in the given currency. The listener
+     * receives each component's members and its result, from a pool thread.
+     */
+    void simplifyComponents(Currency currency, Duration timeBudget,
+                            ParallelSimplifier.ResultListener<List<User>> listener);
+
+    /**
+     * Settles the debt between two users in one currency.
+     */
+    void settleBalance(User fromUser, User toUser, long amountCents, Currency currency);
+
+    /**
+     * Settles debt between two users within a group: both the global balance
+     * and the group's balance are reduced. A null groupId settles globally only.
+     */
+    void settleBalance(User fromUser, User toUser, long amountCents, Currency currency, String groupId);
+
+    /**
+     * Gets simplified balances (minimum transactions to settle all debts) in USD.
      */
     List<Balance> getSimplifiedBalances(List<User> users);
 
+    /**
+     * Gets simplified balances in the given currency, searching exactly for at
+     * most timeBudget before settling the rest greedily.
+     */
+    List<Balance> getSimplifiedBalances(List<User> users, Currency currency, Duration timeBudget);
+
     /**
      * Prints a summary of balances for a user.
      */
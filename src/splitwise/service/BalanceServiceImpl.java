@@ -1,96 +1,454 @@
 package splitwise.service;
 
+import splitwise.exception.UserNotFoundException;
+import splitwise.ledger.BalanceLedger;
+import splitwise.ledger.CurrencyVectors;
+import splitwise.ledger.GroupLedger;
+import splitwise.ledger.LedgerBatch;
+import splitwise.ledger.IdInterner;
 import splitwise.model.Balance;
 import splitwise.model.Currency;
 import splitwise.model.Expense;
+import splitwise.model.Group;
+import splitwise.model.Transaction;
 import splitwise.model.User;
-import splitwise.model.split.Split;
-import splitwise.util.BalanceSimplifier;
+import splitwise.model.split.SplitShares;
+import splitwise.util.DebtSimplifier;
+import splitwise.util.Ids;
+import splitwise.util.IntList;
+import splitwise.util.ParallelSimplifier;
+import splitwise.util.RateTable;
+import splitwise.util.SettlementPlan;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Implementation of BalanceService.
  * Single Responsibility: Only handles balance calculations and updates.
+ * Thread Safety: All balance state lives in a concurrent BalanceLedger.
+ *
+ * Group expenses and payments are also applied to that group's GroupLedger,
+ * so per-group balances are maintained incrementally alongside the global ones.
+ * Bulk simplification runs on a ParallelSimplifier, one task per group or component.
+ *
+ * Simplified plans are cached (one per group, one for the last global user list).
+ * A group plan whose version matches its GroupLedger is returned as is; otherwise,
+ * like the global plan, it is repaired for the users whose nets changed.
+ *
+ * Balances are kept per currency and never converted on write. Reads convert
+ * each pair's vector with one dot product against a rate snapshot, which is
+ * rebuilt only when the CurrencyService's rate table changes.
  */
 public class BalanceServiceImpl implements BalanceService {
+    private final BalanceLedger ledger;
+    private final Map<String, GroupLedger> groupLedgers;
+    private final UserService userService; // Resolves user ids in balance lists
+    private final CurrencyService currencyService;
+    private final ParallelSimplifier parallelSimplifier;
+    private final Map<String, CachedPlan> groupPlans;
+    private final AtomicReference<SettlementPlan> globalPlan;
+    private volatile RateSnapshot rateSnapshot;
 
-    public BalanceServiceImpl() {
+    public BalanceServiceImpl(BalanceLedger ledger, UserService userService) {
+        this(ledger, userService, new CurrencyServiceImpl());
+    }
+
+    public BalanceServiceImpl(BalanceLedger ledger, UserService userService, CurrencyService currencyService) {
+        this(ledger, userService, currencyService, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param currencyService    Supplies the rates balances are converted at when read
+     * @param simplificationPool The pool that bulk simplification runs on
+     */
+    public BalanceServiceImpl(BalanceLedger ledger, UserService userService, CurrencyService currencyService,
+                              ForkJoinPool simplificationPool) {
+        this.ledger = ledger;
+        this.groupLedgers = new ConcurrentHashMap<>();
+        this.userService = userService;
+        this.currencyService = currencyService;
+        this.parallelSimplifier = new ParallelSimplifier(simplificationPool);
+        this.groupPlans = new ConcurrentHashMap<>();
+        this.globalPlan = new AtomicReference<>();
     }
 
     @Override
     public void updateBalancesForExpense(Expense expense) {
-        User payer = expense.getPaidBy();
-        List<Split> splits = expense.getSplits();
-
-        for (Split split : splits) {
-            User participant = split.getUser();
-            double amount = split.getAmount();
+        applyExpense(expense, 1, true);
+    }
 
-            if (!participant.equals(payer)) {
-                // Participant owes the payer
-                // From payer's perspective: participant owes me (positive balance)
-                payer.updateBalance(participant.getId(), amount);
-                // From participant's perspective: I owe payer (negative balance)
-                participant.updateBalance(payer.getId(), -amount);
+    @Override
+    public void updateBalancesForExpenses(List<Expense> expenses) {
+        IdInterner interner = ledger.getInterner();
+        LedgerBatch batch = new LedgerBatch();
+        Map<String, LedgerBatch> groupBatches = new LinkedHashMap<>();
+        for (Expense expense : expenses) {
+            LedgerBatch groupBatch = expense.getGroupId() == null ? null
+                    : groupBatches.computeIfAbsent(expense.getGroupId(), id -> new LedgerBatch());
+            int payer = interner.intern(expense.getPaidBy().getId());
+            Currency currency = expense.getCurrency();
+            SplitShares shares = expense.getShares();
+            for (int i = 0; i < shares.size(); i++) {
+                // Participant owes the payer; the payer's own share is ignored by the batch
+                int participant = interner.intern(shares.getUser(i).getId());
+                batch.add(payer, participant, currency, shares.getAmountCents(i));
+                if (groupBatch != null) {
+                    groupBatch.add(payer, participant, currency, shares.getAmountCents(i));
+                }
             }
         }
+        ledger.apply(batch);
+        for (Map.Entry<String, LedgerBatch> entry : groupBatches.entrySet()) {
+            groupLedgerFor(entry.getKey()).apply(entry.getValue());
+        }
     }
 
     @Override
     public void reverseBalancesForExpense(Expense expense) {
-        User payer = expense.getPaidBy();
-        List<Split> splits = expense.getSplits();
+        applyExpense(expense, -1, true);
+    }
 
-        for (Split split : splits) {
-            User participant = split.getUser();
-            double amount = split.getAmount();
+    @Override
+    public void restoreGroupBalances(List<Expense> expenses, List<Transaction> transactions) {
+        for (Expense expense : expenses) {
+            if (expense.getGroupId() != null) {
+                applyExpense(expense, 1, false);
+            }
+        }
+        IdInterner interner = ledger.getInterner();
+        for (Transaction transaction : transactions) {
+            if (transaction.getGroupId() != null) {
+                groupLedgerFor(transaction.getGroupId()).apply(interner.intern(transaction.getToUser().getId()),
+                        interner.intern(transaction.getFromUser().getId()), transaction.getCurrency(),
+                        -transaction.getAmountCents());
+            }
+        }
+    }
+
+    @Override
+    public void restoreGroupBalances(String groupId, List<Balance> balances) {
+        GroupLedger groupLedger = groupLedgerFor(groupId);
+        IdInterner interner = ledger.getInterner();
+        for (Balance balance : balances) {
+            groupLedger.apply(interner.intern(balance.getToUser().getId()),
+                    interner.intern(balance.getFromUser().getId()), balance.getCurrency(), balance.getAmountCents());
+        }
+    }
+
+    @Override
+    public Map<String, List<Balance>> getGroupBalancesAt(BalanceLedger.Checkpoint checkpoint) {
+        Map<String, List<Balance>> balances = new LinkedHashMap<>();
+        for (GroupLedger groupLedger : groupLedgers.values()) {
+            List<Balance> groupBalances = new ArrayList<>();
+            checkpoint.forEachGroupBalance(groupLedger, (creditorId, debtorId, currency, amountCents) ->
+                    groupBalances.add(new Balance(user(debtorId), user(creditorId), amountCents, currency)));
+            if (!groupBalances.isEmpty()) {
+                balances.put(groupLedger.getGroupId(), groupBalances);
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Applies an expense's shares (sign 1) or reverses them (sign -1) in the
+     * group's ledger for a group expense and, if global is set, in the global ledger.
+     */
+    private void applyExpense(Expense expense, int sign, boolean global) {
+        IdInterner interner = ledger.getInterner();
+        GroupLedger groupLedger = expense.getGroupId() == null ? null : groupLedgerFor(expense.getGroupId());
+        int payer = interner.intern(expense.getPaidBy().getId());
+        Currency currency = expense.getCurrency();
+        SplitShares shares = expense.getShares();
 
-            if (!participant.equals(payer)) {
-                // Reverse the balance updates
-                payer.updateBalance(participant.getId(), -amount);
-                participant.updateBalance(payer.getId(), amount);
+        for (int i = 0; i < shares.size(); i++) {
+            int participant = interner.intern(shares.getUser(i).getId());
+            long amountCents = sign * shares.getAmountCents(i);
+
+            if (participant != payer) {
+                // Participant owes the payer
+                if (global) {
+                    ledger.apply(payer, participant, currency, amountCents);
+                }
+                if (groupLedger != null) {
+                    groupLedger.apply(payer, participant, currency, amountCents);
+                }
             }
         }
     }
 
     @Override
-    public Map<String, Double> getBalancesForUser(User user) {
-        return user.getBalances();
+    public Map<String, Long> getBalancesForUser(User user) {
+        return ledger.getBalances(user.getId(), ratesTo(user.getPreferredCurrency()));
     }
 
     @Override
-    public double getBalanceBetween(User user1, User user2) {
-        return user1.getBalanceWith(user2.getId());
+    public long getBalanceBetween(User user1, User user2) {
+        return ledger.getBalance(user1.getId(), user2.getId(), ratesTo(user1.getPreferredCurrency()));
+    }
+
+    @Override
+    public long[] getBalanceVector(User user1, User user2) {
+        long[] vector = new long[CurrencyVectors.SIZE];
+        ledger.getBalanceVector(user1.getId(), user2.getId(), vector);
+        return vector;
+    }
+
+    @Override
+    public long getNetBalance(User user) {
+        return ledger.getNetBalance(user.getId(), ratesTo(user.getPreferredCurrency()));
+    }
+
+    @Override
+    public long getTotalOwed(User user) {
+        return ledger.getTotalOwed(user.getId(), ratesTo(user.getPreferredCurrency()));
+    }
+
+    @Override
+    public long getTotalOwedToMe(User user) {
+        return ledger.getTotalOwedToMe(user.getId(), ratesTo(user.getPreferredCurrency()));
     }
 
     @Override
     public List<Balance> getAllBalances() {
-        // This would require access to all users, which should be injected
-        // For now, return empty list - full implementation needs UserService
-        return new ArrayList<>();
+        List<Balance> balances = new ArrayList<>();
+        ledger.forEachBalance((creditorId, debtorId, currency, amountCents) ->
+                balances.add(new Balance(user(debtorId), user(creditorId), amountCents, currency)));
+        return balances;
     }
 
     @Override
     public List<Balance> getBalancesForGroup(String groupId) {
-        // Would need GroupService and all users - simplified implementation
-        return new ArrayList<>();
+        List<Balance> balances = new ArrayList<>();
+        GroupLedger groupLedger = groupLedgers.get(groupId);
+        if (groupLedger != null) {
+            groupLedger.forEachBalance((creditorId, debtorId, currency, amountCents) ->
+                    balances.add(new Balance(user(debtorId), user(creditorId), amountCents, currency)));
+        }
+        return balances;
+    }
+
+    @Override
+    public long getGroupNetBalance(String groupId, User user) {
+        GroupLedger groupLedger = groupLedgers.get(groupId);
+        if (groupLedger == null) {
+            return 0L;
+        }
+        return groupLedger.getNetBalance(ledger.getInterner().lookup(user.getId()),
+                ratesTo(user.getPreferredCurrency()));
+    }
+
+    @Override
+    public Map<User, Long> getGroupNetBalances(String groupId, Collection<User> members, Currency currency) {
+        GroupLedger groupLedger = groupLedgers.get(groupId);
+        User[] users = members.toArray(new User[0]);
+        long[] nets = new long[users.length];
+        if (groupLedger != null) {
+            groupLedger.readNetBalances(denseIds(users), ratesTo(currency), nets);
+        }
+        return toMap(users, nets);
+    }
+
+    @Override
+    public List<Balance> getSimplifiedGroupBalances(String groupId, Collection<User> members, Currency currency) {
+        return getSimplifiedGroupBalances(groupId, members, currency, DebtSimplifier.DEFAULT_TIME_BUDGET);
+    }
+
+    @Override
+    public List<Balance> getSimplifiedGroupBalances(String groupId, Collection<User> members, Currency currency,
+                                                    Duration timeBudget) {
+        GroupLedger groupLedger = groupLedgers.get(groupId);
+        if (groupLedger == null) {
+            return Collections.emptyList();
+        }
+        RateSnapshot snapshot = rateSnapshot();
+        CachedPlan cached = groupPlans.get(groupId);
+        boolean reusable = cached != null && cached.plan.getCurrency() == currency
+                && cached.plan.coversExactly(members);
+        if (reusable && cached.rates == snapshot && cached.plan.getVersion() == groupLedger.getVersion()) {
+            return cached.plan.getBalances();
+        }
+
+        // Read every member's net at one version, so the plan matches that version
+        User[] users = members.toArray(new User[0]);
+        long[] nets = new long[users.length];
+        long version = groupLedger.readNetBalances(denseIds(users), snapshot.ratesTo(currency), nets);
+        Map<User, Long> netBalances = toMap(users, nets);
+
+        // New rates can change nets without a new version; update compares them net by net
+        SettlementPlan updated = reusable ? cached.plan.update(version, netBalances, timeBudget)
+                : SettlementPlan.create(version, currency, netBalances, timeBudget);
+        // Keep whichever plan is newer if another caller raced us
+        groupPlans.merge(groupId, new CachedPlan(updated, snapshot), (current, candidate) ->
+                candidate.plan.getVersion() >= current.plan.getVersion() ? candidate : current);
+        return updated.getBalances();
+    }
+
+    @Override
+    public void simplifyGroups(Collection<Group> groups, Duration timeBudget,
+                               ParallelSimplifier.ResultListener<String> listener) {
+        Map<String, Group> groupsById = new LinkedHashMap<>();
+        for (Group group : groups) {
+            groupsById.put(group.getId(), group);
+        }
+        // Same path as a single-group read, so cached plans are reused and kept up to date
+        parallelSimplifier.solveAll(new ArrayList<>(groupsById.keySet()), groupId -> {
+            Group group = groupsById.get(groupId);
+            return getSimplifiedGroupBalances(groupId, group.getMembers(), group.getDefaultCurrency(), timeBudget);
+        }, listener);
     }
 
     @Override
-    public void settleBalance(User fromUser, User toUser, double amount) {
+    public void simplifyComponents(Currency currency, Duration timeBudget,
+                                   ParallelSimplifier.ResultListener<List<User>> listener) {
+        double[] rates = ratesTo(currency);
+        parallelSimplifier.simplifyAll(findComponents(), members -> netBalances(members, rates), timeBudget,
+                (members, balances) -> {
+                    for (Balance balance : balances) {
+                        balance.setCurrency(currency);
+                    }
+                    listener.onSimplified(members, balances);
+                });
+    }
+
+    /**
+     * Splits the users with outstanding balances into the connected components
+     * of the debt graph, using union-find over dense ids. Debts never cross
+     * components, so each one can be simplified on its own.
+     */
+    private List<List<User>> findComponents() {
+        IdInterner interner = ledger.getInterner();
+        IntList edges = new IntList();
+        ledger.forEachBalance((creditorId, debtorId, currency, amountCents) -> {
+            edges.add(interner.lookup(creditorId));
+            edges.add(interner.lookup(debtorId));
+        });
+
+        int[] parent = new int[interner.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < edges.size(); i += 2) {
+            parent[find(parent, edges.get(i))] = find(parent, edges.get(i + 1));
+        }
+
+        Map<Integer, List<User>> components = new LinkedHashMap<>();
+        boolean[] seen = new boolean[parent.length];
+        for (int i = 0; i < edges.size(); i++) {
+            int member = edges.get(i);
+            if (!seen[member]) {
+                seen[member] = true;
+                components.computeIfAbsent(find(parent, member), root -> new ArrayList<>())
+                        .add(user(interner.externalId(member)));
+            }
+        }
+        return new ArrayList<>(components.values());
+    }
+
+    private static int find(int[] parent, int member) {
+        while (parent[member] != member) {
+            parent[member] = parent[parent[member]]; // Path halving
+            member = parent[member];
+        }
+        return member;
+    }
+
+    @Override
+    public void settleBalance(User fromUser, User toUser, long amountCents, Currency currency) {
+        settleBalance(fromUser, toUser, amountCents, currency, null);
+    }
+
+    @Override
+    public void settleBalance(User fromUser, User toUser, long amountCents, Currency currency, String groupId) {
         // fromUser pays toUser
         // This reduces what fromUser owes to toUser
-        fromUser.updateBalance(toUser.getId(), amount);
-        toUser.updateBalance(fromUser.getId(), -amount);
+        IdInterner interner = ledger.getInterner();
+        int creditor = interner.intern(toUser.getId());
+        int debtor = interner.intern(fromUser.getId());
+        ledger.apply(creditor, debtor, currency, -amountCents);
+        if (groupId != null) {
+            groupLedgerFor(groupId).apply(creditor, debtor, currency, -amountCents);
+        }
+    }
+
+    private GroupLedger groupLedgerFor(String groupId) {
+        return groupLedgers.computeIfAbsent(groupId, id -> new GroupLedger(id, ledger));
+    }
+
+    private User user(String userId) {
+        return userService.getUserById(userId).orElseThrow(() -> new UserNotFoundException(userId));
+    }
+
+    /**
+     * Reads the converted net balances of several users, rounded so that they sum to zero.
+     */
+    private Map<User, Long> netBalances(Collection<User> users, double[] rates) {
+        User[] array = users.toArray(new User[0]);
+        long[] nets = new long[array.length];
+        ledger.readNetBalances(denseIds(array), rates, nets);
+        return toMap(array, nets);
+    }
+
+    private int[] denseIds(User[] users) {
+        IdInterner interner = ledger.getInterner();
+        int[] ids = new int[users.length];
+        for (int i = 0; i < users.length; i++) {
+            ids[i] = interner.lookup(users[i].getId());
+        }
+        return ids;
+    }
+
+    private static Map<User, Long> toMap(User[] users, long[] nets) {
+        Map<User, Long> netBalances = new LinkedHashMap<>();
+        for (int i = 0; i < users.length; i++) {
+            netBalances.put(users[i], nets[i]);
+        }
+        return netBalances;
+    }
+
+    private double[] ratesTo(Currency currency) {
+        return rateSnapshot().ratesTo(currency);
+    }
+
+    /**
+     * Gets the conversion vectors for the current rate table, rebuilding them
+     * only when the table has been replaced.
+     */
+    private RateSnapshot rateSnapshot() {
+        RateTable table = currencyService.getRateTable();
+        RateSnapshot snapshot = rateSnapshot;
+        if (snapshot == null || snapshot.table != table) {
+            snapshot = new RateSnapshot(table);
+            rateSnapshot = snapshot; // Racing rebuilds are equivalent, so the last one wins
+        }
+        return snapshot;
     }
 
     @Override
     public List<Balance> getSimplifiedBalances(List<User> users) {
-        return BalanceSimplifier.simplify(users);
+        return getSimplifiedBalances(users, Currency.USD, DebtSimplifier.DEFAULT_TIME_BUDGET);
+    }
+
+    @Override
+    public List<Balance> getSimplifiedBalances(List<User> users, Currency currency, Duration timeBudget) {
+        // Net balances are O(1) reads of the ledger's running per-currency totals
+        Map<User, Long> netBalances = netBalances(users, ratesTo(currency));
+        // The global ledger has no single version, so the plan is checked net by net
+        SettlementPlan plan = globalPlan.get();
+        SettlementPlan updated = plan != null && plan.getCurrency() == currency && plan.coversExactly(users)
+                ? plan.update(0, netBalances, timeBudget)
+                : SettlementPlan.create(0, currency, netBalances, timeBudget);
+        // Cache only if no other caller replaced the plan meanwhile; theirs may be from newer nets
+        globalPlan.compareAndSet(plan, updated);
+        return updated.getBalances();
     }
 
     @Override
@@ -98,32 +456,67 @@ public class BalanceServiceImpl implements BalanceService {
         StringBuilder summary = new StringBuilder();
         summary.append("Balance Summary for ").append(user.getName()).append(":\n");
 
-        Map<String, Double> balances = user.getBalances();
+        Currency currency = user.getPreferredCurrency();
+        double[] rates = ratesTo(currency);
+        Map<String, Long> balances = ledger.getBalances(user.getId(), rates);
         if (balances.isEmpty()) {
             summary.append("  All settled up!\n");
             return summary.toString();
         }
 
-        double totalOwed = 0;
-        double totalOwedToMe = 0;
-
-        for (Map.Entry<String, Double> entry : balances.entrySet()) {
-            double amount = entry.getValue();
-            if (amount > 0) {
-                summary.append(String.format("  + You are owed $%.2f (from user %s...)\n",
-                                             amount, entry.getKey().substring(0, 8)));
-                totalOwedToMe += amount;
-            } else if (amount < 0) {
-                summary.append(String.format("  - You owe $%.2f (to user %s...)\n",
-                                             Math.abs(amount), entry.getKey().substring(0, 8)));
-                totalOwed += Math.abs(amount);
+        for (Map.Entry<String, Long> entry : balances.entrySet()) {
+            long amountCents = entry.getValue();
+            if (amountCents > 0) {
+                summary.append(String.format("  + You are owed %s (from user %s...)\n",
+                                             currency.formatCents(amountCents), Ids.shortForm(entry.getKey())));
+            } else if (amountCents < 0) {
+                summary.append(String.format("  - You owe %s (to user %s...)\n",
+                                             currency.formatCents(-amountCents), Ids.shortForm(entry.getKey())));
             }
         }
 
-        summary.append(String.format("\nTotal you owe: $%.2f\n", totalOwed));
-        summary.append(String.format("Total owed to you: $%.2f\n", totalOwedToMe));
-        summary.append(String.format("Net balance: $%.2f\n", totalOwedToMe - totalOwed));
+        // Totals are maintained by the ledger, so they need no second pass
+        long totalOwed = ledger.getTotalOwed(user.getId(), rates);
+        long totalOwedToMe = ledger.getTotalOwedToMe(user.getId(), rates);
+
+        summary.append("\nTotal you owe: ").append(currency.formatCents(totalOwed)).append('\n');
+        summary.append("Total owed to you: ").append(currency.formatCents(totalOwedToMe)).append('\n');
+        summary.append("Net balance: ").append(currency.formatCents(totalOwedToMe - totalOwed)).append('\n');
 
         return summary.toString();
     }
+
+    /**
+     * Conversion vectors from every currency to each currency, built from one rate table.
+     */
+    private static final class RateSnapshot {
+        private final RateTable table;
+        private final double[][] ratesByTarget; // Indexed by target currency ordinal
+
+        RateSnapshot(RateTable table) {
+            this.table = table;
+            Currency[] currencies = Currency.values();
+            this.ratesByTarget = new double[currencies.length][];
+            for (Currency target : currencies) {
+                ratesByTarget[target.ordinal()] = table.conversionVector(target);
+            }
+        }
+
+        double[] ratesTo(Currency currency) {
+            return ratesByTarget[currency.ordinal()];
+        }
+    }
+
+    /**
+     * A settlement plan together with the rates its nets were converted at.
+     */
+    private static final class CachedPlan {
+        private final SettlementPlan plan;
+        private final RateSnapshot rates;
+
+        CachedPlan(SettlementPlan plan, RateSnapshot rates) {
+            this.plan = plan;
+            this.rates = rates;
+        }
+    }
 }
@@ -1,6 +1,10 @@
 package splitwise.service;
 
 import splitwise.model.Currency;
+import splitwise.util.RateTable;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
 
 /**
  * Service interface for currency conversion operations.
@@ -13,6 +17,41 @@ public interface CurrencyService {
      */
     double convert(double amount, Currency from, Currency to);
 
+    /**
+     * Converts an amount in cents from one currency to another.
+     */
+    long convertCents(long amountCents, Currency from, Currency to);
+
+    /**
+     * Converts many amounts in cents between the same two currencies in one call.
+     */
+    long[] convertCents(long[] amountsCents, Currency from, Currency to);
+
+    /**
+     * Converts many amounts in cents, each in its own currency, to one currency
+     * in one call, using a single consistent set of rates.
+     */
+    long[] convertCents(long[] amountsCents, Currency[] currencies, Currency to);
+
+    /**
+     * Converts an amount in cents at the rate in effect on a date (the latest
+     * rate if the rate history does not cover it).
+     */
+    long convertCents(long amountCents, Currency from, Currency to, LocalDate date);
+
+    /**
+     * Converts many amounts in cents, each in its own currency and at the rate
+     * of its own day, to one currency in one call.
+     *
+     * @param epochDays Day of each amount (LocalDate.toEpochDay)
+     */
+    long[] convertCents(long[] amountsCents, Currency[] currencies, long[] epochDays, Currency to);
+
+    /**
+     * Loads historical exchange rates from a CSV file of date,from,to,rate lines.
+     */
+    void loadRateHistory(Path csvFile);
+
     /**
      * Updates the exchange rate between two currencies.
      */
@@ -23,6 +62,12 @@ public interface CurrencyService {
      */
     double getExchangeRate(Currency from, Currency to);
 
+    /**
+     * Gets the current (latest) exchange rates. The table is immutable, so a
+     * caller may cache values derived from it for as long as it is current.
+     */
+    RateTable getRateTable();
+
     /**
      * Checks if conversion is available between two currencies.
      */
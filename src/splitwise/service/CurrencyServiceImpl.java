@@ -1,8 +1,11 @@
 package splitwise.service;
 
-import splitwise.exception.InvalidCurrencyException;
 import splitwise.model.Currency;
 import splitwise.util.CurrencyConverter;
+import splitwise.util.RateTable;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
 
 /**
  * Implementation of CurrencyService.
@@ -22,12 +25,46 @@ public class CurrencyServiceImpl implements CurrencyService {
 
     @Override
     public double convert(double amount, Currency from, Currency to) {
-        if (!isConversionAvailable(from, to)) {
-            throw new InvalidCurrencyException(from.name(), to.name());
-        }
+        // The converter throws InvalidCurrencyException when no rate is available
         return converter.convert(amount, from, to);
     }
 
+    @Override
+    public long convertCents(long amountCents, Currency from, Currency to) {
+        return converter.convertCents(amountCents, from, to);
+    }
+
+    @Override
+    public long[] convertCents(long[] amountsCents, Currency from, Currency to) {
+        long[] converted = new long[amountsCents.length];
+        converter.convertCents(amountsCents, from, to, converted);
+        return converted;
+    }
+
+    @Override
+    public long[] convertCents(long[] amountsCents, Currency[] currencies, Currency to) {
+        long[] converted = new long[amountsCents.length];
+        converter.convertCents(amountsCents, currencies, to, converted);
+        return converted;
+    }
+
+    @Override
+    public long convertCents(long amountCents, Currency from, Currency to, LocalDate date) {
+        return converter.convertCents(amountCents, from, to, date);
+    }
+
+    @Override
+    public long[] convertCents(long[] amountsCents, Currency[] currencies, long[] epochDays, Currency to) {
+        long[] converted = new long[amountsCents.length];
+        converter.convertCents(amountsCents, currencies, epochDays, to, converted);
+        return converted;
+    }
+
+    @Override
+    public void loadRateHistory(Path csvFile) {
+        converter.loadRateHistory(csvFile);
+    }
+
     @Override
     public void updateExchangeRate(Currency from, Currency to, double rate) {
         converter.setExchangeRate(from, to, rate);
@@ -38,14 +75,14 @@ public class CurrencyServiceImpl implements CurrencyService {
         return converter.getExchangeRate(from, to);
     }
 
+    @Override
+    public RateTable getRateTable() {
+        return converter.getRateTable();
+    }
+
     @Override
     public boolean isConversionAvailable(Currency from, Currency to) {
-        try {
-            converter.getExchangeRate(from, to);
-            return true;
-        } catch (InvalidCurrencyException e) {
-            return false;
-        }
+        return converter.hasExchangeRate(from, to);
     }
 
     @Override
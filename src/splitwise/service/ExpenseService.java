@@ -3,6 +3,7 @@ package splitwise.service;
 import splitwise.exception.InvalidSplitException;
 import splitwise.model.Currency;
 import splitwise.model.Expense;
+import splitwise.model.ExpenseRequest;
 import splitwise.model.ExpenseType;
 import splitwise.model.User;
 import splitwise.model.split.Split;
@@ -42,23 +43,66 @@ public interface ExpenseService {
                                 User paidBy, ExpenseType type, List<User> participants,
                                 String groupId) throws InvalidSplitException;
 
+    /**
+     * Creates a batch of expenses.
+     * Requests are validated (in parallel for large batches) before anything is
+     * created, so either all expenses are created or none are. Balance changes
+     * are applied to the ledger in one pass and observers get one bulk event.
+     *
+     * @return The created expenses, in request order; ids and creation times follow that order
+     * @throws InvalidSplitException if any request is invalid
+     */
+    List<Expense> createExpenses(List<ExpenseRequest> requests) throws InvalidSplitException;
+
+    /**
+     * Validates a batch of requests and creates their expenses without adding
+     * them: nothing is registered and no balance changes. Validation runs in
+     * parallel for large batches; ids and creation times follow request order.
+     *
+     * @throws InvalidSplitException if any request is invalid
+     */
+    List<Expense> prepareExpenses(List<ExpenseRequest> requests) throws InvalidSplitException;
+
+    /**
+     * Adds an expense that has already been created and validated (e.g. by
+     * ExpenseFactory): registers it, updates balances and notifies observers.
+     */
+    void addExpense(Expense expense);
+
+    /**
+     * Adds a batch of expenses from prepareExpenses, applying their balance
+     * changes in one pass and notifying observers with one bulk event.
+     */
+    void addExpenses(List<Expense> expenses);
+
+    /**
+     * Registers an existing expense (e.g. during recovery).
+     * Balances are not updated and observers are not notified.
+     */
+    void restoreExpense(Expense expense);
+
+    /**
+     * Removes an expense without reversing balances or notifying observers (e.g. during recovery).
+     */
+    void evictExpense(String expenseId);
+
     /**
      * Gets an expense by ID.
      */
     Optional<Expense> getExpenseById(String expenseId);
 
     /**
-     * Gets all expenses for a user.
+     * Gets all expenses for a user (as payer or participant), oldest first.
      */
     List<Expense> getExpensesForUser(User user);
 
     /**
-     * Gets all expenses for a group.
+     * Gets all expenses for a group, oldest first.
      */
     List<Expense> getExpensesForGroup(String groupId);
 
     /**
-     * Gets all expenses.
+     * Gets all expenses, in creation order.
      */
     List<Expense> getAllExpenses();
 
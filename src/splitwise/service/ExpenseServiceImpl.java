@@ -2,33 +2,63 @@ package splitwise.service;
 
 import splitwise.exception.InvalidSplitException;
 import splitwise.factory.ExpenseFactory;
+import splitwise.ledger.ExpenseColumnStore;
 import splitwise.model.Currency;
 import splitwise.model.Expense;
+import splitwise.model.ExpenseRequest;
 import splitwise.model.ExpenseType;
 import splitwise.model.User;
 import splitwise.model.split.Split;
+import splitwise.model.split.SplitShares;
 import splitwise.observer.ExpenseObserver;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
 
 /**
  * Implementation of ExpenseService.
  * Single Responsibility: Only handles expense CRUD operations.
  * Observer Pattern: Notifies observers when expenses change.
+ * Secondary indexes by user and group keep lookups proportional to the result size.
+ * Every stored expense is also kept in an ExpenseColumnStore for aggregate scans.
+ * Thread-safe: the expense map and indexes are guarded by this service's
+ * monitor, so a read never sees an update half done. Balance updates and
+ * observer notifications run outside it.
  */
 public class ExpenseServiceImpl implements ExpenseService {
+    // Batches smaller than this are validated on the calling thread
+    private static final int PARALLEL_BATCH_THRESHOLD = 256;
+
     private final Map<String, Expense> expensesById;
-    private final List<ExpenseObserver> observers;
+    // Insertion-ordered sets, so each index stays in creation order and supports O(1) removal
+    private final Map<String, Set<Expense>> expensesByUser;
+    private final Map<String, Set<Expense>> expensesByGroup;
+    private final ExpenseColumnStore columns;
+    private final CopyOnWriteArrayList<ExpenseObserver> observers;
     private final BalanceService balanceService;
 
     public ExpenseServiceImpl(BalanceService balanceService) {
-        this.expensesById = new HashMap<>();
-        this.observers = new ArrayList<>();
+        this(balanceService, new ExpenseColumnStore());
+    }
+
+    /**
+     * @param columns The columnar store that mirrors this service's expenses
+     */
+    public ExpenseServiceImpl(BalanceService balanceService, ExpenseColumnStore columns) {
+        this.columns = columns;
+        this.expensesById = new LinkedHashMap<>();
+        this.expensesByUser = new HashMap<>();
+        this.expensesByGroup = new HashMap<>();
+        this.observers = new CopyOnWriteArrayList<>();
         this.balanceService = balanceService;
     }
 
@@ -43,14 +73,7 @@ public class ExpenseServiceImpl implements ExpenseService {
                                   User paidBy, ExpenseType type, List<User> participants)
             throws InvalidSplitException {
         Expense expense = ExpenseFactory.createExpense(description, amount, currency, paidBy, type, participants);
-        expensesById.put(expense.getId(), expense);
-
-        // Update balances
-        balanceService.updateBalancesForExpense(expense);
-
-        // Notify observers
-        notifyExpenseAdded(expense);
-
+        addExpense(expense);
         return expense;
     }
 
@@ -59,14 +82,7 @@ public class ExpenseServiceImpl implements ExpenseService {
                                             User paidBy, ExpenseType type, List<Split> splits)
             throws InvalidSplitException {
         Expense expense = ExpenseFactory.createExpenseWithSplits(description, amount, currency, paidBy, type, splits);
-        expensesById.put(expense.getId(), expense);
-
-        // Update balances
-        balanceService.updateBalancesForExpense(expense);
-
-        // Notify observers
-        notifyExpenseAdded(expense);
-
+        addExpense(expense);
         return expense;
     }
 
@@ -76,44 +92,118 @@ public class ExpenseServiceImpl implements ExpenseService {
                                        String groupId) throws InvalidSplitException {
         Expense expense = ExpenseFactory.createGroupExpense(description, amount, currency,
                                                             paidBy, type, participants, groupId);
-        expensesById.put(expense.getId(), expense);
+        addExpense(expense);
+        return expense;
+    }
+
+    @Override
+    public List<Expense> createExpenses(List<ExpenseRequest> requests) throws InvalidSplitException {
+        List<Expense> created = prepareExpenses(requests);
+        addExpenses(created);
+        return new ArrayList<>(created);
+    }
+
+    @Override
+    public List<Expense> prepareExpenses(List<ExpenseRequest> requests) throws InvalidSplitException {
+        // Splitting and validation touch no shared state, so requests are independent
+        SplitShares[] shares = new SplitShares[requests.size()];
+        InvalidSplitException[] errors = new InvalidSplitException[requests.size()];
+        IntStream indexes = IntStream.range(0, requests.size());
+        if (requests.size() >= PARALLEL_BATCH_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> {
+            try {
+                shares[i] = ExpenseFactory.computeShares(requests.get(i));
+            } catch (InvalidSplitException e) {
+                errors[i] = e;
+            }
+        });
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                throw new InvalidSplitException("Expense request " + i + " is invalid: " + errors[i].getMessage(),
+                        errors[i]);
+            }
+        }
+
+        // Created in request order, so ids and timestamps follow the list
+        List<Expense> prepared = new ArrayList<>(requests.size());
+        for (int i = 0; i < shares.length; i++) {
+            prepared.add(ExpenseFactory.createExpense(requests.get(i), shares[i]));
+        }
+        return prepared;
+    }
+
+    @Override
+    public void addExpense(Expense expense) {
+        registerExpense(expense);
 
         // Update balances
         balanceService.updateBalancesForExpense(expense);
 
         // Notify observers
         notifyExpenseAdded(expense);
+    }
 
-        return expense;
+    @Override
+    public void addExpenses(List<Expense> expenses) {
+        synchronized (this) {
+            for (Expense expense : expenses) {
+                registerExpense(expense);
+            }
+        }
+
+        // Update balances
+        balanceService.updateBalancesForExpenses(expenses);
+
+        // Notify observers
+        notifyExpensesAdded(expenses);
+    }
+
+    @Override
+    public void restoreExpense(Expense expense) {
+        registerExpense(expense);
+    }
+
+    @Override
+    public synchronized void evictExpense(String expenseId) {
+        Expense expense = expensesById.remove(expenseId);
+        if (expense != null) {
+            unindexExpense(expense);
+            columns.remove(expenseId);
+        }
     }
 
     @Override
-    public Optional<Expense> getExpenseById(String expenseId) {
+    public synchronized Optional<Expense> getExpenseById(String expenseId) {
         return Optional.ofNullable(expensesById.get(expenseId));
     }
 
     @Override
-    public List<Expense> getExpensesForUser(User user) {
-        return expensesById.values().stream()
-                .filter(expense -> expense.involvesUser(user))
-                .collect(Collectors.toList());
+    public synchronized List<Expense> getExpensesForUser(User user) {
+        return new ArrayList<>(expensesByUser.getOrDefault(user.getId(), Collections.emptySet()));
     }
 
     @Override
-    public List<Expense> getExpensesForGroup(String groupId) {
-        return expensesById.values().stream()
-                .filter(expense -> groupId.equals(expense.getGroupId()))
-                .collect(Collectors.toList());
+    public synchronized List<Expense> getExpensesForGroup(String groupId) {
+        return new ArrayList<>(expensesByGroup.getOrDefault(groupId, Collections.emptySet()));
     }
 
     @Override
-    public List<Expense> getAllExpenses() {
+    public synchronized List<Expense> getAllExpenses() {
         return new ArrayList<>(expensesById.values());
     }
 
     @Override
     public boolean deleteExpense(String expenseId) {
-        Expense expense = expensesById.remove(expenseId);
+        Expense expense;
+        synchronized (this) {
+            expense = expensesById.remove(expenseId);
+            if (expense != null) {
+                unindexExpense(expense);
+                columns.remove(expenseId);
+            }
+        }
         if (expense != null) {
             // Reverse the balance updates
             balanceService.reverseBalancesForExpense(expense);
@@ -127,9 +217,7 @@ public class ExpenseServiceImpl implements ExpenseService {
 
     @Override
     public void addObserver(ExpenseObserver observer) {
-        if (!observers.contains(observer)) {
-            observers.add(observer);
-        }
+        observers.addIfAbsent(observer);
     }
 
     @Override
@@ -137,12 +225,62 @@ public class ExpenseServiceImpl implements ExpenseService {
         observers.remove(observer);
     }
 
+    /**
+     * Stores an expense and adds it to the user and group indexes and the column store.
+     */
+    private synchronized void registerExpense(Expense expense) {
+        expensesById.put(expense.getId(), expense);
+        columns.append(expense);
+        for (String userId : involvedUserIds(expense)) {
+            expensesByUser.computeIfAbsent(userId, id -> new LinkedHashSet<>()).add(expense);
+        }
+        if (expense.getGroupId() != null) {
+            expensesByGroup.computeIfAbsent(expense.getGroupId(), id -> new LinkedHashSet<>()).add(expense);
+        }
+    }
+
+    private void unindexExpense(Expense expense) {
+        for (String userId : involvedUserIds(expense)) {
+            removeFromIndex(expensesByUser, userId, expense);
+        }
+        if (expense.getGroupId() != null) {
+            removeFromIndex(expensesByGroup, expense.getGroupId(), expense);
+        }
+    }
+
+    private static void removeFromIndex(Map<String, Set<Expense>> index, String key, Expense expense) {
+        Set<Expense> expenses = index.get(key);
+        if (expenses != null && expenses.remove(expense) && expenses.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Gets the ids of the payer and all participants, without duplicates.
+     */
+    private static Set<String> involvedUserIds(Expense expense) {
+        Set<String> userIds = new LinkedHashSet<>();
+        userIds.add(expense.getPaidBy().getId());
+        SplitShares shares = expense.getShares();
+        for (int i = 0; i < shares.size(); i++) {
+            userIds.add(shares.getUser(i).getId());
+        }
+        return userIds;
+    }
+
     private void notifyExpenseAdded(Expense expense) {
         for (ExpenseObserver observer : observers) {
             observer.onExpenseAdded(expense);
         }
     }
 
+    private void notifyExpensesAdded(List<Expense> expenses) {
+        List<Expense> view = Collections.unmodifiableList(expenses);
+        for (ExpenseObserver observer : observers) {
+            observer.onExpensesAdded(view);
+        }
+    }
+
     private void notifyExpenseUpdated(Expense expense) {
         for (ExpenseObserver observer : observers) {
             observer.onExpenseUpdated(expense);
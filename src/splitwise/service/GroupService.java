@@ -23,6 +23,11 @@ public interface GroupService {
      */
     Group createGroup(String name, String description, User creator);
 
+    /**
+     * Registers an existing group and its current members (e.g. during recovery).
+     */
+    void restoreGroup(Group group);
+
     /**
      * Gets a group by ID.
      */
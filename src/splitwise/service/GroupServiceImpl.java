@@ -3,98 +3,147 @@ package splitwise.service;
 import splitwise.exception.GroupNotFoundException;
 import splitwise.model.Group;
 import splitwise.model.User;
+import splitwise.observer.GroupMembershipObserver;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of GroupService.
  * Single Responsibility: Only handles group management operations.
+ * Observer Pattern: Observes every group it owns, so the user -> groups index
+ * stays in sync even when Group.addMember/removeMember is called directly.
+ * Thread-safe: the maps are guarded by this service's monitor, which is
+ * taken before a group's own monitor, never after it.
  */
-public class GroupServiceImpl implements GroupService {
+public class GroupServiceImpl implements GroupService, GroupMembershipObserver {
     private final Map<String, Group> groupsById;
+    // Reverse membership index: userId -> groups the user belongs to
+    private final Map<String, Set<Group>> groupsByUser;
 
     public GroupServiceImpl() {
         this.groupsById = new HashMap<>();
+        this.groupsByUser = new HashMap<>();
     }
 
     @Override
-    public Group createGroup(String name, User creator) {
+    public synchronized Group createGroup(String name, User creator) {
         Group group = new Group(name, creator);
-        groupsById.put(group.getId(), group);
+        registerGroup(group);
         return group;
     }
 
     @Override
-    public Group createGroup(String name, String description, User creator) {
+    public synchronized Group createGroup(String name, String description, User creator) {
         Group group = new Group(name, description, creator);
-        groupsById.put(group.getId(), group);
+        registerGroup(group);
         return group;
     }
 
     @Override
-    public Optional<Group> getGroupById(String groupId) {
+    public synchronized void restoreGroup(Group group) {
+        registerGroup(group);
+    }
+
+    @Override
+    public synchronized Optional<Group> getGroupById(String groupId) {
         return Optional.ofNullable(groupsById.get(groupId));
     }
 
     @Override
-    public List<Group> getGroupsForUser(User user) {
-        return groupsById.values().stream()
-                .filter(group -> group.isMember(user))
-                .collect(Collectors.toList());
+    public synchronized List<Group> getGroupsForUser(User user) {
+        return new ArrayList<>(groupsByUser.getOrDefault(user.getId(), Collections.emptySet()));
     }
 
     @Override
-    public List<Group> getAllGroups() {
+    public synchronized List<Group> getAllGroups() {
         return new ArrayList<>(groupsById.values());
     }
 
     @Override
-    public boolean addMember(String groupId, User user) {
+    public synchronized boolean addMember(String groupId, User user) {
         Group group = getGroupOrThrow(groupId);
         return group.addMember(user);
     }
 
     @Override
-    public boolean removeMember(String groupId, User user) {
+    public synchronized boolean removeMember(String groupId, User user) {
         Group group = getGroupOrThrow(groupId);
         return group.removeMember(user);
     }
 
     @Override
-    public Set<User> getMembers(String groupId) {
+    public synchronized Set<User> getMembers(String groupId) {
         Group group = getGroupOrThrow(groupId);
         return group.getMembers();
     }
 
     @Override
-    public boolean addAdmin(String groupId, User user) {
+    public synchronized boolean addAdmin(String groupId, User user) {
         Group group = getGroupOrThrow(groupId);
         return group.addAdmin(user);
     }
 
     @Override
-    public boolean removeAdmin(String groupId, User user) {
+    public synchronized boolean removeAdmin(String groupId, User user) {
         Group group = getGroupOrThrow(groupId);
         return group.removeAdmin(user);
     }
 
     @Override
-    public boolean deleteGroup(String groupId) {
-        return groupsById.remove(groupId) != null;
+    public synchronized boolean deleteGroup(String groupId) {
+        Group group = groupsById.remove(groupId);
+        if (group == null) {
+            return false;
+        }
+        group.removeMembershipObserver(this);
+        for (User member : group.getMembers()) {
+            unindexMember(group, member);
+        }
+        return true;
     }
 
     @Override
-    public boolean groupExists(String groupId) {
+    public synchronized boolean groupExists(String groupId) {
         return groupsById.containsKey(groupId);
     }
 
+    @Override
+    public synchronized void onMemberAdded(Group group, User user) {
+        if (groupsById.containsKey(group.getId())) {
+            groupsByUser.computeIfAbsent(user.getId(), id -> new LinkedHashSet<>()).add(group);
+        }
+    }
+
+    @Override
+    public synchronized void onMemberRemoved(Group group, User user) {
+        unindexMember(group, user);
+    }
+
+    /**
+     * Stores a group, indexes its initial members and starts observing it.
+     */
+    private void registerGroup(Group group) {
+        groupsById.put(group.getId(), group);
+        for (User member : group.getMembers()) {
+            onMemberAdded(group, member);
+        }
+        group.addMembershipObserver(this);
+    }
+
+    private void unindexMember(Group group, User user) {
+        Set<Group> groups = groupsByUser.get(user.getId());
+        if (groups != null && groups.remove(group) && groups.isEmpty()) {
+            groupsByUser.remove(user.getId());
+        }
+    }
+
     private Group getGroupOrThrow(String groupId) {
         return getGroupById(groupId)
                 .orElseThrow(() -> new GroupNotFoundException(groupId));
@@ -11,23 +11,47 @@ import java.util.Optional;
 /**
  * Service interface for transaction/payment management.
  * Interface Segregation: Only defines transaction-specific methods.
+ * All amounts are in cents.
  */
 public interface TransactionService {
 
     /**
      * Records a payment between two users.
      */
-    Transaction recordPayment(User fromUser, User toUser, double amount);
+    Transaction recordPayment(User fromUser, User toUser, long amountCents);
 
     /**
      * Records a payment with specified currency.
      */
-    Transaction recordPayment(User fromUser, User toUser, double amount, Currency currency);
+    Transaction recordPayment(User fromUser, User toUser, long amountCents, Currency currency);
+
+    /**
+     * Records a payment made to settle debt within a group.
+     * Reduces both the global balance and the group's balance.
+     */
+    Transaction recordGroupPayment(User fromUser, User toUser, long amountCents, Currency currency, String groupId);
 
     /**
      * Records a settlement (clearing all debt) between two users.
      */
-    Transaction recordSettlement(User fromUser, User toUser, double amount);
+    Transaction recordSettlement(User fromUser, User toUser, long amountCents);
+
+    /**
+     * Records a settlement of the debt in one currency.
+     */
+    Transaction recordSettlement(User fromUser, User toUser, long amountCents, Currency currency);
+
+    /**
+     * Records a transaction that has already been created: registers it and
+     * settles the balance it pays, globally and within its group, if any.
+     */
+    void recordTransaction(Transaction transaction);
+
+    /**
+     * Registers an existing transaction (e.g. during recovery).
+     * Balances are not updated.
+     */
+    void restoreTransaction(Transaction transaction);
 
     /**
      * Gets a transaction by ID.
@@ -35,27 +59,55 @@ public interface TransactionService {
     Optional<Transaction> getTransactionById(String transactionId);
 
     /**
-     * Gets all transactions for a user.
+     * Gets all transactions for a user, newest first.
      */
     List<Transaction> getTransactionHistory(User user);
 
     /**
-     * Gets all transactions between two users.
+     * Gets a page of a user's transactions older than a cursor, newest first.
+     *
+     * @param beforeTransactionId Id of the last transaction already seen, or null for the newest
+     */
+    List<Transaction> getTransactionHistory(User user, String beforeTransactionId, int limit);
+
+    /**
+     * Gets all transactions between two users, newest first.
      */
     List<Transaction> getTransactionsBetween(User user1, User user2);
 
     /**
-     * Gets all transactions for a group.
+     * Gets a page of transactions between two users older than a cursor, newest first.
+     *
+     * @param beforeTransactionId Id of the last transaction already seen, or null for the newest
+     */
+    List<Transaction> getTransactionsBetween(User user1, User user2, String beforeTransactionId, int limit);
+
+    /**
+     * Gets all transactions for a group, newest first.
      */
     List<Transaction> getTransactionsForGroup(String groupId);
 
     /**
-     * Gets transactions by type.
+     * Gets a page of a group's transactions older than a cursor, newest first.
+     *
+     * @param beforeTransactionId Id of the last transaction already seen, or null for the newest
+     */
+    List<Transaction> getTransactionsForGroup(String groupId, String beforeTransactionId, int limit);
+
+    /**
+     * Gets transactions by type, newest first.
      */
     List<Transaction> getTransactionsByType(TransactionType type);
 
     /**
-     * Gets all transactions.
+     * Gets a page of transactions of a type older than a cursor, newest first.
+     *
+     * @param beforeTransactionId Id of the last transaction already seen, or null for the newest
+     */
+    List<Transaction> getTransactionsByType(TransactionType type, String beforeTransactionId, int limit);
+
+    /**
+     * Gets all transactions, oldest first.
      */
     List<Transaction> getAllTransactions();
 }
@@ -5,91 +5,184 @@ import splitwise.model.Transaction;
 import splitwise.model.TransactionType;
 import splitwise.model.User;
 
+import splitwise.util.TimelineIndex;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of TransactionService.
  * Single Responsibility: Only handles transaction recording and retrieval.
+ *
+ * Transactions are kept in an append-only log, which is in timestamp order.
+ * Per-user, per-pair, per-group and per-type indexes hold log positions, so
+ * history pages cost O(log n + k) with no filtering or sorting at read time.
+ * Thread-safe: the log and its indexes are guarded by this service's monitor,
+ * so a read never sees an append half done; balances are updated outside it.
  */
 public class TransactionServiceImpl implements TransactionService {
-    private final Map<String, Transaction> transactionsById;
+    private final List<Transaction> log;
+    private final Map<String, Integer> positionsById;
+    private final TimelineIndex<String> userIndex;
+    private final TimelineIndex<String> pairIndex;
+    private final TimelineIndex<String> groupIndex;
+    private final TimelineIndex<TransactionType> typeIndex;
     private final BalanceService balanceService;
 
     public TransactionServiceImpl(BalanceService balanceService) {
-        this.transactionsById = new HashMap<>();
+        this.log = new ArrayList<>();
+        this.positionsById = new HashMap<>();
+        this.userIndex = new TimelineIndex<>();
+        this.pairIndex = new TimelineIndex<>();
+        this.groupIndex = new TimelineIndex<>();
+        this.typeIndex = new TimelineIndex<>();
         this.balanceService = balanceService;
     }
 
     @Override
-    public Transaction recordPayment(User fromUser, User toUser, double amount) {
-        return recordPayment(fromUser, toUser, amount, Currency.USD);
+    public Transaction recordPayment(User fromUser, User toUser, long amountCents) {
+        return recordPayment(fromUser, toUser, amountCents, Currency.USD);
     }
 
     @Override
-    public Transaction recordPayment(User fromUser, User toUser, double amount, Currency currency) {
-        Transaction transaction = new Transaction(fromUser, toUser, amount, currency, TransactionType.PAYMENT);
-        transactionsById.put(transaction.getId(), transaction);
+    public Transaction recordPayment(User fromUser, User toUser, long amountCents, Currency currency) {
+        Transaction transaction = new Transaction(fromUser, toUser, amountCents, currency, TransactionType.PAYMENT);
+        recordTransaction(transaction);
+        return transaction;
+    }
 
-        // Update balances - fromUser pays toUser
-        balanceService.settleBalance(fromUser, toUser, amount);
+    @Override
+    public Transaction recordGroupPayment(User fromUser, User toUser, long amountCents, Currency currency,
+                                          String groupId) {
+        Transaction transaction = new Transaction(fromUser, toUser, amountCents, currency, TransactionType.PAYMENT);
+        transaction.setGroupId(groupId);
+        recordTransaction(transaction);
+        return transaction;
+    }
+
+    @Override
+    public Transaction recordSettlement(User fromUser, User toUser, long amountCents) {
+        return recordSettlement(fromUser, toUser, amountCents, Currency.USD);
+    }
 
+    @Override
+    public Transaction recordSettlement(User fromUser, User toUser, long amountCents, Currency currency) {
+        Transaction transaction = new Transaction(fromUser, toUser, amountCents, currency, TransactionType.SETTLEMENT);
+        recordTransaction(transaction);
         return transaction;
     }
 
     @Override
-    public Transaction recordSettlement(User fromUser, User toUser, double amount) {
-        Transaction transaction = new Transaction(fromUser, toUser, amount, Currency.USD, TransactionType.SETTLEMENT);
-        transactionsById.put(transaction.getId(), transaction);
+    public void recordTransaction(Transaction transaction) {
+        append(transaction);
 
-        // Update balances
-        balanceService.settleBalance(fromUser, toUser, amount);
+        // Update balances - fromUser pays toUser, globally and within the group if any
+        balanceService.settleBalance(transaction.getFromUser(), transaction.getToUser(),
+                transaction.getAmountCents(), transaction.getCurrency(), transaction.getGroupId());
+    }
 
-        return transaction;
+    @Override
+    public void restoreTransaction(Transaction transaction) {
+        append(transaction);
     }
 
     @Override
-    public Optional<Transaction> getTransactionById(String transactionId) {
-        return Optional.ofNullable(transactionsById.get(transactionId));
+    public synchronized Optional<Transaction> getTransactionById(String transactionId) {
+        Integer position = positionsById.get(transactionId);
+        return position == null ? Optional.empty() : Optional.of(log.get(position));
     }
 
     @Override
     public List<Transaction> getTransactionHistory(User user) {
-        return transactionsById.values().stream()
-                .filter(t -> t.involvesUser(user))
-                .sorted((t1, t2) -> t2.getTimestamp().compareTo(t1.getTimestamp()))
-                .collect(Collectors.toList());
+        return getTransactionHistory(user, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionHistory(User user, String beforeTransactionId, int limit) {
+        return resolve(userIndex.newest(user.getId(), cursor(beforeTransactionId), limit));
     }
 
     @Override
     public List<Transaction> getTransactionsBetween(User user1, User user2) {
-        return transactionsById.values().stream()
-                .filter(t -> t.involvesUser(user1) && t.involvesUser(user2))
-                .sorted((t1, t2) -> t2.getTimestamp().compareTo(t1.getTimestamp()))
-                .collect(Collectors.toList());
+        return getTransactionsBetween(user1, user2, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionsBetween(User user1, User user2, String beforeTransactionId, int limit) {
+        return resolve(pairIndex.newest(pairKey(user1.getId(), user2.getId()), cursor(beforeTransactionId), limit));
     }
 
     @Override
     public List<Transaction> getTransactionsForGroup(String groupId) {
-        return transactionsById.values().stream()
-                .filter(t -> groupId.equals(t.getGroupId()))
-                .sorted((t1, t2) -> t2.getTimestamp().compareTo(t1.getTimestamp()))
-                .collect(Collectors.toList());
+        return getTransactionsForGroup(groupId, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionsForGroup(String groupId, String beforeTransactionId, int limit) {
+        return resolve(groupIndex.newest(groupId, cursor(beforeTransactionId), limit));
     }
 
     @Override
     public List<Transaction> getTransactionsByType(TransactionType type) {
-        return transactionsById.values().stream()
-                .filter(t -> t.getType() == type)
-                .collect(Collectors.toList());
+        return getTransactionsByType(type, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized List<Transaction> getTransactionsByType(TransactionType type, String beforeTransactionId, int limit) {
+        return resolve(typeIndex.newest(type, cursor(beforeTransactionId), limit));
     }
 
     @Override
-    public List<Transaction> getAllTransactions() {
-        return new ArrayList<>(transactionsById.values());
+    public synchronized List<Transaction> getAllTransactions() {
+        return new ArrayList<>(log);
+    }
+
+    /**
+     * Appends a transaction to the log and indexes it.
+     */
+    private synchronized void append(Transaction transaction) {
+        int position = log.size();
+        log.add(transaction);
+        positionsById.put(transaction.getId(), position);
+
+        String fromId = transaction.getFromUser().getId();
+        String toId = transaction.getToUser().getId();
+        userIndex.add(fromId, position);
+        userIndex.add(toId, position);
+        pairIndex.add(pairKey(fromId, toId), position);
+        if (transaction.getGroupId() != null) {
+            groupIndex.add(transaction.getGroupId(), position);
+        }
+        typeIndex.add(transaction.getType(), position);
+    }
+
+    /**
+     * Builds the key for an unordered user pair (smaller id first).
+     */
+    private static String pairKey(String userId1, String userId2) {
+        return userId1.compareTo(userId2) < 0 ? userId1 + ":" + userId2 : userId2 + ":" + userId1;
+    }
+
+    /**
+     * Converts an "older than" transaction id into a log position cursor.
+     * A null or unknown id means "start from the newest transaction".
+     */
+    private int cursor(String beforeTransactionId) {
+        if (beforeTransactionId == null) {
+            return Integer.MAX_VALUE;
+        }
+        Integer position = positionsById.get(beforeTransactionId);
+        return position == null ? Integer.MAX_VALUE : position;
+    }
+
+    private List<Transaction> resolve(int[] positions) {
+        List<Transaction> transactions = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            transactions.add(log.get(position));
+        }
+        return transactions;
     }
 }
@@ -22,6 +22,11 @@ public interface UserService {
      */
     User createUser(String name, String email);
 
+    /**
+     * Registers an existing user (e.g. during recovery).
+     */
+    void restoreUser(User user);
+
     /**
      * Gets a user by ID.
      */
@@ -13,6 +13,7 @@ import java.util.Optional;
  * Implementation of UserService.
  * Single Responsibility: Only handles user CRUD operations.
  * Dependency Inversion: Implements the UserService interface.
+ * Thread-safe: both indexes are guarded by this service's monitor.
  */
 public class UserServiceImpl implements UserService {
     private final Map<String, User> usersById;
@@ -24,7 +25,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public User createUser(String name, String email, String phone) {
+    public synchronized User createUser(String name, String email, String phone) {
         if (usersByEmail.containsKey(email)) {
             throw new IllegalArgumentException("User with email already exists: " + email);
         }
@@ -36,27 +37,33 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public User createUser(String name, String email) {
+    public synchronized void restoreUser(User user) {
+        usersById.put(user.getId(), user);
+        usersByEmail.put(user.getEmail(), user);
+    }
+
+    @Override
+    public synchronized User createUser(String name, String email) {
         return createUser(name, email, null);
     }
 
     @Override
-    public Optional<User> getUserById(String userId) {
+    public synchronized Optional<User> getUserById(String userId) {
         return Optional.ofNullable(usersById.get(userId));
     }
 
     @Override
-    public Optional<User> getUserByEmail(String email) {
+    public synchronized Optional<User> getUserByEmail(String email) {
         return Optional.ofNullable(usersByEmail.get(email));
     }
 
     @Override
-    public List<User> getAllUsers() {
+    public synchronized List<User> getAllUsers() {
         return new ArrayList<>(usersById.values());
     }
 
     @Override
-    public User updateUser(User user) {
+    public synchronized User updateUser(User user) {
         if (!usersById.containsKey(user.getId())) {
             throw new UserNotFoundException(user.getId());
         }
@@ -74,7 +81,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public boolean deleteUser(String userId) {
+    public synchronized boolean deleteUser(String userId) {
         User user = usersById.remove(userId);
         if (user != null) {
             usersByEmail.remove(user.getEmail());
@@ -84,7 +91,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public boolean userExists(String userId) {
+    public synchronized boolean userExists(String userId) {
         return usersById.containsKey(userId);
     }
 }
@@ -1,9 +1,11 @@
 package splitwise.strategy;
 
 import splitwise.exception.InvalidSplitException;
+import splitwise.model.ExpenseType;
 import splitwise.model.User;
 import splitwise.model.split.EqualSplit;
 import splitwise.model.split.Split;
+import splitwise.model.split.SplitShares;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,15 +13,16 @@ import java.util.List;
 /**
  * Strategy for splitting expenses equally among all participants.
  * Implements Open/Closed Principle: Can be swapped with other strategies.
+ * Stateless, so a single instance is shared.
  */
 public class EqualSplitStrategy implements SplitStrategy {
 
     @Override
-    public void validate(double totalAmount, List<Split> splits) throws InvalidSplitException {
+    public void validate(long totalCents, List<Split> splits) throws InvalidSplitException {
         if (splits == null || splits.isEmpty()) {
             throw new InvalidSplitException("Splits list cannot be empty");
         }
-        if (totalAmount <= 0) {
+        if (totalCents <= 0) {
             throw new InvalidSplitException("Total amount must be positive");
         }
         for (Split split : splits) {
@@ -30,33 +33,50 @@ public class EqualSplitStrategy implements SplitStrategy {
     }
 
     @Override
-    public void calculateSplits(double totalAmount, List<Split> splits) {
+    public void calculateSplits(long totalCents, List<Split> splits) {
         if (splits == null || splits.isEmpty()) {
             return;
         }
 
         int numberOfSplits = splits.size();
-        double equalShare = Math.round((totalAmount / numberOfSplits) * 100.0) / 100.0;
+        long equalShare = totalCents / numberOfSplits;
+        long remainder = totalCents % numberOfSplits;
 
-        // Handle rounding - last person might pay slightly different amount
-        double totalDistributed = 0;
-        for (int i = 0; i < splits.size() - 1; i++) {
-            splits.get(i).setAmount(equalShare);
-            totalDistributed += equalShare;
+        // The first 'remainder' participants pay one extra cent so the total is exact
+        for (int i = 0; i < numberOfSplits; i++) {
+            splits.get(i).setAmountCents(i < remainder ? equalShare + 1 : equalShare);
         }
-
-        // Last person gets the remainder to ensure exact total
-        double lastShare = Math.round((totalAmount - totalDistributed) * 100.0) / 100.0;
-        splits.get(splits.size() - 1).setAmount(lastShare);
     }
 
     @Override
-    public List<Split> createSplits(double totalAmount, List<User> users) {
-        List<Split> splits = new ArrayList<>();
+    public List<Split> createSplits(long totalCents, List<User> users) {
+        List<Split> splits = new ArrayList<>(users.size());
         for (User user : users) {
             splits.add(new EqualSplit(user));
         }
-        calculateSplits(totalAmount, splits);
+        calculateSplits(totalCents, splits);
         return splits;
     }
+
+    @Override
+    public SplitShares computeShares(long totalCents, List<User> users) {
+        int count = users.size();
+        long equalShare = totalCents / count;
+        long remainder = totalCents % count;
+        long[] amounts = new long[count];
+        for (int i = 0; i < count; i++) {
+            amounts[i] = i < remainder ? equalShare + 1 : equalShare;
+        }
+        return new SplitShares(ExpenseType.EQUAL, users.toArray(new User[0]), amounts, null);
+    }
+
+    @Override
+    public void validate(long totalCents, SplitShares shares) throws InvalidSplitException {
+        if (shares == null || shares.size() == 0) {
+            throw new InvalidSplitException("Splits list cannot be empty");
+        }
+        if (totalCents <= 0) {
+            throw new InvalidSplitException("Total amount must be positive");
+        }
+    }
 }
@@ -1,9 +1,12 @@
 package splitwise.strategy;
 
 import splitwise.exception.InvalidSplitException;
+import splitwise.model.ExpenseType;
+import splitwise.model.Money;
 import splitwise.model.User;
 import splitwise.model.split.ExactSplit;
 import splitwise.model.split.Split;
+import splitwise.model.split.SplitShares;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,20 +14,20 @@ import java.util.List;
 /**
  * Strategy for splitting expenses with exact amounts specified for each participant.
  * Validates that the sum of all splits equals the total expense amount.
+ * Stateless, so a single instance is shared.
  */
 public class ExactSplitStrategy implements SplitStrategy {
-    private static final double EPSILON = 0.01; // Tolerance for floating point comparison
 
     @Override
-    public void validate(double totalAmount, List<Split> splits) throws InvalidSplitException {
+    public void validate(long totalCents, List<Split> splits) throws InvalidSplitException {
         if (splits == null || splits.isEmpty()) {
             throw new InvalidSplitException("Splits list cannot be empty");
         }
-        if (totalAmount <= 0) {
+        if (totalCents <= 0) {
             throw new InvalidSplitException("Total amount must be positive");
         }
 
-        double sumOfSplits = 0;
+        long sumOfSplits = 0;
         for (Split split : splits) {
             if (!(split instanceof ExactSplit)) {
                 throw new InvalidSplitException("All splits must be ExactSplit for exact splitting");
@@ -32,40 +35,80 @@ public class ExactSplitStrategy implements SplitStrategy {
             if (!split.validate()) {
                 throw new InvalidSplitException("Invalid split amount for user: " + split.getUser().getName());
             }
-            sumOfSplits += split.getAmount();
+            sumOfSplits += split.getAmountCents();
         }
 
-        // Check if sum equals total (with tolerance for floating point errors)
-        if (Math.abs(sumOfSplits - totalAmount) > EPSILON) {
+        // Amounts are in cents, so the sum must match exactly
+        if (sumOfSplits != totalCents) {
             throw new InvalidSplitException(
                     String.format("Sum of splits (%.2f) does not equal total amount (%.2f)",
-                                  sumOfSplits, totalAmount));
+                                  Money.toAmount(sumOfSplits), Money.toAmount(totalCents)));
         }
     }
 
     @Override
-    public void calculateSplits(double totalAmount, List<Split> splits) {
+    public void calculateSplits(long totalCents, List<Split> splits) {
         // For exact splits, amounts are already set during split creation
         // Just validate that the amounts are set
         for (Split split : splits) {
-            if (split.getAmount() <= 0 && !(split instanceof ExactSplit)) {
+            if (split.getAmountCents() <= 0 && !(split instanceof ExactSplit)) {
                 throw new IllegalStateException("Exact split amounts must be set during creation");
             }
         }
     }
 
     @Override
-    public List<Split> createSplits(double totalAmount, List<User> users) {
+    public List<Split> createSplits(long totalCents, List<User> users) {
         // For exact splits, we can't auto-create without knowing specific amounts
-        // This creates a template with zero amounts that must be filled in
-        List<Split> splits = new ArrayList<>();
-        double equalShare = totalAmount / users.size();
-        for (User user : users) {
-            splits.add(new ExactSplit(user, equalShare));
+        // This creates an equal template (remainder cents go to the first users)
+        List<Split> splits = new ArrayList<>(users.size());
+        long equalShare = totalCents / users.size();
+        long remainder = totalCents % users.size();
+        for (int i = 0; i < users.size(); i++) {
+            ExactSplit split = new ExactSplit(users.get(i), 0);
+            split.setAmountCents(i < remainder ? equalShare + 1 : equalShare);
+            splits.add(split);
         }
         return splits;
     }
 
+    @Override
+    public SplitShares computeShares(long totalCents, List<User> users) {
+        // Same equal template as createSplits
+        int count = users.size();
+        long equalShare = totalCents / count;
+        long remainder = totalCents % count;
+        long[] amounts = new long[count];
+        for (int i = 0; i < count; i++) {
+            amounts[i] = i < remainder ? equalShare + 1 : equalShare;
+        }
+        return new SplitShares(ExpenseType.EXACT, users.toArray(new User[0]), amounts, null);
+    }
+
+    @Override
+    public void validate(long totalCents, SplitShares shares) throws InvalidSplitException {
+        if (shares == null || shares.size() == 0) {
+            throw new InvalidSplitException("Splits list cannot be empty");
+        }
+        if (totalCents <= 0) {
+            throw new InvalidSplitException("Total amount must be positive");
+        }
+
+        long sumOfSplits = 0;
+        for (int i = 0; i < shares.size(); i++) {
+            if (shares.getAmountCents(i) < 0) {
+                throw new InvalidSplitException("Invalid split amount for user: " + shares.getUser(i).getName());
+            }
+            sumOfSplits += shares.getAmountCents(i);
+        }
+
+        if (sumOfSplits != totalCents) {
+            throw new InvalidSplitException(
+                    String.format("Sum of splits (%.2f) does not equal total amount (%.2f)",
+                                  Money.toAmount(sumOfSplits), Money.toAmount(totalCents)));
+        }
+    }
+
     /**
      * Creates exact splits with specified amounts.
      *
@@ -1,9 +1,11 @@
 package splitwise.strategy;
 
 import splitwise.exception.InvalidSplitException;
+import splitwise.model.ExpenseType;
 import splitwise.model.User;
 import splitwise.model.split.PercentageSplit;
 import splitwise.model.split.Split;
+import splitwise.model.split.SplitShares;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,17 +13,18 @@ import java.util.List;
 /**
  * Strategy for splitting expenses based on percentages.
  * Validates that all percentages sum to 100%.
+ * Stateless, so a single instance is shared.
  */
 public class PercentageSplitStrategy implements SplitStrategy {
     private static final double EPSILON = 0.01; // Tolerance for floating point comparison
     private static final double TOTAL_PERCENTAGE = 100.0;
 
     @Override
-    public void validate(double totalAmount, List<Split> splits) throws InvalidSplitException {
+    public void validate(long totalCents, List<Split> splits) throws InvalidSplitException {
         if (splits == null || splits.isEmpty()) {
             throw new InvalidSplitException("Splits list cannot be empty");
         }
-        if (totalAmount <= 0) {
+        if (totalCents <= 0) {
             throw new InvalidSplitException("Total amount must be positive");
         }
 
@@ -47,45 +50,95 @@ public class PercentageSplitStrategy implements SplitStrategy {
     }
 
     @Override
-    public void calculateSplits(double totalAmount, List<Split> splits) {
+    public void calculateSplits(long totalCents, List<Split> splits) {
         if (splits == null || splits.isEmpty()) {
             return;
         }
 
-        double totalDistributed = 0;
+        // Cumulative rounding: each share is the difference between consecutive
+        // rounded running totals, so shares are within one cent of the exact
+        // percentage and always sum to the total with no leftover remainder
+        double cumulativePercentage = 0;
+        long distributed = 0;
         for (int i = 0; i < splits.size() - 1; i++) {
             PercentageSplit split = (PercentageSplit) splits.get(i);
-            double amount = Math.round((totalAmount * split.getPercentage() / 100.0) * 100.0) / 100.0;
-            split.setAmount(amount);
-            totalDistributed += amount;
+            cumulativePercentage += split.getPercentage();
+            long target = Math.round(totalCents * cumulativePercentage / TOTAL_PERCENTAGE);
+            split.setAmountCents(target - distributed);
+            distributed = target;
         }
-
-        // Last person gets remainder to ensure exact total
-        double lastAmount = Math.round((totalAmount - totalDistributed) * 100.0) / 100.0;
-        splits.get(splits.size() - 1).setAmount(lastAmount);
+        splits.get(splits.size() - 1).setAmountCents(totalCents - distributed);
     }
 
     @Override
-    public List<Split> createSplits(double totalAmount, List<User> users) {
+    public List<Split> createSplits(long totalCents, List<User> users) {
         // Create equal percentage splits by default
-        List<Split> splits = new ArrayList<>();
+        List<Split> splits = new ArrayList<>(users.size());
         double equalPercentage = TOTAL_PERCENTAGE / users.size();
         for (User user : users) {
             splits.add(new PercentageSplit(user, equalPercentage));
         }
-        calculateSplits(totalAmount, splits);
+        calculateSplits(totalCents, splits);
         return splits;
     }
 
+    @Override
+    public SplitShares computeShares(long totalCents, List<User> users) {
+        int count = users.size();
+        double equalPercentage = TOTAL_PERCENTAGE / count;
+        long[] amounts = new long[count];
+        double[] percentages = new double[count];
+
+        // Same cumulative rounding as calculateSplits
+        double cumulativePercentage = 0;
+        long distributed = 0;
+        for (int i = 0; i < count - 1; i++) {
+            percentages[i] = equalPercentage;
+            cumulativePercentage += equalPercentage;
+            long target = Math.round(totalCents * cumulativePercentage / TOTAL_PERCENTAGE);
+            amounts[i] = target - distributed;
+            distributed = target;
+        }
+        percentages[count - 1] = equalPercentage;
+        amounts[count - 1] = totalCents - distributed;
+        return new SplitShares(ExpenseType.PERCENTAGE, users.toArray(new User[0]), amounts, percentages);
+    }
+
+    @Override
+    public void validate(long totalCents, SplitShares shares) throws InvalidSplitException {
+        if (shares == null || shares.size() == 0) {
+            throw new InvalidSplitException("Splits list cannot be empty");
+        }
+        if (totalCents <= 0) {
+            throw new InvalidSplitException("Total amount must be positive");
+        }
+
+        double sumOfPercentages = 0;
+        for (int i = 0; i < shares.size(); i++) {
+            double percentage = shares.getPercentage(i);
+            if (percentage < 0 || percentage > TOTAL_PERCENTAGE) {
+                throw new InvalidSplitException(
+                        "Invalid percentage for user: " + shares.getUser(i).getName() +
+                        ". Percentage must be between 0 and 100");
+            }
+            sumOfPercentages += percentage;
+        }
+
+        if (Math.abs(sumOfPercentages - TOTAL_PERCENTAGE) > EPSILON) {
+            throw new InvalidSplitException(
+                    String.format("Sum of percentages (%.2f%%) does not equal 100%%", sumOfPercentages));
+        }
+    }
+
     /**
      * Creates percentage splits with specified percentages.
      *
-     * @param totalAmount Total expense amount
+     * @param totalCents  Total expense amount in cents
      * @param users       List of users
      * @param percentages List of percentages corresponding to each user
      * @return List of percentage splits with calculated amounts
      */
-    public List<Split> createSplits(double totalAmount, List<User> users, List<Double> percentages)
+    public List<Split> createSplits(long totalCents, List<User> users, List<Double> percentages)
             throws InvalidSplitException {
         if (users.size() != percentages.size()) {
             throw new InvalidSplitException("Number of users must match number of percentages");
@@ -95,7 +148,7 @@ public class PercentageSplitStrategy implements SplitStrategy {
         for (int i = 0; i < users.size(); i++) {
             splits.add(new PercentageSplit(users.get(i), percentages.get(i)));
         }
-        calculateSplits(totalAmount, splits);
+        calculateSplits(totalCents, splits);
         return splits;
     }
 }
@@ -3,6 +3,7 @@ package splitwise.strategy;
 import splitwise.exception.InvalidSplitException;
 import splitwise.model.User;
 import splitwise.model.split.Split;
+import splitwise.model.split.SplitShares;
 
 import java.util.List;
 
@@ -10,33 +11,53 @@ import java.util.List;
  * Strategy interface for different split calculation methods.
  * Open/Closed Principle: New split types can be added without modifying existing code.
  * Interface Segregation: Only defines methods needed for split calculation.
+ * All amounts are in cents so that splits always sum exactly to the total.
  */
 public interface SplitStrategy {
 
     /**
      * Validates that the splits are valid for the given total amount.
      *
-     * @param totalAmount The total expense amount
-     * @param splits      The list of splits to validate
+     * @param totalCents The total expense amount in cents
+     * @param splits     The list of splits to validate
      * @throws InvalidSplitException if validation fails
      */
-    void validate(double totalAmount, List<Split> splits) throws InvalidSplitException;
+    void validate(long totalCents, List<Split> splits) throws InvalidSplitException;
 
     /**
      * Calculates and sets the amount for each split based on the total amount.
+     * Any indivisible remainder is distributed one cent at a time.
      *
-     * @param totalAmount The total expense amount
-     * @param splits      The list of splits to calculate amounts for
+     * @param totalCents The total expense amount in cents
+     * @param splits     The list of splits to calculate amounts for
      */
-    void calculateSplits(double totalAmount, List<Split> splits);
+    void calculateSplits(long totalCents, List<Split> splits);
 
     /**
      * Creates splits for the given users with equal distribution.
      * This is a convenience method for creating initial splits.
      *
-     * @param totalAmount The total expense amount
-     * @param users       The list of users to split among
+     * @param totalCents The total expense amount in cents
+     * @param users      The list of users to split among
      * @return List of calculated splits
      */
-    List<Split> createSplits(double totalAmount, List<User> users);
+    List<Split> createSplits(long totalCents, List<User> users);
+
+    /**
+     * Computes the shares createSplits would produce, straight into primitive
+     * arrays, without creating a Split object per participant.
+     *
+     * @param totalCents The total expense amount in cents
+     * @param users      The list of users to split among
+     * @return The computed shares
+     */
+    SplitShares computeShares(long totalCents, List<User> users);
+
+    /**
+     * Validates computed shares against the total amount, applying the same
+     * rules as validate does for Split objects.
+     *
+     * @throws InvalidSplitException if validation fails
+     */
+    void validate(long totalCents, SplitShares shares) throws InvalidSplitException;
 }
@@ -5,7 +5,6 @@ import splitwise.model.User;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
@@ -13,6 +12,7 @@ import java.util.PriorityQueue;
 /**
  * Utility class for simplifying debts to minimize the number of transactions.
  * Uses a greedy algorithm to match creditors with debtors.
+ * Works on integer cents, so every debt is matched exactly with no residue.
  */
 public class BalanceSimplifier {
 
@@ -20,26 +20,24 @@ public class BalanceSimplifier {
      * Simplifies debts among a group of users to minimize transactions.
      * Uses a greedy algorithm with priority queues.
      *
-     * @param users List of users with their balances
+     * @param netBalances Net balance in cents for each user
+     *                    (positive = net creditor, negative = net debtor)
      * @return List of simplified balances (minimum transactions needed)
      */
-    public static List<Balance> simplify(List<User> users) {
+    public static List<Balance> simplify(Map<User, Long> netBalances) {
         List<Balance> simplifiedBalances = new ArrayList<>();
 
-        // Calculate net balance for each user
-        Map<User, Double> netBalances = calculateNetBalances(users);
-
         // Separate into creditors (positive) and debtors (negative)
         PriorityQueue<UserAmount> creditors = new PriorityQueue<>(
-                Comparator.comparingDouble((UserAmount ua) -> ua.amount).reversed());
+                Comparator.comparingLong((UserAmount ua) -> ua.amount).reversed());
         PriorityQueue<UserAmount> debtors = new PriorityQueue<>(
-                Comparator.comparingDouble(ua -> ua.amount));
+                Comparator.comparingLong(ua -> ua.amount));
 
-        for (Map.Entry<User, Double> entry : netBalances.entrySet()) {
-            double balance = entry.getValue();
-            if (balance > 0.01) {
+        for (Map.Entry<User, Long> entry : netBalances.entrySet()) {
+            long balance = entry.getValue();
+            if (balance > 0) {
                 creditors.add(new UserAmount(entry.getKey(), balance));
-            } else if (balance < -0.01) {
+            } else if (balance < 0) {
                 debtors.add(new UserAmount(entry.getKey(), balance));
             }
         }
@@ -49,23 +47,22 @@ public class BalanceSimplifier {
             UserAmount creditor = creditors.poll();
             UserAmount debtor = debtors.poll();
 
-            double credit = creditor.amount;
-            double debt = Math.abs(debtor.amount);
+            long credit = creditor.amount;
+            long debt = -debtor.amount;
 
-            double settleAmount = Math.min(credit, debt);
+            long settleAmount = Math.min(credit, debt);
 
             // Create a balance: debtor owes creditor
-            simplifiedBalances.add(new Balance(debtor.user, creditor.user,
-                    Math.round(settleAmount * 100.0) / 100.0));
+            simplifiedBalances.add(new Balance(debtor.user, creditor.user, settleAmount));
 
             // Update remaining amounts
-            double remainingCredit = credit - settleAmount;
-            double remainingDebt = debt - settleAmount;
+            long remainingCredit = credit - settleAmount;
+            long remainingDebt = debt - settleAmount;
 
-            if (remainingCredit > 0.01) {
+            if (remainingCredit > 0) {
                 creditors.add(new UserAmount(creditor.user, remainingCredit));
             }
-            if (remainingDebt > 0.01) {
+            if (remainingDebt > 0) {
                 debtors.add(new UserAmount(debtor.user, -remainingDebt));
             }
         }
@@ -73,36 +70,12 @@ public class BalanceSimplifier {
         return simplifiedBalances;
     }
 
-    /**
-     * Calculates the net balance for each user.
-     * Positive = net creditor (others owe them)
-     * Negative = net debtor (they owe others)
-     */
-    private static Map<User, Double> calculateNetBalances(List<User> users) {
-        Map<User, Double> netBalances = new HashMap<>();
-
-        for (User user : users) {
-            double netBalance = 0;
-            Map<String, Double> userBalances = user.getBalances();
-
-            for (Double balance : userBalances.values()) {
-                netBalance += balance;
-            }
-
-            netBalances.put(user, netBalance);
-        }
-
-        return netBalances;
-    }
-
     /**
      * Prints a detailed breakdown of how debts can be simplified.
      */
-    public static void printSimplification(List<User> users) {
+    public static void printSimplification(List<Balance> simplified) {
         System.out.println("\n=== Debt Simplification ===");
 
-        List<Balance> simplified = simplify(users);
-
         if (simplified.isEmpty()) {
             System.out.println("All balances are settled!");
             return;
@@ -126,9 +99,9 @@ public class BalanceSimplifier {
      */
     private static class UserAmount {
         final User user;
-        final double amount;
+        final long amount;
 
-        UserAmount(User user, double amount) {
+        UserAmount(User user, long amount) {
             this.user = user;
             this.amount = amount;
         }
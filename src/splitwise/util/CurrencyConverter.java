@@ -2,72 +2,86 @@ package splitwise.util;
 
 import splitwise.exception.InvalidCurrencyException;
 import splitwise.model.Currency;
+import splitwise.model.Money;
 
-import java.util.EnumMap;
-import java.util.Map;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * Utility class for currency conversion operations.
  * Maintains exchange rates and provides conversion functionality.
+ *
+ * Rates live in an immutable RateTable published through an AtomicReference:
+ * a conversion is one volatile read and two array indexes, with no locking or
+ * boxing, and an update swaps in a whole new table with compare-and-set, so
+ * readers always see a complete table.
+ *
+ * Past rates live in a RateHistory published the same way. Dated conversions
+ * use the rate in effect on that day, falling back to the latest rate for
+ * days the history does not cover.
  */
 public class CurrencyConverter {
-    // Exchange rates relative to USD (base currency)
-    private final Map<Currency, Map<Currency, Double>> exchangeRates;
+    private final AtomicReference<RateTable> rateTable;
+    private final AtomicReference<RateHistory> rateHistory;
 
     public CurrencyConverter() {
-        this.exchangeRates = new EnumMap<>(Currency.class);
-        initializeDefaultRates();
+        this(defaultRates());
+    }
+
+    public CurrencyConverter(RateTable rateTable) {
+        this.rateTable = new AtomicReference<>(rateTable);
+        this.rateHistory = new AtomicReference<>(RateHistory.empty());
     }
 
     /**
-     * Initializes default exchange rates.
+     * Builds the default exchange rates.
      * Rates are relative - e.g., 1 USD = 0.85 EUR, 1 USD = 83 INR
      */
-    private void initializeDefaultRates() {
-        // Initialize rate maps for each currency
-        for (Currency currency : Currency.values()) {
-            exchangeRates.put(currency, new EnumMap<>(Currency.class));
-        }
+    public static RateTable defaultRates() {
+        double[][] rates = RateTable.identity().toArray();
 
         // Set default rates (as of typical market rates)
         // USD base rates
-        setRate(Currency.USD, Currency.USD, 1.0);
-        setRate(Currency.USD, Currency.EUR, 0.85);
-        setRate(Currency.USD, Currency.INR, 83.0);
-        setRate(Currency.USD, Currency.GBP, 0.73);
-        setRate(Currency.USD, Currency.JPY, 110.0);
+        setRate(rates, Currency.USD, Currency.USD, 1.0);
+        setRate(rates, Currency.USD, Currency.EUR, 0.85);
+        setRate(rates, Currency.USD, Currency.INR, 83.0);
+        setRate(rates, Currency.USD, Currency.GBP, 0.73);
+        setRate(rates, Currency.USD, Currency.JPY, 110.0);
 
         // EUR base rates
-        setRate(Currency.EUR, Currency.USD, 1.18);
-        setRate(Currency.EUR, Currency.EUR, 1.0);
-        setRate(Currency.EUR, Currency.INR, 97.65);
-        setRate(Currency.EUR, Currency.GBP, 0.86);
-        setRate(Currency.EUR, Currency.JPY, 129.4);
+        setRate(rates, Currency.EUR, Currency.USD, 1.18);
+        setRate(rates, Currency.EUR, Currency.EUR, 1.0);
+        setRate(rates, Currency.EUR, Currency.INR, 97.65);
+        setRate(rates, Currency.EUR, Currency.GBP, 0.86);
+        setRate(rates, Currency.EUR, Currency.JPY, 129.4);
 
         // INR base rates
-        setRate(Currency.INR, Currency.USD, 0.012);
-        setRate(Currency.INR, Currency.EUR, 0.0102);
-        setRate(Currency.INR, Currency.INR, 1.0);
-        setRate(Currency.INR, Currency.GBP, 0.0088);
-        setRate(Currency.INR, Currency.JPY, 1.33);
+        setRate(rates, Currency.INR, Currency.USD, 0.012);
+        setRate(rates, Currency.INR, Currency.EUR, 0.0102);
+        setRate(rates, Currency.INR, Currency.INR, 1.0);
+        setRate(rates, Currency.INR, Currency.GBP, 0.0088);
+        setRate(rates, Currency.INR, Currency.JPY, 1.33);
 
         // GBP base rates
-        setRate(Currency.GBP, Currency.USD, 1.37);
-        setRate(Currency.GBP, Currency.EUR, 1.16);
-        setRate(Currency.GBP, Currency.INR, 113.7);
-        setRate(Currency.GBP, Currency.GBP, 1.0);
-        setRate(Currency.GBP, Currency.JPY, 150.7);
+        setRate(rates, Currency.GBP, Currency.USD, 1.37);
+        setRate(rates, Currency.GBP, Currency.EUR, 1.16);
+        setRate(rates, Currency.GBP, Currency.INR, 113.7);
+        setRate(rates, Currency.GBP, Currency.GBP, 1.0);
+        setRate(rates, Currency.GBP, Currency.JPY, 150.7);
 
         // JPY base rates
-        setRate(Currency.JPY, Currency.USD, 0.0091);
-        setRate(Currency.JPY, Currency.EUR, 0.0077);
-        setRate(Currency.JPY, Currency.INR, 0.75);
-        setRate(Currency.JPY, Currency.GBP, 0.0066);
-        setRate(Currency.JPY, Currency.JPY, 1.0);
+        setRate(rates, Currency.JPY, Currency.USD, 0.0091);
+        setRate(rates, Currency.JPY, Currency.EUR, 0.0077);
+        setRate(rates, Currency.JPY, Currency.INR, 0.75);
+        setRate(rates, Currency.JPY, Currency.GBP, 0.0066);
+        setRate(rates, Currency.JPY, Currency.JPY, 1.0);
+        return RateTable.of(rates);
     }
 
-    private void setRate(Currency from, Currency to, double rate) {
-        exchangeRates.get(from).put(to, rate);
+    private static void setRate(double[][] rates, Currency from, Currency to, double rate) {
+        rates[from.ordinal()][to.ordinal()] = rate;
     }
 
     /**
@@ -82,9 +96,154 @@ public class CurrencyConverter {
         if (from == to) {
             return amount;
         }
+        return Money.toAmount(convertCents(Money.toCents(amount), from, to));
+    }
+
+    /**
+     * Converts an amount in cents from one currency to another.
+     * The result is rounded once, to the nearest cent.
+     *
+     * @param amountCents The amount to convert, in cents
+     * @param from        The source currency
+     * @param to          The target currency
+     * @return The converted amount in cents
+     */
+    public long convertCents(long amountCents, Currency from, Currency to) {
+        if (from == to) {
+            return amountCents;
+        }
+        return Math.round(amountCents * getExchangeRate(from, to));
+    }
 
+    /**
+     * Converts many amounts in cents between the same two currencies with one rate lookup.
+     *
+     * @param amountsCents The amounts to convert, in cents
+     * @param converted    Receives the converted amounts; may be amountsCents itself
+     */
+    public void convertCents(long[] amountsCents, Currency from, Currency to, long[] converted) {
+        if (converted.length < amountsCents.length) {
+            throw new IllegalArgumentException("Output array is shorter than the input");
+        }
+        if (from == to) {
+            System.arraycopy(amountsCents, 0, converted, 0, amountsCents.length);
+            return;
+        }
         double rate = getExchangeRate(from, to);
-        return Math.round(amount * rate * 100.0) / 100.0;
+        for (int i = 0; i < amountsCents.length; i++) {
+            converted[i] = Math.round(amountsCents[i] * rate);
+        }
+    }
+
+    /**
+     * Converts many amounts in cents, each in its own currency, to one currency.
+     * All amounts are converted against the same rate table, even if rates
+     * change during the call.
+     *
+     * @param amountsCents The amounts to convert, in cents
+     * @param currencies   The currency of each amount
+     * @param converted    Receives the converted amounts; may be amountsCents itself
+     */
+    public void convertCents(long[] amountsCents, Currency[] currencies, Currency to, long[] converted) {
+        if (currencies.length != amountsCents.length || converted.length < amountsCents.length) {
+            throw new IllegalArgumentException("Amount, currency and output arrays must line up");
+        }
+        RateTable table = rateTable.get();
+        for (int i = 0; i < amountsCents.length; i++) {
+            Currency from = currencies[i];
+            converted[i] = from == to ? amountsCents[i] : Math.round(amountsCents[i] * rate(table, from, to));
+        }
+    }
+
+    /**
+     * Converts an amount at the rate in effect on a given date.
+     */
+    public double convert(double amount, Currency from, Currency to, LocalDate date) {
+        if (from == to) {
+            return amount;
+        }
+        return Money.toAmount(convertCents(Money.toCents(amount), from, to, date.toEpochDay()));
+    }
+
+    /**
+     * Converts an amount in cents at the rate in effect on a given date.
+     */
+    public long convertCents(long amountCents, Currency from, Currency to, LocalDate date) {
+        return convertCents(amountCents, from, to, date.toEpochDay());
+    }
+
+    /**
+     * Converts an amount in cents at the rate in effect on a given epoch day.
+     * Allocation-free, for converting large numbers of historical amounts.
+     *
+     * @throws InvalidCurrencyException if neither the history nor the latest table has a rate
+     */
+    public long convertCents(long amountCents, Currency from, Currency to, long epochDay) {
+        if (from == to) {
+            return amountCents;
+        }
+        return Math.round(amountCents * rateOn(rateHistory.get(), from, to, epochDay));
+    }
+
+    /**
+     * Converts many amounts in cents, each in its own currency and at the rate
+     * of its own day, to one currency. All amounts use the same history.
+     *
+     * @param epochDays Day of each amount (LocalDate.toEpochDay)
+     * @param converted Receives the converted amounts; may be amountsCents itself
+     */
+    public void convertCents(long[] amountsCents, Currency[] currencies, long[] epochDays, Currency to,
+                             long[] converted) {
+        if (currencies.length != amountsCents.length || epochDays.length != amountsCents.length
+                || converted.length < amountsCents.length) {
+            throw new IllegalArgumentException("Amount, currency, day and output arrays must line up");
+        }
+        RateHistory history = rateHistory.get();
+        for (int i = 0; i < amountsCents.length; i++) {
+            Currency from = currencies[i];
+            converted[i] = from == to ? amountsCents[i]
+                    : Math.round(amountsCents[i] * rateOn(history, from, to, epochDays[i]));
+        }
+    }
+
+    /**
+     * Gets the rate in effect on a day, falling back to the latest rate.
+     */
+    public double getExchangeRate(Currency from, Currency to, LocalDate date) {
+        return rateOn(rateHistory.get(), from, to, date.toEpochDay());
+    }
+
+    /**
+     * Loads historical rates from a CSV file (see RateHistory for the format)
+     * and merges them into the current history. Points from the file replace
+     * existing points for the same pair and day.
+     */
+    public void loadRateHistory(Path csvFile) {
+        RateHistory loaded = RateHistory.loadCsv(csvFile);
+        rateHistory.updateAndGet(history -> history.isEmpty() ? loaded : history.merge(loaded));
+    }
+
+    /**
+     * Records the rate of one pair on one day.
+     */
+    public void setHistoricalRate(Currency from, Currency to, LocalDate date, double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Exchange rate must be positive");
+        }
+        rateHistory.updateAndGet(history -> history.withRate(from, to, date, rate));
+    }
+
+    public void setRateHistory(RateHistory history) {
+        rateHistory.set(history);
+    }
+
+    public RateHistory getRateHistory() {
+        return rateHistory.get();
+    }
+
+    private double rateOn(RateHistory history, Currency from, Currency to, long epochDay) {
+        double rate = history.getRate(from, to, epochDay);
+        return Double.isNaN(rate) ? rate(rateTable.get(), from, to) : rate;
     }
 
     /**
@@ -93,17 +252,21 @@ public class CurrencyConverter {
      * @param from The source currency
      * @param to   The target currency
      * @return The exchange rate
+     * @throws InvalidCurrencyException if no rate is available
      */
     public double getExchangeRate(Currency from, Currency to) {
-        Map<Currency, Double> fromRates = exchangeRates.get(from);
-        if (fromRates == null || !fromRates.containsKey(to)) {
-            throw new InvalidCurrencyException(from.name(), to.name());
-        }
-        return fromRates.get(to);
+        return rate(rateTable.get(), from, to);
+    }
+
+    /**
+     * Checks whether a rate is available, without throwing.
+     */
+    public boolean hasExchangeRate(Currency from, Currency to) {
+        return rateTable.get().hasRate(from, to);
     }
 
     /**
-     * Sets or updates an exchange rate.
+     * Sets or updates an exchange rate by swapping in a new table.
      *
      * @param from The source currency
      * @param to   The target currency
@@ -113,7 +276,37 @@ public class CurrencyConverter {
         if (rate <= 0) {
             throw new IllegalArgumentException("Exchange rate must be positive");
         }
-        exchangeRates.get(from).put(to, rate);
+        updateRates(table -> table.withRate(from, to, rate));
+    }
+
+    /**
+     * Atomically applies a change to the rate table. The update function may be
+     * called more than once if other updates race with it, so it must be free of
+     * side effects.
+     *
+     * @return The table that was installed
+     */
+    public RateTable updateRates(UnaryOperator<RateTable> update) {
+        return rateTable.updateAndGet(update);
+    }
+
+    /**
+     * Replaces the whole rate table at once.
+     */
+    public void setRateTable(RateTable table) {
+        rateTable.set(table);
+    }
+
+    public RateTable getRateTable() {
+        return rateTable.get();
+    }
+
+    private static double rate(RateTable table, Currency from, Currency to) {
+        double rate = table.getRate(from, to);
+        if (Double.isNaN(rate)) {
+            throw new InvalidCurrencyException(from.name(), to.name());
+        }
+        return rate;
     }
 
     /**
@@ -132,11 +325,11 @@ public class CurrencyConverter {
      */
     public void printRates(Currency from) {
         System.out.println("Exchange rates from " + from.getDisplayName() + ":");
-        Map<Currency, Double> rates = exchangeRates.get(from);
-        for (Map.Entry<Currency, Double> entry : rates.entrySet()) {
-            if (entry.getKey() != from) {
+        RateTable table = rateTable.get();
+        for (Currency to : Currency.values()) {
+            if (to != from && table.hasRate(from, to)) {
                 System.out.printf("  1 %s = %.4f %s%n",
-                        from.name(), entry.getValue(), entry.getKey().name());
+                        from.name(), table.getRate(from, to), to.name());
             }
         }
     }
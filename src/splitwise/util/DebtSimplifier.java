@@ -0,0 +1,172 @@
+package splitwise.util;
+
+import splitwise.model.Balance;
+import splitwise.model.User;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact debt simplification: finds the fewest transfers that settle a set of net balances.
+ *
+ * A set of k users whose nets sum to zero can always be settled with k - 1
+ * transfers, so the fewest transfers overall is n minus the largest number of
+ * disjoint zero-sum subsets the n non-zero users can be split into.
+ * 1. Users whose nets cancel exactly are paired off first (one transfer each;
+ *    this never makes the answer worse).
+ * 2. If at most EXACT_LIMIT users remain, a DP over bitmasks of those users
+ *    finds the best split into zero-sum subsets in O(2^n * n), and each subset
+ *    is settled with BalanceSimplifier's greedy match.
+ * 3. Larger sets, and any DP that runs past the caller's time budget, fall back
+ *    to the greedy match, so latency stays bounded.
+ * All amounts are in cents.
+ */
+public class DebtSimplifier {
+    /** Largest number of users (after pairing off) that is solved exactly. */
+    public static final int EXACT_LIMIT = 18;
+    /** Budget used when the caller does not supply one. */
+    public static final Duration DEFAULT_TIME_BUDGET = Duration.ofMillis(50);
+
+    // How many masks are evaluated between deadline checks
+    private static final int DEADLINE_CHECK_INTERVAL = 1 << 10;
+
+    /**
+     * Simplifies debts among a group of users to the minimum number of transactions,
+     * within the default time budget.
+     *
+     * @param netBalances Net balance in cents for each user
+     *                    (positive = net creditor, negative = net debtor)
+     */
+    public static List<Balance> simplify(Map<User, Long> netBalances) {
+        return simplify(netBalances, DEFAULT_TIME_BUDGET);
+    }
+
+    /**
+     * Simplifies debts among a group of users to the minimum number of transactions.
+     * If the exact search cannot finish within the time budget, the remaining
+     * users are settled greedily instead.
+     *
+     * @param netBalances Net balance in cents for each user
+     *                    (positive = net creditor, negative = net debtor)
+     * @param timeBudget  How long the exact search may run
+     * @return List of simplified balances
+     */
+    public static List<Balance> simplify(Map<User, Long> netBalances, Duration timeBudget) {
+        List<Balance> simplifiedBalances = new ArrayList<>();
+        for (List<Balance> subset : simplifyInSubsets(netBalances, timeBudget)) {
+            simplifiedBalances.addAll(subset);
+        }
+        return simplifiedBalances;
+    }
+
+    /**
+     * Simplifies debts like simplify, but keeps the transfers of each settled
+     * subset together: every inner list settles its own users exactly, and no
+     * user appears in two lists (except after a greedy fallback on unbalanced input).
+     */
+    public static List<List<Balance>> simplifyInSubsets(Map<User, Long> netBalances, Duration timeBudget) {
+        long deadline = System.nanoTime() + Math.max(0, timeBudget.toNanos());
+        List<List<Balance>> settledSubsets = new ArrayList<>();
+
+        // Pair off users whose nets cancel exactly
+        Map<Long, ArrayDeque<User>> unmatched = new HashMap<>();
+        Map<User, Long> remaining = new LinkedHashMap<>();
+        for (Map.Entry<User, Long> entry : netBalances.entrySet()) {
+            long balance = entry.getValue();
+            if (balance == 0) {
+                continue;
+            }
+            ArrayDeque<User> opposites = unmatched.get(-balance);
+            if (opposites != null && !opposites.isEmpty()) {
+                User other = opposites.poll();
+                remaining.remove(other);
+                if (balance > 0) {
+                    settledSubsets.add(List.of(new Balance(other, entry.getKey(), balance)));
+                } else {
+                    settledSubsets.add(List.of(new Balance(entry.getKey(), other, -balance)));
+                }
+            } else {
+                unmatched.computeIfAbsent(balance, amount -> new ArrayDeque<>()).add(entry.getKey());
+                remaining.put(entry.getKey(), balance);
+            }
+        }
+
+        List<Map<User, Long>> subsets = remaining.size() <= EXACT_LIMIT ? partition(remaining, deadline) : null;
+        if (subsets == null) {
+            // Too many users, unbalanced input, or out of time
+            List<Balance> greedy = BalanceSimplifier.simplify(remaining);
+            if (!greedy.isEmpty()) {
+                settledSubsets.add(greedy);
+            }
+        } else {
+            for (Map<User, Long> subset : subsets) {
+                settledSubsets.add(BalanceSimplifier.simplify(subset));
+            }
+        }
+        return settledSubsets;
+    }
+
+    /**
+     * Splits the balances into the largest number of disjoint zero-sum subsets.
+     *
+     * @return The subsets, or null if the balances do not sum to zero or the deadline passed
+     */
+    private static List<Map<User, Long>> partition(Map<User, Long> balances, long deadline) {
+        int n = balances.size();
+        User[] users = balances.keySet().toArray(new User[0]);
+        long[] amounts = new long[n];
+        for (int i = 0; i < n; i++) {
+            amounts[i] = balances.get(users[i]);
+        }
+
+        int full = (1 << n) - 1;
+        long[] sums = new long[full + 1];
+        // groups[mask] = most zero-sum masks met while removing the users of 'mask'
+        // one at a time; for a zero-sum mask this is the most zero-sum subsets it splits into
+        byte[] groups = new byte[full + 1];
+        for (int mask = 1; mask <= full; mask++) {
+            if ((mask & (DEADLINE_CHECK_INTERVAL - 1)) == 0 && System.nanoTime() - deadline > 0) {
+                return null;
+            }
+            int lowest = Integer.numberOfTrailingZeros(mask);
+            sums[mask] = sums[mask & (mask - 1)] + amounts[lowest];
+            int best = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                best = Math.max(best, groups[mask & ~Integer.lowestOneBit(rest)]);
+            }
+            groups[mask] = (byte) (sums[mask] == 0 ? best + 1 : best);
+        }
+        if (sums[full] != 0) {
+            return null;
+        }
+
+        // Walk back from the full set; each zero-sum mask on the way closes a subset
+        List<Map<User, Long>> subsets = new ArrayList<>();
+        Map<User, Long> current = new LinkedHashMap<>();
+        int mask = full;
+        while (mask != 0) {
+            int target = groups[mask] - (sums[mask] == 0 ? 1 : 0);
+            int removed = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int bit = Integer.lowestOneBit(rest);
+                if (groups[mask & ~bit] == target) {
+                    removed = bit;
+                    break;
+                }
+            }
+            int index = Integer.numberOfTrailingZeros(removed);
+            current.put(users[index], amounts[index]);
+            mask &= ~removed;
+            if (sums[mask] == 0) {
+                subsets.add(current);
+                current = new LinkedHashMap<>();
+            }
+        }
+        return subsets;
+    }
+}
@@ -0,0 +1,14 @@
+package splitwise.util;
+
+/**
+ * Strategy for generating entity ids as 64-bit numbers.
+ * Implementations must be thread-safe and should return increasing ids,
+ * so that ids sort in creation order.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+    /**
+     * Gets the next id. Ids are non-negative.
+     */
+    long nextId();
+}
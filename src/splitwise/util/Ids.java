@@ -0,0 +1,109 @@
+package splitwise.util;
+
+import java.util.Arrays;
+
+/**
+ * Generates entity ids and converts them between their 64-bit and text forms.
+ *
+ * The text form is the id in Crockford base32, always 13 characters, so text
+ * ids compare in the same order as the numbers (creation order for the default
+ * snowflake generator). That is about a third of the length of a UUID string,
+ * which keeps map keys, the journal and snapshots small.
+ * Ids created before this scheme (UUID strings) are still accepted everywhere
+ * ids are strings; only decode requires the compact form.
+ */
+public final class Ids {
+    public static final int LENGTH = 13;
+
+    private static final char[] DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < DIGITS.length; i++) {
+            VALUES[DIGITS[i]] = (byte) i;
+            VALUES[Character.toLowerCase(DIGITS[i])] = (byte) i;
+        }
+    }
+
+    private static volatile IdGenerator generator = new SnowflakeIdGenerator(0);
+
+    private Ids() {
+    }
+
+    /**
+     * Gets the next id from the current generator, in text form.
+     */
+    public static String next() {
+        return encode(generator.nextId());
+    }
+
+    /**
+     * Replaces the generator, e.g. to give each process its own snowflake node.
+     */
+    public static void setGenerator(IdGenerator idGenerator) {
+        if (idGenerator == null) {
+            throw new IllegalArgumentException("Id generator must not be null");
+        }
+        generator = idGenerator;
+    }
+
+    public static IdGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Encodes a non-negative id as 13 base32 characters.
+     */
+    public static String encode(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Ids must be non-negative: " + id);
+        }
+        char[] text = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            text[i] = DIGITS[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(text);
+    }
+
+    /**
+     * Decodes the text form of an id.
+     *
+     * @throws IllegalArgumentException if the text is not a compact id (e.g. a UUID)
+     */
+    public static long decode(String id) {
+        if (!isCompact(id)) {
+            throw new IllegalArgumentException("Not a compact id: " + id);
+        }
+        long value = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            value = (value << 5) | VALUES[id.charAt(i)];
+        }
+        return value;
+    }
+
+    /**
+     * Checks whether a string is the text form of an id (rather than, say, a legacy UUID).
+     */
+    public static boolean isCompact(String id) {
+        if (id == null || id.length() != LENGTH || id.charAt(0) > '7') {
+            return false; // The first character holds only the top 4 bits, and the sign bit is zero
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            char c = id.charAt(i);
+            if (c >= VALUES.length || VALUES[c] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets a short form of an id for display: its last 8 characters, which
+     * (unlike the first ones, for time-ordered ids) differ between entities.
+     */
+    public static String shortForm(String id) {
+        return id.length() <= 8 ? id : id.substring(id.length() - 8);
+    }
+}
@@ -0,0 +1,49 @@
+package splitwise.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints backed by a single array.
+ * Not thread-safe: callers must provide their own synchronization.
+ */
+public class IntList {
+    private int[] elements;
+    private int size;
+
+    public IntList() {
+        this(4);
+    }
+
+    public IntList(int initialCapacity) {
+        this.elements = new int[Math.max(1, initialCapacity)];
+    }
+
+    public void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size << 1);
+        }
+        elements[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return elements[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a copy of the elements.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+}
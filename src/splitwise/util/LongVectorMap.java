@@ -0,0 +1,112 @@
+package splitwise.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from primitive long keys to fixed-width vectors of longs.
+ * Each key gets a row on first use; row r's vector is the 'width' consecutive
+ * slots starting at r * width of one flat long[], so reading or updating a
+ * component never boxes and never allocates (except when the storage grows).
+ * Rows are never removed: a vector that returns to all zeros keeps its row.
+ * Key 0 is reserved, as in LongLongHashMap.
+ * Not thread-safe: callers must provide their own synchronization.
+ */
+public class LongVectorMap {
+    private final int width;
+    private final LongLongHashMap rowsByKey; // key -> row + 1 (0 = absent)
+    private long[] keys;
+    private long[] values;
+    private int rows;
+
+    public LongVectorMap(int width) {
+        this(width, 16);
+    }
+
+    public LongVectorMap(int width, int expectedSize) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Vector width must be positive: " + width);
+        }
+        this.width = width;
+        this.rowsByKey = new LongLongHashMap(expectedSize);
+        this.keys = new long[Math.max(1, expectedSize)];
+        this.values = new long[keys.length * width];
+    }
+
+    /**
+     * Adds a delta to one component of a key's vector.
+     *
+     * @return true if the key was not present before
+     */
+    public boolean addTo(long key, int component, long delta) {
+        int row = row(key);
+        boolean added = row < 0;
+        if (added) {
+            row = addRow(key);
+        }
+        values[row * width + component] += delta;
+        return added;
+    }
+
+    /**
+     * Gets one component of a key's vector (0 if the key is absent).
+     */
+    public long get(long key, int component) {
+        int row = row(key);
+        return row < 0 ? 0L : values[row * width + component];
+    }
+
+    /**
+     * Gets the row of a key, or -1 if the key is absent.
+     */
+    public int row(long key) {
+        return (int) rowsByKey.get(key, 0L) - 1;
+    }
+
+    /**
+     * Gets one component of the vector stored in a row.
+     */
+    public long valueAt(int row, int component) {
+        return values[row * width + component];
+    }
+
+    public long keyAt(int row) {
+        return keys[row];
+    }
+
+    /**
+     * Copies a key's vector into 'into' (all zeros if the key is absent).
+     */
+    public void copyTo(long key, long[] into) {
+        int row = row(key);
+        if (row < 0) {
+            Arrays.fill(into, 0, width, 0L);
+        } else {
+            System.arraycopy(values, row * width, into, 0, width);
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Gets the number of keys (rows) stored.
+     */
+    public int size() {
+        return rows;
+    }
+
+    public boolean isEmpty() {
+        return rows == 0;
+    }
+
+    private int addRow(long key) {
+        if (rows == keys.length) {
+            keys = Arrays.copyOf(keys, rows << 1);
+            values = Arrays.copyOf(values, (rows << 1) * width);
+        }
+        keys[rows] = key;
+        rowsByKey.put(key, rows + 1L);
+        return rows++;
+    }
+}
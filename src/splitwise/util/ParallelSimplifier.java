@@ -0,0 +1,113 @@
+package splitwise.util;
+
+import splitwise.model.Balance;
+import splitwise.model.User;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Simplifies many independent sets of net balances (one per group, or one per
+ * connected component of the debt graph) in parallel on a ForkJoinPool.
+ *
+ * The key list is split in halves down to single keys, so work stealing keeps
+ * every worker busy even when a few sets are much larger than the rest.
+ * Each set is simplified with DebtSimplifier under its own time budget, and its
+ * result is handed to the listener as soon as it is ready.
+ */
+public class ParallelSimplifier {
+    private final ForkJoinPool pool;
+
+    public ParallelSimplifier() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelSimplifier(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Simplifies the net balances of every key in parallel and returns when all are done.
+     * The listener is called from pool threads, concurrently, so it must be thread-safe.
+     *
+     * @param netBalances Computes the net balances of one key; called on a pool thread
+     * @param timeBudget  Exact-search budget for each key
+     */
+    public <K> void simplifyAll(List<K> keys, Function<K, Map<User, Long>> netBalances, Duration timeBudget,
+                                ResultListener<K> listener) {
+        solveAll(keys, key -> DebtSimplifier.simplify(netBalances.apply(key), timeBudget), listener);
+    }
+
+    /**
+     * Runs a solver for every key in parallel and returns when all are done, for
+     * callers that produce a key's transfers some other way (e.g. from a plan cache).
+     * The listener is called from pool threads, concurrently, so it must be thread-safe.
+     *
+     * @param solver Computes the transfers of one key; called on a pool thread
+     */
+    public <K> void solveAll(List<K> keys, Function<K, List<Balance>> solver, ResultListener<K> listener) {
+        if (!keys.isEmpty()) {
+            pool.invoke(new SimplifyTask<>(keys, 0, keys.size(), solver, listener));
+        }
+    }
+
+    /**
+     * Simplifies the net balances of every key in parallel and collects the results.
+     */
+    public <K> Map<K, List<Balance>> simplifyAll(List<K> keys, Function<K, Map<User, Long>> netBalances,
+                                                 Duration timeBudget) {
+        Map<K, List<Balance>> results = new ConcurrentHashMap<>();
+        simplifyAll(keys, netBalances, timeBudget, results::put);
+        return results;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Callback receiving each simplified set as it completes.
+     */
+    public interface ResultListener<K> {
+        void onSimplified(K key, List<Balance> balances);
+    }
+
+    /**
+     * Simplifies keys [from, to), forking halves until a single key is left.
+     */
+    private static class SimplifyTask<K> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<K> keys;
+        private final int from;
+        private final int to;
+        private final Function<K, List<Balance>> solver;
+        private final ResultListener<K> listener;
+
+        SimplifyTask(List<K> keys, int from, int to, Function<K, List<Balance>> solver,
+                     ResultListener<K> listener) {
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+            this.solver = solver;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                K key = keys.get(from);
+                listener.onSimplified(key, solver.apply(key));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SimplifyTask<>(keys, from, middle, solver, listener),
+                      new SimplifyTask<>(keys, middle, to, solver, listener));
+        }
+    }
+}
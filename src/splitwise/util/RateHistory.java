@@ -0,0 +1,253 @@
+package splitwise.util;
+
+import splitwise.exception.InvalidCurrencyException;
+import splitwise.model.Currency;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Historical exchange rates: for each currency pair, a series of
+ * (epoch day, rate) points sorted by day, held in two primitive arrays.
+ *
+ * The rate on a day is the latest point on or before that day, found by binary
+ * search, so a lookup costs O(log points) and allocates nothing. A pair with no
+ * series of its own is answered from the inverse pair's series.
+ * Immutable: loading or merging produces a new history.
+ *
+ * CSV format, one point per line: {@code date,from,to,rate}, e.g.
+ * {@code 2024-03-01,USD,EUR,0.92}. Blank lines, lines starting with '#',
+ * and a header line starting with "date" are skipped.
+ */
+public final class RateHistory {
+    private static final int SIZE = Currency.values().length;
+    private static final RateHistory EMPTY = new RateHistory(new int[SIZE * SIZE][], new double[SIZE * SIZE][]);
+
+    // Indexed by pair (from ordinal * SIZE + to ordinal); null when the pair has no points
+    private final int[][] days;
+    private final double[][] rates;
+
+    private RateHistory(int[][] days, double[][] rates) {
+        this.days = days;
+        this.rates = rates;
+    }
+
+    public static RateHistory empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Loads a history from a CSV file.
+     *
+     * @throws IllegalArgumentException on a malformed line
+     * @throws InvalidCurrencyException on an unknown currency code
+     */
+    public static RateHistory loadCsv(Path file) {
+        Loader loader = new Loader();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                loader.addLine(line.trim(), lineNumber);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read exchange rates from " + file, e);
+        }
+        return loader.build();
+    }
+
+    /**
+     * Returns a history with this history's points and another's; where both
+     * have a point for the same pair and day, the other's wins.
+     */
+    public RateHistory merge(RateHistory other) {
+        Loader loader = new Loader();
+        loader.addAll(this);
+        loader.addAll(other);
+        return loader.build();
+    }
+
+    /**
+     * Returns a history with one more point.
+     */
+    public RateHistory withRate(Currency from, Currency to, LocalDate date, double rate) {
+        Loader loader = new Loader();
+        loader.addAll(this);
+        loader.add(from, to, (int) date.toEpochDay(), rate);
+        return loader.build();
+    }
+
+    /**
+     * Gets the rate in effect on a day: the latest point on or before it.
+     * Allocation-free.
+     *
+     * @return The rate, or NaN if the history has no point for the pair on or before the day
+     */
+    public double getRate(Currency from, Currency to, long epochDay) {
+        if (from == to) {
+            return 1.0;
+        }
+        int pair = from.ordinal() * SIZE + to.ordinal();
+        if (days[pair] != null) {
+            return rateOn(pair, epochDay);
+        }
+        int inverse = to.ordinal() * SIZE + from.ordinal();
+        if (days[inverse] != null) {
+            return 1.0 / rateOn(inverse, epochDay); // 1 / NaN stays NaN
+        }
+        return Double.NaN;
+    }
+
+    public double getRate(Currency from, Currency to, LocalDate date) {
+        return getRate(from, to, date.toEpochDay());
+    }
+
+    /**
+     * Gets the number of points stored for a pair.
+     */
+    public int size(Currency from, Currency to) {
+        int[] series = days[from.ordinal() * SIZE + to.ordinal()];
+        return series == null ? 0 : series.length;
+    }
+
+    public boolean isEmpty() {
+        for (int[] series : days) {
+            if (series != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double rateOn(int pair, long epochDay) {
+        int[] series = days[pair];
+        if (epochDay < series[0]) {
+            return Double.NaN;
+        }
+        int index = Arrays.binarySearch(series, (int) Math.min(epochDay, Integer.MAX_VALUE));
+        // Not found: -(insertion point) - 1, and the point before the insertion point is in effect
+        return rates[pair][index >= 0 ? index : -index - 2];
+    }
+
+    /**
+     * Collects points in any order, then sorts each pair's series by day.
+     */
+    private static final class Loader {
+        private final IntList[] days = new IntList[SIZE * SIZE];
+        private final double[][] rates = new double[SIZE * SIZE][];
+
+        void addLine(String line, int lineNumber) {
+            if (line.isEmpty() || line.startsWith("#") || (lineNumber == 1 && line.startsWith("date"))) {
+                return;
+            }
+            int first = line.indexOf(',');
+            int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+            int third = second < 0 ? -1 : line.indexOf(',', second + 1);
+            if (third < 0 || line.indexOf(',', third + 1) >= 0) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected date,from,to,rate but got '"
+                                                   + line + "'");
+            }
+            try {
+                int epochDay = parseEpochDay(line.substring(0, first).trim());
+                double rate = Double.parseDouble(line.substring(third + 1).trim());
+                if (!(rate > 0)) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": exchange rate must be positive");
+                }
+                add(currency(line.substring(first + 1, second), lineNumber),
+                    currency(line.substring(second + 1, third), lineNumber), epochDay, rate);
+            } catch (DateTimeException | NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Parses an ISO date (yyyy-MM-dd) without going through a DateTimeFormatter,
+         * which dominates load time for large files.
+         */
+        private static int parseEpochDay(String date) {
+            if (date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+                throw new DateTimeException("Text '" + date + "' is not a yyyy-MM-dd date");
+            }
+            int year = Integer.parseInt(date, 0, 4, 10);
+            int month = Integer.parseInt(date, 5, 7, 10);
+            int day = Integer.parseInt(date, 8, 10, 10);
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        }
+
+        void addAll(RateHistory history) {
+            for (int pair = 0; pair < SIZE * SIZE; pair++) {
+                int[] series = history.days[pair];
+                if (series != null) {
+                    for (int i = 0; i < series.length; i++) {
+                        add(pair, series[i], history.rates[pair][i]);
+                    }
+                }
+            }
+        }
+
+        void add(Currency from, Currency to, int epochDay, double rate) {
+            add(from.ordinal() * SIZE + to.ordinal(), epochDay, rate);
+        }
+
+        private void add(int pair, int epochDay, double rate) {
+            if (days[pair] == null) {
+                days[pair] = new IntList();
+                rates[pair] = new double[4];
+            }
+            int index = days[pair].size();
+            days[pair].add(epochDay);
+            if (index == rates[pair].length) {
+                rates[pair] = Arrays.copyOf(rates[pair], index << 1);
+            }
+            rates[pair][index] = rate;
+        }
+
+        RateHistory build() {
+            int[][] sortedDays = new int[SIZE * SIZE][];
+            double[][] sortedRates = new double[SIZE * SIZE][];
+            for (int pair = 0; pair < SIZE * SIZE; pair++) {
+                if (days[pair] == null) {
+                    continue;
+                }
+                int count = days[pair].size();
+                // Sort (day, insertion order) keys so a later point for the same day wins
+                long[] keys = new long[count];
+                for (int i = 0; i < count; i++) {
+                    keys[i] = ((long) days[pair].get(i) << 32) | i;
+                }
+                Arrays.sort(keys);
+                IntList uniqueDays = new IntList(count);
+                double[] uniqueRates = new double[count];
+                for (int i = 0; i < count; i++) {
+                    int day = (int) (keys[i] >> 32);
+                    double rate = rates[pair][(int) keys[i]];
+                    if (!uniqueDays.isEmpty() && uniqueDays.get(uniqueDays.size() - 1) == day) {
+                        uniqueRates[uniqueDays.size() - 1] = rate;
+                    } else {
+                        uniqueRates[uniqueDays.size()] = rate;
+                        uniqueDays.add(day);
+                    }
+                }
+                sortedDays[pair] = uniqueDays.toArray();
+                sortedRates[pair] = Arrays.copyOf(uniqueRates, uniqueDays.size());
+            }
+            return new RateHistory(sortedDays, sortedRates);
+        }
+
+        private static Currency currency(String code, int lineNumber) {
+            try {
+                return Currency.valueOf(code.trim());
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCurrencyException("Line " + lineNumber + ": unknown currency '" + code.trim() + "'");
+            }
+        }
+    }
+}
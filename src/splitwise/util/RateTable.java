@@ -0,0 +1,112 @@
+package splitwise.util;
+
+import splitwise.model.Currency;
+
+/**
+ * An immutable table of exchange rates, stored as a dense double[][] indexed
+ * by currency ordinal: rates[from][to] is how many units of 'to' one unit of
+ * 'from' buys. A missing rate is NaN.
+ *
+ * Immutable: the array is copied in and never exposed, so a table can be
+ * shared between threads without locking. Changes produce a new table.
+ */
+public final class RateTable {
+    private static final int SIZE = Currency.values().length;
+
+    private final double[][] rates;
+
+    private RateTable(double[][] rates) {
+        this.rates = rates;
+    }
+
+    /**
+     * Creates a table with no rates except 1.0 from each currency to itself.
+     */
+    public static RateTable identity() {
+        double[][] rates = new double[SIZE][SIZE];
+        for (int from = 0; from < SIZE; from++) {
+            for (int to = 0; to < SIZE; to++) {
+                rates[from][to] = from == to ? 1.0 : Double.NaN;
+            }
+        }
+        return new RateTable(rates);
+    }
+
+    /**
+     * Creates a table from a matrix indexed by currency ordinal (NaN = no rate).
+     * The matrix is copied.
+     */
+    public static RateTable of(double[][] rates) {
+        if (rates.length != SIZE) {
+            throw new IllegalArgumentException("Rate matrix must be " + SIZE + "x" + SIZE);
+        }
+        double[][] copy = new double[SIZE][];
+        for (int from = 0; from < SIZE; from++) {
+            if (rates[from].length != SIZE) {
+                throw new IllegalArgumentException("Rate matrix must be " + SIZE + "x" + SIZE);
+            }
+            for (int to = 0; to < SIZE; to++) {
+                checkRate(rates[from][to]);
+            }
+            copy[from] = rates[from].clone();
+        }
+        return new RateTable(copy);
+    }
+
+    /**
+     * Returns a copy of this table with one rate set.
+     */
+    public RateTable withRate(Currency from, Currency to, double rate) {
+        checkRate(rate);
+        double[][] copy = new double[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            // Rows other than 'from' are never written, so they can be shared
+            copy[i] = i == from.ordinal() ? rates[i].clone() : rates[i];
+        }
+        copy[from.ordinal()][to.ordinal()] = rate;
+        return new RateTable(copy);
+    }
+
+    /**
+     * Gets a rate, or NaN if the table has none for the pair.
+     */
+    public double getRate(Currency from, Currency to) {
+        return rates[from.ordinal()][to.ordinal()];
+    }
+
+    public boolean hasRate(Currency from, Currency to) {
+        return !Double.isNaN(rates[from.ordinal()][to.ordinal()]);
+    }
+
+    /**
+     * Gets the rates from every currency to one currency, indexed by the source
+     * currency's ordinal (NaN where there is no rate). Used to convert a
+     * per-currency balance vector with one dot product.
+     *
+     * @return A new array
+     */
+    public double[] conversionVector(Currency to) {
+        double[] vector = new double[SIZE];
+        for (int from = 0; from < SIZE; from++) {
+            vector[from] = rates[from][to.ordinal()];
+        }
+        return vector;
+    }
+
+    /**
+     * Returns a copy of the matrix, indexed by currency ordinal.
+     */
+    public double[][] toArray() {
+        double[][] copy = new double[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            copy[i] = rates[i].clone();
+        }
+        return copy;
+    }
+
+    private static void checkRate(double rate) {
+        if (!Double.isNaN(rate) && !(rate > 0)) {
+            throw new IllegalArgumentException("Exchange rate must be positive");
+        }
+    }
+}
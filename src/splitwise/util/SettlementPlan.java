@@ -0,0 +1,152 @@
+package splitwise.util;
+
+import splitwise.model.Balance;
+import splitwise.model.Currency;
+import splitwise.model.User;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A cached settlement plan: the simplified transfers for a set of users,
+ * together with the net balances they were computed from.
+ *
+ * The transfers are kept in zero-sum subsets (as returned by
+ * DebtSimplifier.simplifyInSubsets). When some nets change, every subset that
+ * contains none of the changed users still settles its users exactly, so update
+ * re-solves only the subsets the changed users belong to.
+ * All nets and transfers of a plan are in one currency.
+ * Immutable: update returns a new plan.
+ */
+public final class SettlementPlan {
+    private final long version; // Ledger version the nets were read at
+    private final Currency currency;
+    private final Map<User, Long> netBalances;
+    private final List<List<Balance>> subsets;
+    private final Map<User, Integer> subsetOfUser;
+    private final List<Balance> balances;
+
+    /**
+     * The plan keeps its own Balances, built in the plan's currency, so the
+     * caller's (mutable) Balance objects are never shared or changed.
+     */
+    private SettlementPlan(long version, Currency currency, Map<User, Long> netBalances,
+                           List<List<Balance>> subsets) {
+        this.version = version;
+        this.currency = currency;
+        this.netBalances = netBalances;
+        this.subsets = new ArrayList<>(subsets.size());
+        this.subsetOfUser = new HashMap<>();
+        List<Balance> all = new ArrayList<>();
+        for (int i = 0; i < subsets.size(); i++) {
+            List<Balance> subset = new ArrayList<>(subsets.get(i).size());
+            for (Balance balance : subsets.get(i)) {
+                Balance own = new Balance(balance.getFromUser(), balance.getToUser(),
+                        balance.getAmountCents(), currency);
+                subsetOfUser.put(own.getFromUser(), i);
+                subsetOfUser.put(own.getToUser(), i);
+                subset.add(own);
+                all.add(own);
+            }
+            this.subsets.add(Collections.unmodifiableList(subset));
+        }
+        this.balances = Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Computes a plan from scratch.
+     *
+     * @param version     Version of the ledger the nets were read at
+     * @param currency    Currency of the nets and of the transfers
+     * @param netBalances Net balance in cents of every user the plan covers
+     */
+    public static SettlementPlan create(long version, Currency currency, Map<User, Long> netBalances,
+                                        Duration timeBudget) {
+        return new SettlementPlan(version, currency, new LinkedHashMap<>(netBalances),
+                DebtSimplifier.simplifyInSubsets(netBalances, timeBudget));
+    }
+
+    /**
+     * Brings the plan up to date with new net balances for the same users, in the plan's currency.
+     * Subsets whose users' nets are all unchanged are kept as they are; the
+     * users of the other subsets, plus the changed users, are simplified again.
+     *
+     * @return This plan if no net changed (re-stamped with the version), otherwise a repaired plan
+     */
+    public SettlementPlan update(long version, Map<User, Long> newNetBalances, Duration timeBudget) {
+        Set<Integer> touchedSubsets = new HashSet<>();
+        Map<User, Long> repairNets = new LinkedHashMap<>();
+        for (Map.Entry<User, Long> entry : newNetBalances.entrySet()) {
+            if (!Objects.equals(netBalances.get(entry.getKey()), entry.getValue())) {
+                repairNets.put(entry.getKey(), entry.getValue());
+                Integer subset = subsetOfUser.get(entry.getKey());
+                if (subset != null) {
+                    touchedSubsets.add(subset);
+                }
+            }
+        }
+        if (repairNets.isEmpty()) {
+            return version == this.version ? this
+                    : new SettlementPlan(version, currency, netBalances, subsets);
+        }
+
+        List<List<Balance>> repairedSubsets = new ArrayList<>(subsets.size());
+        for (int i = 0; i < subsets.size(); i++) {
+            if (!touchedSubsets.contains(i)) {
+                repairedSubsets.add(subsets.get(i));
+                continue;
+            }
+            // Unchanged users of a touched subset keep their nets
+            for (Balance balance : subsets.get(i)) {
+                repairNets.putIfAbsent(balance.getFromUser(), netBalances.get(balance.getFromUser()));
+                repairNets.putIfAbsent(balance.getToUser(), netBalances.get(balance.getToUser()));
+            }
+        }
+        repairedSubsets.addAll(DebtSimplifier.simplifyInSubsets(repairNets, timeBudget));
+        return new SettlementPlan(version, currency, new LinkedHashMap<>(newNetBalances), repairedSubsets);
+    }
+
+    /**
+     * Checks whether the plan covers exactly the given users.
+     */
+    public boolean coversExactly(Collection<User> users) {
+        if (users.size() != netBalances.size()) {
+            return false;
+        }
+        for (User user : users) {
+            if (!netBalances.containsKey(user)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Gets the transfers that settle every covered user. The list and its
+     * Balances are copies, so callers may modify them.
+     */
+    public List<Balance> getBalances() {
+        List<Balance> copies = new ArrayList<>(balances.size());
+        for (Balance balance : balances) {
+            copies.add(new Balance(balance.getFromUser(), balance.getToUser(), balance.getAmountCents(), currency));
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,68 @@
+package splitwise.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit ids in the snowflake layout:
+ * [1 bit zero][41 bits milliseconds since EPOCH_MILLIS][10 bits node][12 bits sequence].
+ *
+ * Ids from one generator are strictly increasing: the (millisecond, sequence)
+ * pair of the last id is kept in one AtomicLong and advanced with a CAS, so
+ * generation is lock-free and never touches SecureRandom. When the clock has
+ * not moved (or has moved backwards) the sequence counts on from the last id,
+ * and a full sequence carries into the next millisecond instead of waiting.
+ * Distinct node numbers keep the ids of separate generators distinct.
+ */
+public final class SnowflakeIdGenerator implements IdGenerator {
+    /** 2024-01-01T00:00:00Z; 41 bits of milliseconds last until 2093. */
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    public static final int MAX_NODE = (1 << 10) - 1;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    private final long node;
+    private final LongSupplier clock;
+    private final AtomicLong last; // (millis since epoch << SEQUENCE_BITS) | sequence of the last id
+
+    public SnowflakeIdGenerator(int node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    /**
+     * @param node  This generator's node number, 0..MAX_NODE
+     * @param clock Supplies the current time in epoch milliseconds
+     */
+    public SnowflakeIdGenerator(int node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node must be between 0 and " + MAX_NODE + ": " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+        this.last = new AtomicLong(-1L);
+    }
+
+    @Override
+    public long nextId() {
+        long next = last.updateAndGet(previous ->
+                Math.max((clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS, previous + 1));
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * Gets the creation time of an id, in epoch milliseconds.
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    /**
+     * Gets the node number of an id.
+     */
+    public static int nodeOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE;
+    }
+}
@@ -0,0 +1,82 @@
+package splitwise.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Secondary index over an append-only log.
+ * For each key it keeps the log positions of matching entries as a primitive
+ * list. Positions are appended in increasing order, so each list is already
+ * sorted oldest to newest: "newest N" reads walk the tail of a list and
+ * "older than" cursors are found by binary search, with no sorting at read time.
+ * Not thread-safe: callers must provide their own synchronization.
+ *
+ * @param <K> The index key type (e.g. user id, group id, activity type)
+ */
+public class TimelineIndex<K> {
+    private final Map<K, IntList> positionsByKey;
+
+    public TimelineIndex() {
+        this.positionsByKey = new HashMap<>();
+    }
+
+    /**
+     * Records that the log entry at the given position matches the key.
+     * Positions must be added in increasing order.
+     */
+    public void add(K key, int position) {
+        IntList positions = positionsByKey.computeIfAbsent(key, k -> new IntList());
+        if (!positions.isEmpty() && positions.get(positions.size() - 1) == position) {
+            return; // Same entry indexed twice under one key
+        }
+        positions.add(position);
+    }
+
+    /**
+     * Gets up to 'limit' positions for a key that are older than a cursor, newest first.
+     *
+     * @param key            The index key
+     * @param beforePosition Only positions strictly less than this are returned
+     *                       (use Integer.MAX_VALUE for the newest entries)
+     * @param limit          The maximum number of positions to return
+     * @return The matching positions, newest first
+     */
+    public int[] newest(K key, int beforePosition, int limit) {
+        IntList positions = positionsByKey.get(key);
+        if (positions == null || limit <= 0) {
+            return new int[0];
+        }
+        int end = lowerBound(positions, beforePosition);
+        int count = Math.min(limit, end);
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = positions.get(end - 1 - i);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of positions indexed under a key.
+     */
+    public int count(K key) {
+        IntList positions = positionsByKey.get(key);
+        return positions == null ? 0 : positions.size();
+    }
+
+    /**
+     * Finds the index of the first position that is greater than or equal to the target.
+     */
+    private static int lowerBound(IntList positions, int target) {
+        int low = 0;
+        int high = positions.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (positions.get(mid) < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}